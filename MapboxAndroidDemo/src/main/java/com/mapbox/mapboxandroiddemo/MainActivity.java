@@ -94,6 +94,7 @@ import com.mapbox.mapboxandroiddemo.examples.styles.StyleFadeSwitchActivity;
 import com.mapbox.mapboxandroiddemo.examples.styles.VectorSourceActivity;
 import com.mapbox.mapboxandroiddemo.examples.styles.ZoomDependentFillColorActivity;
 import com.mapbox.mapboxandroiddemo.labs.AnimatedImageGifActivity;
+import com.mapbox.mapboxandroiddemo.labs.FleetAnimationActivity;
 import com.mapbox.mapboxandroiddemo.labs.IndoorMapActivity;
 import com.mapbox.mapboxandroiddemo.labs.InsetMapActivity;
 import com.mapbox.mapboxandroiddemo.labs.LocationPickerActivity;
@@ -631,6 +632,12 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
           new Intent(MainActivity.this, SpaceStationLocationActivity.class),
           R.string.activity_lab_space_station_location_url, false, BuildConfig.MIN_SDK_VERSION));
 
+        exampleItemModels.add(new ExampleItemModel(
+          R.string.activity_lab_fleet_animation_title,
+          R.string.activity_lab_fleet_animation_description,
+          new Intent(MainActivity.this, FleetAnimationActivity.class),
+          R.string.activity_lab_fleet_animation_url, true, BuildConfig.MIN_SDK_VERSION));
+
         exampleItemModels.add(new ExampleItemModel(
           R.string.activity_lab_picture_in_picture_title,
           R.string.activity_lab_picture_in_picture_description,
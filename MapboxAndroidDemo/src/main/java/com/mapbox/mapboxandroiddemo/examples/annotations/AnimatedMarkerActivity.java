@@ -1,14 +1,14 @@
 package com.mapbox.mapboxandroiddemo.examples.annotations;
 
-import android.animation.ObjectAnimator;
-import android.animation.TypeEvaluator;
-import android.animation.ValueAnimator;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 import android.widget.Toast;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.commons.geometry.RoutePath;
+import com.mapbox.mapboxandroiddemo.utils.RoutePlayback;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
@@ -23,9 +23,13 @@ import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 public class AnimatedMarkerActivity extends AppCompatActivity implements OnMapReadyCallback,
   MapboxMap.OnMapClickListener {
 
+  private static final double ANIMATION_SECONDS = 2;
+
   private MapView mapView;
   private MapboxMap mapboxMap;
   private Marker marker;
+  private RoutePlayback playback;
+  private final LatLng markerPosition = new LatLng();
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -62,17 +66,44 @@ public class AnimatedMarkerActivity extends AppCompatActivity implements OnMapRe
   @Override
   public void onMapClick(@NonNull LatLng point) {
     // When the user clicks on the map, we want to animate the marker to that
-    // location.
-    ValueAnimator markerAnimator = ObjectAnimator.ofObject(marker, "position",
-      new LatLngEvaluator(), marker.getPosition(), point);
-    markerAnimator.setDuration(2000);
-    markerAnimator.start();
+    // location. The marker moves along a two point route, once per frame.
+    if (playback != null) {
+      playback.pause();
+      playback = null;
+    }
+    LatLng start = marker.getPosition();
+    PackedCoordinates coordinates = new PackedCoordinates(2);
+    coordinates.add(start.getLongitude(), start.getLatitude());
+    coordinates.add(point.getLongitude(), point.getLatitude());
+    RoutePath path = new RoutePath(coordinates);
+    if (path.getLength() == 0) {
+      // Already there, a playback of an empty route would never start nor finish
+      return;
+    }
+
+    playback = new RoutePlayback(path, path.getLength() / ANIMATION_SECONDS, new RoutePlayback.Listener() {
+      @Override
+      public void onPosition(double longitude, double latitude, double bearing) {
+        markerPosition.setLatitude(latitude);
+        markerPosition.setLongitude(longitude);
+        marker.setPosition(markerPosition);
+      }
+
+      @Override
+      public void onFinished() {
+        playback = null;
+      }
+    });
+    playback.start();
   }
 
   @Override
   public void onResume() {
     super.onResume();
     mapView.onResume();
+    if (playback != null) {
+      playback.start();
+    }
   }
 
   @Override
@@ -91,6 +122,9 @@ public class AnimatedMarkerActivity extends AppCompatActivity implements OnMapRe
   public void onPause() {
     super.onPause();
     mapView.onPause();
+    if (playback != null) {
+      playback.pause();
+    }
   }
 
   @Override
@@ -113,19 +147,4 @@ public class AnimatedMarkerActivity extends AppCompatActivity implements OnMapRe
     super.onSaveInstanceState(outState);
     mapView.onSaveInstanceState(outState);
   }
-
-  private static class LatLngEvaluator implements TypeEvaluator<LatLng> {
-    // Method is used to interpolate the marker animation.
-
-    private LatLng latLng = new LatLng();
-
-    @Override
-    public LatLng evaluate(float fraction, LatLng startValue, LatLng endValue) {
-      latLng.setLatitude(startValue.getLatitude()
-        + ((endValue.getLatitude() - startValue.getLatitude()) * fraction));
-      latLng.setLongitude(startValue.getLongitude()
-        + ((endValue.getLongitude() - startValue.getLongitude()) * fraction));
-      return latLng;
-    }
-  }
-}
\ No newline at end of file
+}
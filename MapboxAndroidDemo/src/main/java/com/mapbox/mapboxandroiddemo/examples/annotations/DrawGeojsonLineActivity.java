@@ -4,26 +4,21 @@ import android.graphics.Color;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LevelOfDetailLine;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LineStringExtractor;
+import com.mapbox.mapboxandroiddemo.utils.LevelOfDetailLineUpdater;
 import com.mapbox.mapboxsdk.Mapbox;
-import com.mapbox.mapboxsdk.annotations.PolylineOptions;
-import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
+import com.mapbox.mapboxsdk.style.layers.LineLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
 
 /**
  * Draw a polyline by parsing a GeoJSON file with the Mapbox Android SDK.
@@ -33,7 +28,7 @@ public class DrawGeojsonLineActivity extends AppCompatActivity implements OnMapR
   private static final String TAG = "DrawGeojsonLineActivity";
 
   private MapView mapView;
-  private MapboxMap mapboxMap;
+  private LevelOfDetailLineUpdater lineUpdater;
 
   @Override
   public void onCreate(Bundle savedInstanceState) {
@@ -53,7 +48,16 @@ public class DrawGeojsonLineActivity extends AppCompatActivity implements OnMapR
 
   @Override
   public void onMapReady(MapboxMap mapboxMap) {
-    this.mapboxMap = mapboxMap;
+    // Add an empty source and a layer for the line, the source is filled in once the GeoJSON is loaded
+    GeoJsonSource lineSource = new GeoJsonSource("line-source");
+    mapboxMap.addSource(lineSource);
+    mapboxMap.addLayer(new LineLayer("line-layer", "line-source").withProperties(
+      lineColor(Color.parseColor("#3bb2d0")),
+      lineWidth(2f)
+    ));
+
+    // Swap in a simplified version of the line whenever the camera settles on a different zoom
+    lineUpdater = new LevelOfDetailLineUpdater(mapboxMap, lineSource);
 
     // Load and Draw the GeoJSON
     new DrawGeoJson().execute();
@@ -98,66 +102,37 @@ public class DrawGeojsonLineActivity extends AppCompatActivity implements OnMapR
   @Override
   public void onDestroy() {
     super.onDestroy();
+    if (lineUpdater != null) {
+      lineUpdater.release();
+      lineUpdater = null;
+    }
     mapView.onDestroy();
   }
 
-  private class DrawGeoJson extends AsyncTask<Void, Void, List<LatLng>> {
+  private class DrawGeoJson extends AsyncTask<Void, Void, LevelOfDetailLine> {
     @Override
-    protected List<LatLng> doInBackground(Void... voids) {
-
-      ArrayList<LatLng> points = new ArrayList<>();
+    protected LevelOfDetailLine doInBackground(Void... voids) {
 
       try {
-        // Load GeoJSON file
-        InputStream inputStream = getAssets().open("example.geojson");
-        BufferedReader rd = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
-        StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-          sb.append((char) cp);
-        }
-
-        inputStream.close();
-
-        // Parse JSON
-        JSONObject json = new JSONObject(sb.toString());
-        JSONArray features = json.getJSONArray("features");
-        JSONObject feature = features.getJSONObject(0);
-        JSONObject geometry = feature.getJSONObject("geometry");
-        if (geometry != null) {
-          String type = geometry.getString("type");
-
-          // Our GeoJSON only has one feature: a line string
-          if (!TextUtils.isEmpty(type) && type.equalsIgnoreCase("LineString")) {
-
-            // Get the Coordinates
-            JSONArray coords = geometry.getJSONArray("coordinates");
-            for (int lc = 0; lc < coords.length(); lc++) {
-              JSONArray coord = coords.getJSONArray(lc);
-              LatLng latLng = new LatLng(coord.getDouble(1), coord.getDouble(0));
-              points.add(latLng);
-            }
-          }
-        }
+        // Our GeoJSON only has one feature: a line string. Build simplified versions of it
+        // for lower zoom levels up front.
+        return LevelOfDetailLine.create(LineStringExtractor.extract(getAssets().open("example.geojson")));
       } catch (Exception exception) {
         Log.e(TAG, "Exception Loading GeoJSON: " + exception.toString());
       }
 
-      return points;
+      return null;
     }
 
     @Override
-    protected void onPostExecute(List<LatLng> points) {
-      super.onPostExecute(points);
+    protected void onPostExecute(LevelOfDetailLine line) {
+      super.onPostExecute(line);
 
-      if (points.size() > 0) {
+      if (line != null && lineUpdater != null) {
 
         // Draw polyline on map
-        mapboxMap.addPolyline(new PolylineOptions()
-          .addAll(points)
-          .color(Color.parseColor("#3bb2d0"))
-          .width(2));
+        lineUpdater.setLine(line);
       }
     }
   }
-}
\ No newline at end of file
+}
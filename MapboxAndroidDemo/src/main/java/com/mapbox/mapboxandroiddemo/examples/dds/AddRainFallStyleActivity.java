@@ -2,15 +2,22 @@ package com.mapbox.mapboxandroiddemo.examples.dds;
 
 import android.os.Bundle;
 import android.os.Handler;
+import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.SeekBar;
+import android.widget.TextView;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.TimeSeriesAnimator;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.FillLayer;
+import com.mapbox.mapboxsdk.style.layers.Layer;
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
 import com.mapbox.mapboxsdk.style.sources.VectorSource;
 
@@ -19,6 +26,7 @@ import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.interpolate;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.literal;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.stop;
+import static com.mapbox.mapboxsdk.style.layers.Property.NONE;
 import static com.mapbox.mapboxsdk.style.layers.Property.VISIBLE;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.fillColor;
 
@@ -29,11 +37,19 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
   public static final String ID_SOURCE = "moji-source";
   public static final String ID_LAYER = "moji-layer";
   public static final String SOURCE_URL = "mapbox://shenhongissky.6vm8ssjm";
+  private static final int FRAME_COUNT = 40;
+  private static final long FRAME_DURATION_MILLIS = 1000;
+  private static final long STATS_INTERVAL_MILLIS = 1000;
   private MapView mapView;
+  private MapboxMap mapboxMap;
+  private TextView statsView;
+  private SeekBar seekBar;
   private Handler handler;
   private FillLayer layer;
-  private int index = 1;
-  private RefreshGeoJsonRunnable refreshGeoJsonRunnable;
+  private TimeSeriesAnimator animator;
+  private TimeSeriesAnimator.LayerPerFrameStrategy layerPerFrameStrategy;
+  private String strategyName;
+  private long frameDuration = FRAME_DURATION_MILLIS;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -47,6 +63,9 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
     setContentView(R.layout.activity_style_rainfall);
 
     handler = new Handler();
+    statsView = findViewById(R.id.rainfall_stats);
+    seekBar = findViewById(R.id.rainfall_seek_bar);
+    seekBar.setMax(FRAME_COUNT - 1);
     mapView = findViewById(R.id.mapView);
     mapView.onCreate(savedInstanceState);
     mapView.getMapAsync(this);
@@ -56,6 +75,10 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
   protected void onStart() {
     super.onStart();
     mapView.onStart();
+    if (animator != null) {
+      animator.start();
+      handler.postDelayed(updateStats, STATS_INTERVAL_MILLIS);
+    }
   }
 
   @Override
@@ -74,6 +97,10 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
   protected void onStop() {
     super.onStop();
     mapView.onStop();
+    if (animator != null) {
+      animator.stop();
+    }
+    handler.removeCallbacks(updateStats);
   }
 
   @Override
@@ -85,10 +112,11 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (animator != null) {
+      animator.release();
+    }
     mapView.onDestroy();
-    handler.removeCallbacks(refreshGeoJsonRunnable);
-    refreshGeoJsonRunnable = null;
-    handler = null;
+    handler.removeCallbacks(updateStats);
   }
 
   @Override
@@ -99,26 +127,144 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
 
   @Override
   public void onMapReady(MapboxMap mapboxMap) {
+    this.mapboxMap = mapboxMap;
     addRadar(mapboxMap);
-    refreshGeoJsonRunnable = new RefreshGeoJsonRunnable();
-    do {
-      handler.postDelayed(refreshGeoJsonRunnable, 1000);
+    useFilterStrategy();
+
+    // Scrub through the frames, pausing the animation while the thumb is dragged
+    seekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+      @Override
+      public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+        if (fromUser && animator != null) {
+          animator.seekTo(progress);
+        }
+      }
+
+      @Override
+      public void onStartTrackingTouch(SeekBar seekBar) {
+        if (animator != null) {
+          animator.stop();
+        }
+      }
+
+      @Override
+      public void onStopTrackingTouch(SeekBar seekBar) {
+        if (animator != null) {
+          animator.start();
+        }
+      }
+    });
+    handler.postDelayed(updateStats, STATS_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Shows every frame with the same layer, by changing its filter to the frame's index.
+   */
+  private void useFilterStrategy() {
+    removeLayerPerFrameStrategy();
+    layer.setProperties(PropertyFactory.visibility(VISIBLE));
+    startAnimator(new TimeSeriesAnimator.Strategy() {
+      @Override
+      public void showFrame(int frame, int previousFrame) {
+        layer.setFilter(eq(get("idx"), literal(frame)));
+      }
+    }, getString(R.string.rainfall_strategy_filter));
+  }
+
+  /**
+   * Shows every frame with a layer of its own, filtered once, by toggling the visibility of the layers.
+   */
+  private void useLayerPerFrameStrategy() {
+    if (layerPerFrameStrategy != null) {
+      return;
+    }
+    layer.setProperties(PropertyFactory.visibility(NONE));
+    layerPerFrameStrategy = new TimeSeriesAnimator.LayerPerFrameStrategy(mapboxMap, ID_LAYER + "-", FRAME_COUNT,
+      new TimeSeriesAnimator.LayerPerFrameStrategy.LayerFactory() {
+        @NonNull
+        @Override
+        public Layer create(@NonNull String layerId, int frame) {
+          return createRainLayer(layerId, frame);
+        }
+      }, null);
+    startAnimator(layerPerFrameStrategy, getString(R.string.rainfall_strategy_layers));
+  }
+
+  private void removeLayerPerFrameStrategy() {
+    if (layerPerFrameStrategy != null) {
+      layerPerFrameStrategy.remove();
+      layerPerFrameStrategy = null;
+    }
+  }
+
+  /**
+   * Replaces the animator with one using another strategy, continuing from the frame shown.
+   */
+  private void startAnimator(TimeSeriesAnimator.Strategy strategy, String name) {
+    int frame = 0;
+    if (animator != null) {
+      frame = Math.max(animator.getFrame(), 0);
+      animator.release();
     }
-    while (index == 39);
+    animator = new TimeSeriesAnimator(mapView, strategy, FRAME_COUNT, frameDuration);
+    animator.setListener(new TimeSeriesAnimator.Listener() {
+      @Override
+      public void onFrame(int frame) {
+        seekBar.setProgress(frame);
+      }
+    });
+    strategyName = name;
+    animator.seekTo(frame);
+    animator.resetStats();
+    animator.start();
   }
 
-  private class RefreshGeoJsonRunnable implements Runnable {
+  private final Runnable updateStats = new Runnable() {
     @Override
     public void run() {
-      layer.setFilter(eq((Expression.get("idx")), literal(index)));
-      index++;
-      if (index == 40) {
-        index = 0;
+      if (animator != null) {
+        statsView.setText(getString(R.string.rainfall_stats, strategyName, animator.getAverageUpdateMillis(),
+          animator.getAverageRenderMillis()));
       }
-      handler.postDelayed(this, 1000);
+      handler.postDelayed(this, STATS_INTERVAL_MILLIS);
+    }
+  };
+
+  @Override
+  public boolean onCreateOptionsMenu(Menu menu) {
+    getMenuInflater().inflate(R.menu.menu_rainfall, menu);
+    return true;
+  }
+
+  @Override
+  public boolean onOptionsItemSelected(MenuItem item) {
+    if (animator == null) {
+      return super.onOptionsItemSelected(item);
+    }
+    switch (item.getItemId()) {
+      case R.id.menu_rainfall_filter:
+        useFilterStrategy();
+        return true;
+      case R.id.menu_rainfall_layers:
+        useLayerPerFrameStrategy();
+        return true;
+      case R.id.menu_rainfall_1fps:
+        setFrameDuration(1000);
+        return true;
+      case R.id.menu_rainfall_4fps:
+        setFrameDuration(250);
+        return true;
+      default:
+        return super.onOptionsItemSelected(item);
     }
   }
 
+  private void setFrameDuration(long frameDuration) {
+    this.frameDuration = frameDuration;
+    animator.setFrameDuration(frameDuration);
+    animator.resetStats();
+  }
+
   private void addRadar(MapboxMap mapboxMap) {
     VectorSource vectorSource = new VectorSource(
       ID_SOURCE,
@@ -127,31 +273,36 @@ public class AddRainFallStyleActivity extends AppCompatActivity implements OnMap
     mapboxMap.addSource(vectorSource);
     layer = mapboxMap.getLayerAs(ID_LAYER);
     if (layer == null) {
-      layer = new FillLayer(ID_LAYER, ID_SOURCE);
-      layer.withSourceLayer("whole");
-      layer.setFilter(eq((get("idx")), literal(0)));
-      layer.setProperties(PropertyFactory.visibility(VISIBLE),
-        fillColor(interpolate(Expression.exponential(1f),
-          get("value"),
-          stop(8, Expression.rgb(20, 160, 240)),
-          stop(18, Expression.rgb(20, 190, 240)),
-          stop(36, Expression.rgb(20, 220, 240)),
-          stop(54, Expression.rgb(20, 250, 240)),
-          stop(72, Expression.rgb(20, 250, 160)),
-          stop(90, Expression.rgb(135, 250, 80)),
-          stop(108, Expression.rgb(250, 250, 0)),
-          stop(126, Expression.rgb(250, 180, 0)),
-          stop(144, Expression.rgb(250, 110, 0)),
-          stop(162, Expression.rgb(250, 40, 0)),
-          stop(180, Expression.rgb(180, 40, 40)),
-          stop(198, Expression.rgb(110, 40, 80)),
-          stop(216, Expression.rgb(80, 40, 110)),
-          stop(234, Expression.rgb(50, 40, 140)),
-          stop(252, Expression.rgb(20, 40, 170))
-          )
-        ),
-        PropertyFactory.fillOpacity(0.7f));
+      layer = createRainLayer(ID_LAYER, 0);
       mapboxMap.addLayer(layer);
     }
   }
+
+  private FillLayer createRainLayer(String layerId, int index) {
+    FillLayer layer = new FillLayer(layerId, ID_SOURCE);
+    layer.withSourceLayer("whole");
+    layer.setFilter(eq((get("idx")), literal(index)));
+    layer.setProperties(PropertyFactory.visibility(VISIBLE),
+      fillColor(interpolate(Expression.exponential(1f),
+        get("value"),
+        stop(8, Expression.rgb(20, 160, 240)),
+        stop(18, Expression.rgb(20, 190, 240)),
+        stop(36, Expression.rgb(20, 220, 240)),
+        stop(54, Expression.rgb(20, 250, 240)),
+        stop(72, Expression.rgb(20, 250, 160)),
+        stop(90, Expression.rgb(135, 250, 80)),
+        stop(108, Expression.rgb(250, 250, 0)),
+        stop(126, Expression.rgb(250, 180, 0)),
+        stop(144, Expression.rgb(250, 110, 0)),
+        stop(162, Expression.rgb(250, 40, 0)),
+        stop(180, Expression.rgb(180, 40, 40)),
+        stop(198, Expression.rgb(110, 40, 80)),
+        stop(216, Expression.rgb(80, 40, 110)),
+        stop(234, Expression.rgb(50, 40, 140)),
+        stop(252, Expression.rgb(20, 40, 170))
+        )
+      ),
+      PropertyFactory.fillOpacity(0.7f));
+    return layer;
+  }
 }
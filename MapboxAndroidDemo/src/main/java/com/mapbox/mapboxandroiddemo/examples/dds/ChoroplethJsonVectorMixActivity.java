@@ -5,6 +5,7 @@ import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.AssetTextReader;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
@@ -17,11 +18,6 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-
 import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.match;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.rgba;
@@ -42,7 +38,6 @@ public class ChoroplethJsonVectorMixActivity extends AppCompatActivity implement
 
   private MapView mapView;
   private JSONArray statesArray;
-  private StringBuilder sb;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -67,10 +62,8 @@ public class ChoroplethJsonVectorMixActivity extends AppCompatActivity implement
     VectorSource vectorSource = new VectorSource(VECTOR_SOURCE_NAME, "mapbox://mapbox.us_census_states_2015");
     map.addSource(vectorSource);
 
-    loadJson();
-
     try {
-      statesArray = new JSONArray(sb.toString());
+      statesArray = new JSONArray(loadJson());
     } catch (Exception exception) {
       Log.e("JSONVectorMix", "Exception Loading GeoJSON: ", exception);
     }
@@ -149,20 +142,13 @@ public class ChoroplethJsonVectorMixActivity extends AppCompatActivity implement
     mapView.onSaveInstanceState(outState);
   }
 
-  private StringBuilder loadJson() {
-    sb = new StringBuilder();
+  private String loadJson() {
     try {
       // Load GeoJSON file
-      InputStream inputStream = getAssets().open(STATE_UNEMPLOYMENT_INFO_JSON);
-      BufferedReader rd = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
-      int cp;
-      while ((cp = rd.read()) != -1) {
-        sb.append((char) cp);
-      }
-      inputStream.close();
+      return AssetTextReader.readAsset(this, STATE_UNEMPLOYMENT_INFO_JSON);
     } catch (Exception exception) {
       Log.e("JSONVectorMix", "Exception Loading GeoJSON: ", exception);
     }
-    return sb;
+    return "";
   }
 }
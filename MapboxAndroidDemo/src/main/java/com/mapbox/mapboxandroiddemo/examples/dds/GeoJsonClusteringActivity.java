@@ -1,13 +1,20 @@
 package com.mapbox.mapboxandroiddemo.examples.dds;
 
 import android.graphics.Color;
+import android.graphics.PointF;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.app.AppCompatActivity;
-import android.util.Log;
 import android.widget.Toast;
 
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.Supercluster;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
+import com.mapbox.mapboxandroiddemo.utils.ClusterSourceUpdater;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLng;
@@ -17,11 +24,17 @@ import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.CircleLayer;
 import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
-import com.mapbox.mapboxsdk.style.sources.GeoJsonOptions;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import timber.log.Timber;
 
 import static com.mapbox.mapboxsdk.style.expressions.Expression.all;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
@@ -37,13 +50,18 @@ import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textField;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textSize;
 
 /**
- * Use GeoJSON to visualize point data as a clusters.
+ * Use GeoJSON to visualize point data as a clusters. The points are clustered in the app, so that tapping
+ * a cluster can zoom to where it breaks up.
  */
-public class GeoJsonClusteringActivity extends AppCompatActivity {
+public class GeoJsonClusteringActivity extends AppCompatActivity implements MapboxMap.OnMapClickListener {
+
+  private static final String SOURCE_ID = "earthquakes";
+  private static final String[] CLUSTER_LAYER_IDS = {"cluster-0", "cluster-1", "cluster-2"};
 
   private MapView mapView;
   private MapboxMap mapboxMap;
-
+  private ClusterSourceUpdater clusterSourceUpdater;
+  private Call earthquakesCall;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -68,6 +86,8 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
         mapboxMap.animateCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(12.099, -79.045), 3));
 
         addClusteredGeoJsonSource();
+        loadEarthquakes();
+        mapboxMap.addOnMapClickListener(GeoJsonClusteringActivity.this);
 
         Toast.makeText(GeoJsonClusteringActivity.this, R.string.zoom_map_in_and_out_instruction,
           Toast.LENGTH_SHORT).show();
@@ -108,6 +128,15 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (earthquakesCall != null) {
+      earthquakesCall.cancel();
+    }
+    if (clusterSourceUpdater != null) {
+      clusterSourceUpdater.release();
+    }
+    if (mapboxMap != null) {
+      mapboxMap.removeOnMapClickListener(this);
+    }
     mapView.onDestroy();
   }
 
@@ -118,24 +147,41 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
   }
 
 
-  private void addClusteredGeoJsonSource() {
-
-    // Add a new source from the GeoJSON data and set the 'cluster' option to true.
+  @Override
+  public void onMapClick(@NonNull LatLng point) {
+    Supercluster clusters = clusterSourceUpdater.getIndex();
+    if (clusters == null) {
+      return;
+    }
+    PointF pixel = mapboxMap.getProjection().toScreenLocation(point);
+    List<Feature> features = mapboxMap.queryRenderedFeatures(pixel, CLUSTER_LAYER_IDS);
+    if (features.isEmpty()) {
+      return;
+    }
+    // Zoom in on the cluster, just enough for it to break up
+    Feature cluster = features.get(0);
+    if (!cluster.hasProperty(ClusterSourceUpdater.PROPERTY_CLUSTER_ID)) {
+      return;
+    }
+    Point center = (Point) cluster.geometry();
+    int zoom;
     try {
-      mapboxMap.addSource(
-        // Point to GeoJSON data. This example visualizes all M1.0+ earthquakes from
-        // 12/22/15 to 1/21/16 as logged by USGS' Earthquake hazards program.
-        new GeoJsonSource("earthquakes",
-          new URL("https://www.mapbox.com/mapbox-gl-js/assets/earthquakes.geojson"),
-          new GeoJsonOptions()
-            .withCluster(true)
-            .withClusterMaxZoom(14)
-            .withClusterRadius(50)
-        )
-      );
-    } catch (MalformedURLException malformedUrlException) {
-      Log.e("dataClusterActivity", "Check the URL " + malformedUrlException.getMessage());
+      zoom = clusters.getClusterExpansionZoom(
+        cluster.getNumberProperty(ClusterSourceUpdater.PROPERTY_CLUSTER_ID).intValue());
+    } catch (IllegalArgumentException exception) {
+      // The cluster was drawn from clusters that have since been rebuilt, ignore the tap
+      return;
     }
+    mapboxMap.animateCamera(CameraUpdateFactory.newLatLngZoom(
+      new LatLng(center.latitude(), center.longitude()), zoom));
+  }
+
+  private void addClusteredGeoJsonSource() {
+
+    // Add a new, unclustered, source for the clusters. The points are clustered by the ClusterSourceUpdater,
+    // which gives the source the clusters of the visible region as the camera moves.
+    mapboxMap.addSource(new GeoJsonSource(SOURCE_ID));
+    clusterSourceUpdater = new ClusterSourceUpdater(mapboxMap, SOURCE_ID, 50, 14);
 
 
     // Use the earthquakes GeoJSON source to create three layers: One layer for each cluster category.
@@ -147,13 +193,13 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
     };
 
     //Creating a marker layer for single data points
-    SymbolLayer unclustered = new SymbolLayer("unclustered-points", "earthquakes");
+    SymbolLayer unclustered = new SymbolLayer("unclustered-points", SOURCE_ID);
     unclustered.setProperties(iconImage("marker-15"));
     mapboxMap.addLayer(unclustered);
 
     for (int i = 0; i < layers.length; i++) {
       //Add clusters' circles
-      CircleLayer circles = new CircleLayer("cluster-" + i, "earthquakes");
+      CircleLayer circles = new CircleLayer(CLUSTER_LAYER_IDS[i], SOURCE_ID);
       circles.setProperties(
         circleColor(layers[i][1]),
         circleRadius(18f)
@@ -174,7 +220,7 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
     }
 
     //Add the count labels
-    SymbolLayer count = new SymbolLayer("count", "earthquakes");
+    SymbolLayer count = new SymbolLayer("count", SOURCE_ID);
     count.setProperties(
       textField("{point_count}"),
       textSize(12f),
@@ -183,4 +229,44 @@ public class GeoJsonClusteringActivity extends AppCompatActivity {
     mapboxMap.addLayer(count);
 
   }
+
+  private void loadEarthquakes() {
+    // Point to GeoJSON data. This example visualizes all M1.0+ earthquakes from
+    // 12/22/15 to 1/21/16 as logged by USGS' Earthquake hazards program.
+    Request request = new Request.Builder()
+      .url("https://www.mapbox.com/mapbox-gl-js/assets/earthquakes.geojson")
+      .build();
+    earthquakesCall = HttpClientProvider.getInstance(this).getClient().newCall(request);
+    earthquakesCall.enqueue(new Callback() {
+      @Override
+      public void onFailure(@NonNull Call call, @NonNull IOException exception) {
+        Timber.e(exception, "Unable to load the earthquakes");
+      }
+
+      @Override
+      public void onResponse(@NonNull Call call, @NonNull Response response) {
+        ResponseBody body = response.body();
+        try {
+          if (!response.isSuccessful() || body == null) {
+            Timber.e("Unexpected response %d", response.code());
+            return;
+          }
+          final FeatureCollection earthquakes = FeatureCollection.fromJson(body.string());
+          runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+              List<Feature> features = earthquakes.features();
+              if (features != null) {
+                clusterSourceUpdater.setFeatures(features);
+              }
+            }
+          });
+        } catch (IOException exception) {
+          Timber.e(exception, "Unable to load the earthquakes");
+        } finally {
+          response.close();
+        }
+      }
+    });
+  }
 }
@@ -2,9 +2,12 @@ package com.mapbox.mapboxandroiddemo.examples.dds;
 
 import android.graphics.Color;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
@@ -14,8 +17,7 @@ import com.mapbox.mapboxsdk.style.layers.FillLayer;
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.IOException;
-import java.io.InputStream;
+import timber.log.Timber;
 
 import static com.mapbox.mapboxsdk.style.expressions.Expression.eq;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.geometryType;
@@ -25,6 +27,7 @@ public class MultipleGeometriesActivity extends AppCompatActivity implements OnM
 
   private MapView mapView;
   private MapboxMap mapboxMap;
+  private GeoJsonAssetLoader.Request loadRequest;
   private static final String GEOJSON_SOURCE_ID = "GEOJSONFILE";
 
   @Override
@@ -52,10 +55,22 @@ public class MultipleGeometriesActivity extends AppCompatActivity implements OnM
   }
 
   private void createGeoJsonSource() {
-    // Load data from GeoJSON file in the assets folder
-    GeoJsonSource geoJsonSource = new GeoJsonSource(GEOJSON_SOURCE_ID,
-      loadJsonFromAsset("fake_norway_campsites.geojson"));
+    // Add an empty source right away and load data from the GeoJSON file in the assets folder
+    // on a background thread
+    final GeoJsonSource geoJsonSource = new GeoJsonSource(GEOJSON_SOURCE_ID);
     mapboxMap.addSource(geoJsonSource);
+    loadRequest = GeoJsonAssetLoader.getInstance(this).load("fake_norway_campsites.geojson",
+      new GeoJsonAssetLoader.Callback() {
+        @Override
+        public void onLoaded(@NonNull FeatureCollection featureCollection) {
+          geoJsonSource.setGeoJson(featureCollection);
+        }
+
+        @Override
+        public void onError(@NonNull Exception exception) {
+          Timber.e(exception);
+        }
+      });
   }
 
   private void addPolygonLayer() {
@@ -113,6 +128,9 @@ public class MultipleGeometriesActivity extends AppCompatActivity implements OnM
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (loadRequest != null) {
+      loadRequest.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -121,19 +139,4 @@ public class MultipleGeometriesActivity extends AppCompatActivity implements OnM
     super.onSaveInstanceState(outState);
     mapView.onSaveInstanceState(outState);
   }
-
-  private String loadJsonFromAsset(String filename) {
-    try {
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (IOException ex) {
-      ex.printStackTrace();
-      return null;
-    }
-  }
 }
\ No newline at end of file
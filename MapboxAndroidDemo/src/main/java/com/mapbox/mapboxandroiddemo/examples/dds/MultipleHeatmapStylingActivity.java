@@ -1,11 +1,14 @@
 package com.mapbox.mapboxandroiddemo.examples.dds;
 
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 import android.view.View;
 
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
@@ -17,8 +20,6 @@ import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.HeatmapLayer;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.InputStream;
-
 import static com.mapbox.mapboxsdk.style.expressions.Expression.heatmapDensity;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.interpolate;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.linear;
@@ -42,6 +43,7 @@ public class MultipleHeatmapStylingActivity extends AppCompatActivity
   private Expression[] listOfHeatmapRadiusStops;
   private Float[] listOfHeatmapIntensityStops;
   private int index;
+  private GeoJsonAssetLoader.Request loadRequest;
 
   @Override
   public void onCreate(Bundle savedInstanceState) {
@@ -89,8 +91,20 @@ public class MultipleHeatmapStylingActivity extends AppCompatActivity
   }
 
   private void addHeatmapDataSource() {
-    mapboxMap.addSource(new GeoJsonSource(HEATMAP_SOURCE_ID,
-      loadGeoJsonFromAsset("la_heatmap_styling_points.geojson")));
+    final GeoJsonSource heatmapSource = new GeoJsonSource(HEATMAP_SOURCE_ID);
+    mapboxMap.addSource(heatmapSource);
+    loadRequest = GeoJsonAssetLoader.getInstance(this).load("la_heatmap_styling_points.geojson",
+      new GeoJsonAssetLoader.Callback() {
+        @Override
+        public void onLoaded(@NonNull FeatureCollection featureCollection) {
+          heatmapSource.setGeoJson(featureCollection);
+        }
+
+        @Override
+        public void onError(@NonNull Exception exception) {
+          Log.e("MultipleHeatmapStyling", "Exception loading GeoJSON: " + exception.toString());
+        }
+      });
   }
 
   private void addHeatmapLayer() {
@@ -159,6 +173,9 @@ public class MultipleHeatmapStylingActivity extends AppCompatActivity
   @Override
   public void onDestroy() {
     super.onDestroy();
+    if (loadRequest != null) {
+      loadRequest.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -408,21 +425,4 @@ public class MultipleHeatmapStylingActivity extends AppCompatActivity
       0.5f
     };
   }
-
-  private String loadGeoJsonFromAsset(String filename) {
-    try {
-      // Load GeoJSON file
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (Exception exception) {
-      Log.e("MultipleHeatmapStyling", "Exception loading GeoJSON: " + exception.toString());
-      exception.printStackTrace();
-      return null;
-    }
-  }
 }
\ No newline at end of file
@@ -2,10 +2,13 @@ package com.mapbox.mapboxandroiddemo.examples.dds;
 
 import android.graphics.Color;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
@@ -15,8 +18,6 @@ import com.mapbox.mapboxsdk.style.layers.Property;
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.InputStream;
-
 import static com.mapbox.mapboxsdk.style.expressions.Expression.color;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.match;
@@ -28,6 +29,7 @@ import static com.mapbox.mapboxsdk.style.expressions.Expression.stop;
 public class StyleLineIdentityPropertyActivity extends AppCompatActivity {
 
   private MapView mapView;
+  private GeoJsonAssetLoader.Request loadRequest;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -49,10 +51,23 @@ public class StyleLineIdentityPropertyActivity extends AppCompatActivity {
 
         // Retrieve GeoJSON from local file and add it to the map
 
-        GeoJsonSource linesSource = new GeoJsonSource("lines", loadGeoJsonFromAsset("golden_gate_lines.geojson"));
+        final GeoJsonSource linesSource = new GeoJsonSource("lines");
 
         mapboxMap.addSource(linesSource);
 
+        loadRequest = GeoJsonAssetLoader.getInstance(StyleLineIdentityPropertyActivity.this)
+          .load("golden_gate_lines.geojson", new GeoJsonAssetLoader.Callback() {
+            @Override
+            public void onLoaded(@NonNull FeatureCollection featureCollection) {
+              linesSource.setGeoJson(featureCollection);
+            }
+
+            @Override
+            public void onError(@NonNull Exception exception) {
+              Log.e("StyleLineActivity", "Exception Loading GeoJSON: " + exception.toString());
+            }
+          });
+
         // Create LineLayer, use lineColor, and stop to draw red and blue lines on map
 
         LineLayer linesLayer = new LineLayer("finalLines", "lines").withProperties(
@@ -104,6 +119,9 @@ public class StyleLineIdentityPropertyActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (loadRequest != null) {
+      loadRequest.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -112,24 +130,5 @@ public class StyleLineIdentityPropertyActivity extends AppCompatActivity {
     super.onSaveInstanceState(outState);
     mapView.onSaveInstanceState(outState);
   }
-
-  private String loadGeoJsonFromAsset(String filename) {
-
-    try {
-      // Load GeoJSON file
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (Exception exception) {
-      Log.e("StyleLineActivity", "Exception Loading GeoJSON: " + exception.toString());
-      exception.printStackTrace();
-      return null;
-    }
-
-  }
 }
 
@@ -1,10 +1,13 @@
 package com.mapbox.mapboxandroiddemo.examples.extrusions;
 
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
@@ -12,8 +15,7 @@ import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.layers.FillExtrusionLayer;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.IOException;
-import java.io.InputStream;
+import timber.log.Timber;
 
 import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.fillExtrusionBase;
@@ -28,6 +30,7 @@ public class Indoor3DMapActivity extends AppCompatActivity {
 
   private MapView mapView;
   private MapboxMap map;
+  private GeoJsonAssetLoader.Request loadRequest;
 
   @Override
   protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -47,8 +50,20 @@ public class Indoor3DMapActivity extends AppCompatActivity {
       public void onMapReady(final MapboxMap mapboxMap) {
         map = mapboxMap;
 
-        GeoJsonSource roomDataSource = new GeoJsonSource("room-data", loadJsonFromAsset("indoor-3d-map.geojson"));
+        final GeoJsonSource roomDataSource = new GeoJsonSource("room-data");
         map.addSource(roomDataSource);
+        loadRequest = GeoJsonAssetLoader.getInstance(Indoor3DMapActivity.this).load("indoor-3d-map.geojson",
+          new GeoJsonAssetLoader.Callback() {
+            @Override
+            public void onLoaded(@NonNull FeatureCollection featureCollection) {
+              roomDataSource.setGeoJson(featureCollection);
+            }
+
+            @Override
+            public void onError(@NonNull Exception exception) {
+              Timber.e(exception);
+            }
+          });
 
         FillExtrusionLayer roomExtrusionLayer = new FillExtrusionLayer("room-extrusion", "room-data");
         roomExtrusionLayer.setProperties(
@@ -90,6 +105,9 @@ public class Indoor3DMapActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (loadRequest != null) {
+      loadRequest.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -104,21 +122,4 @@ public class Indoor3DMapActivity extends AppCompatActivity {
     super.onSaveInstanceState(outState);
     mapView.onSaveInstanceState(outState);
   }
-
-  private String loadJsonFromAsset(String filename) {
-    // Using this method to load in GeoJSON files from the assets folder.
-
-    try {
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (IOException ex) {
-      ex.printStackTrace();
-      return null;
-    }
-  }
 }
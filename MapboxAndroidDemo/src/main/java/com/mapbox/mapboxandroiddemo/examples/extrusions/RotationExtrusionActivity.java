@@ -2,9 +2,6 @@ package com.mapbox.mapboxandroiddemo.examples.extrusions;
 
 import android.content.Context;
 import android.graphics.Color;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
@@ -13,9 +10,8 @@ import android.util.Log;
 import android.widget.Toast;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.OrientationCameraDriver;
 import com.mapbox.mapboxsdk.Mapbox;
-import com.mapbox.mapboxsdk.camera.CameraPosition;
-import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
@@ -24,15 +20,10 @@ import com.mapbox.mapboxsdk.plugins.building.BuildingPlugin;
 /**
  * Change the camera's bearing and tilt based on device movement while viewing building extrusions
  */
-public class RotationExtrusionActivity extends AppCompatActivity implements SensorEventListener {
+public class RotationExtrusionActivity extends AppCompatActivity {
   private MapView mapView;
   private MapboxMap mapboxMap;
-  private SensorManager sensorManager;
-  private SensorControl sensorControl;
-  private float[] gravityArray;
-  private float[] magneticArray;
-  private float[] inclinationMatrix = new float[9];
-  private float[] rotationMatrix = new float[9];
+  private OrientationCameraDriver cameraDriver;
 
   // Amplifiers that translate small phone orientation movements into larger viewable map changes.
   // Pitch is negative to compensate for the negative readings from the device while face up
@@ -58,6 +49,7 @@ public class RotationExtrusionActivity extends AppCompatActivity implements Sens
       public void onMapReady(@NonNull final MapboxMap map) {
         mapboxMap = map;
         setupBuildingExtrusionPlugin();
+        setupCameraDriver();
       }
     });
   }
@@ -70,14 +62,27 @@ public class RotationExtrusionActivity extends AppCompatActivity implements Sens
     buildingPlugin.setVisibility(true);
   }
 
+  private void setupCameraDriver() {
+    SensorManager sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+    cameraDriver = new OrientationCameraDriver(mapboxMap, sensorManager, PITCH_AMPLIFIER, BEARING_AMPLIFIER);
+    if (!cameraDriver.hasAccelerometer()) {
+      Log.d("RotationExtrusion", "Whoops, no accelerometer sensor");
+      Toast.makeText(this, R.string.no_accelerometer, Toast.LENGTH_SHORT).show();
+    }
+    if (!cameraDriver.hasMagnetometer()) {
+      Log.d("RotationExtrusion", "Whoops, no magnetic sensor");
+      Toast.makeText(this, R.string.no_magnetic, Toast.LENGTH_SHORT).show();
+    }
+    cameraDriver.start();
+  }
+
   @Override
   protected void onStart() {
     super.onStart();
     mapView.onStart();
-    sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
-    sensorControl = new SensorControl(sensorManager);
-
-    registerSensorListeners();
+    if (cameraDriver != null) {
+      cameraDriver.start();
+    }
   }
 
   @Override
@@ -96,8 +101,9 @@ public class RotationExtrusionActivity extends AppCompatActivity implements Sens
   protected void onStop() {
     super.onStop();
     mapView.onStop();
-    sensorManager.unregisterListener(this, sensorControl.getGyro());
-    sensorManager.unregisterListener(this, sensorControl.getMagnetic());
+    if (cameraDriver != null) {
+      cameraDriver.stop();
+    }
   }
 
   @Override
@@ -117,79 +123,4 @@ public class RotationExtrusionActivity extends AppCompatActivity implements Sens
     super.onDestroy();
     mapView.onDestroy();
   }
-
-  @Override
-  public void onSensorChanged(SensorEvent event) {
-    if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-      gravityArray = event.values;
-    }
-    if (event.sensor.getType() == Sensor.TYPE_MAGNETIC_FIELD) {
-      magneticArray = event.values;
-    }
-    if (gravityArray != null && magneticArray != null) {
-      boolean success = SensorManager.getRotationMatrix(rotationMatrix, inclinationMatrix, gravityArray, magneticArray);
-      if (success) {
-        if (mapboxMap != null) {
-          int mapCameraAnimationMillisecondsSpeed = 100;
-          mapboxMap.animateCamera(CameraUpdateFactory
-            .newCameraPosition(createNewCameraPosition()), mapCameraAnimationMillisecondsSpeed
-          );
-        }
-      }
-    }
-  }
-
-  @Override
-  public void onAccuracyChanged(Sensor sensor, int accuracy) {
-    // Intentionally left empty
-  }
-
-  private CameraPosition createNewCameraPosition() {
-    float[] orientation = new float[3];
-    SensorManager.getOrientation(rotationMatrix, orientation);
-    float pitch = orientation[1];
-    float roll = orientation[2];
-
-    CameraPosition position = new CameraPosition.Builder()
-      .tilt(pitch * PITCH_AMPLIFIER)
-      .bearing(roll * BEARING_AMPLIFIER)
-      .build();
-
-    return position;
-  }
-
-  private void registerSensorListeners() {
-    int sensorEventDeliveryRate = 200;
-    if (sensorControl.getGyro() != null) {
-      sensorManager.registerListener(this, sensorControl.getGyro(), sensorEventDeliveryRate);
-    } else {
-      Log.d("RotationExtrusion", "Whoops, no accelerometer sensor");
-      Toast.makeText(this, R.string.no_accelerometer, Toast.LENGTH_SHORT).show();
-    }
-    if (sensorControl.getMagnetic() != null) {
-      sensorManager.registerListener(this, sensorControl.getMagnetic(), sensorEventDeliveryRate);
-    } else {
-      Log.d("RotationExtrusion", "Whoops, no magnetic sensor");
-      Toast.makeText(this, R.string.no_magnetic, Toast.LENGTH_SHORT).show();
-    }
-  }
-
-  private class SensorControl {
-    private Sensor gyro;
-    private Sensor magnetic;
-
-    SensorControl(SensorManager sensorManager) {
-      this.gyro = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-      this.magnetic = sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
-    }
-
-    Sensor getGyro() {
-      return gyro;
-    }
-
-    Sensor getMagnetic() {
-      return magnetic;
-    }
-  }
 }
-
@@ -13,6 +13,7 @@ import com.mapbox.api.directions.v5.models.DirectionsRoute;
 import com.mapbox.geojson.LineString;
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.PolylineOptions;
@@ -92,6 +93,7 @@ public class DirectionsActivity extends AppCompatActivity {
       .profile(DirectionsCriteria.PROFILE_CYCLING)
       .accessToken(getString(R.string.access_token))
       .build();
+    client.setCallFactory(HttpClientProvider.getInstance(this).getClient());
 
     client.enqueueCall(new Callback<DirectionsResponse>() {
       @Override
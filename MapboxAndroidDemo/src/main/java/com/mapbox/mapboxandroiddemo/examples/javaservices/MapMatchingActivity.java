@@ -10,23 +10,21 @@ import com.mapbox.api.matching.v5.MapboxMapMatching;
 import com.mapbox.api.matching.v5.models.MapMatchingResponse;
 import com.mapbox.core.constants.Constants;
 import com.mapbox.core.exceptions.ServicesException;
-import com.mapbox.geojson.FeatureCollection;
-import com.mapbox.geojson.LineString;
 import com.mapbox.geojson.Point;
 import com.mapbox.geojson.utils.PolylineUtils;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LevelOfDetailLine;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LineStringExtractor;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
+import com.mapbox.mapboxandroiddemo.utils.LevelOfDetailLineUpdater;
 import com.mapbox.mapboxsdk.Mapbox;
-import com.mapbox.mapboxsdk.annotations.Polyline;
-import com.mapbox.mapboxsdk.annotations.PolylineOptions;
-import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
+import com.mapbox.mapboxsdk.style.layers.LineLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,6 +33,9 @@ import retrofit2.Callback;
 import retrofit2.Response;
 
 import static com.mapbox.api.directions.v5.DirectionsCriteria.PROFILE_DRIVING;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineOpacity;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
 
 
 /**
@@ -45,8 +46,8 @@ public class MapMatchingActivity extends AppCompatActivity {
   private static final String TAG = "MapMatchingActivity";
 
   private MapView mapView;
-  private MapboxMap map;
-  private Polyline mapMatchedRoute;
+  private LevelOfDetailLineUpdater traceUpdater;
+  private LevelOfDetailLineUpdater mapMatchedRouteUpdater;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -64,7 +65,23 @@ public class MapMatchingActivity extends AppCompatActivity {
     mapView.getMapAsync(new OnMapReadyCallback() {
       @Override
       public void onMapReady(MapboxMap mapboxMap) {
-        map = mapboxMap;
+        // Both lines are drawn from sources that swap in simplified geometry as the camera zoom changes
+        GeoJsonSource traceSource = new GeoJsonSource("trace-source");
+        GeoJsonSource mapMatchedSource = new GeoJsonSource("map-matched-source");
+        mapboxMap.addSource(traceSource);
+        mapboxMap.addSource(mapMatchedSource);
+        mapboxMap.addLayer(new LineLayer("trace-layer", "trace-source").withProperties(
+          lineColor(Color.parseColor("#8a8acb")),
+          lineOpacity(0.65f),
+          lineWidth(4f)
+        ));
+        mapboxMap.addLayer(new LineLayer("map-matched-layer", "map-matched-source").withProperties(
+          lineColor(Color.parseColor("#3bb2d0")),
+          lineWidth(4f)
+        ));
+        traceUpdater = new LevelOfDetailLineUpdater(mapboxMap, traceSource);
+        mapMatchedRouteUpdater = new LevelOfDetailLineUpdater(mapboxMap, mapMatchedSource);
+
         new DrawGeoJson().execute();
       }
     });
@@ -103,6 +120,14 @@ public class MapMatchingActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (traceUpdater != null) {
+      traceUpdater.release();
+      traceUpdater = null;
+    }
+    if (mapMatchedRouteUpdater != null) {
+      mapMatchedRouteUpdater.release();
+      mapMatchedRouteUpdater = null;
+    }
     mapView.onDestroy();
   }
 
@@ -112,53 +137,63 @@ public class MapMatchingActivity extends AppCompatActivity {
     mapView.onSaveInstanceState(outState);
   }
 
-  private class DrawGeoJson extends AsyncTask<Void, Void, List<Point>> {
-    @Override
-    protected List<Point> doInBackground(Void... voids) {
+  private class DrawGeoJson extends AsyncTask<Void, Void, PackedCoordinates> {
 
-      List<Point> points = new ArrayList<>();
+    private LevelOfDetailLine trace;
+
+    @Override
+    protected PackedCoordinates doInBackground(Void... voids) {
 
       try {
-        // Load GeoJSON file
-        InputStream inputStream = getAssets().open("trace.geojson");
-        BufferedReader rd = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
-        StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-          sb.append((char) cp);
-        }
-        inputStream.close();
-        FeatureCollection featureCollection = FeatureCollection.fromJson(sb.toString());
-        LineString lineString = (LineString) featureCollection.features().get(0).geometry();
-        for (Point singlePosition : lineString.coordinates()) {
-          points.add(Point.fromLngLat(singlePosition.longitude(),
-            singlePosition.latitude()));
-        }
+        // Load the GPS trace and build simplified versions of it for lower zoom levels
+        PackedCoordinates coordinates = LineStringExtractor.extract(getAssets().open("trace.geojson"));
+        trace = LevelOfDetailLine.create(coordinates);
+        return coordinates;
       } catch (Exception exception) {
         Log.e(TAG, "Exception Loading GeoJSON: " + exception.toString());
       }
-      return points;
+      return null;
     }
 
     @Override
-    protected void onPostExecute(List<Point> points) {
-      super.onPostExecute(points);
-      drawBeforeMapMatching(points);
-      drawMapMatched(points);
+    protected void onPostExecute(PackedCoordinates coordinates) {
+      super.onPostExecute(coordinates);
+      if (coordinates == null || traceUpdater == null) {
+        return;
+      }
+      traceUpdater.setLine(trace);
+      drawMapMatched(new ArrayList<>(coordinates.asPoints()));
     }
   }
 
-  private void drawBeforeMapMatching(List<Point> points) {
-    LatLng[] pointsArray = new LatLng[points.size()];
-    for (int i = 0; i < points.size(); i++) {
-      pointsArray[i] = new LatLng(points.get(i).latitude(), points.get(i).longitude());
+  private class DrawMapMatched extends AsyncTask<String, Void, LevelOfDetailLine> {
+
+    @Override
+    protected LevelOfDetailLine doInBackground(String... geometries) {
+      // Convert the map matched response list from position to latlng coordinates.
+      // By default, the SDK uses MapMatchingCriteria.GEOMETRY_POLYLINE_6, therefore
+      // you need Constants.PRECISION_6 for the decode to be right
+      List<Point> pointList = PolylineUtils.decode(geometries[0], Constants.PRECISION_6);
+      if (pointList == null) {
+        return null;
+      }
+
+      PackedCoordinates mapMatchedPoints = new PackedCoordinates(pointList.size());
+      for (Point singlePosition : pointList) {
+        mapMatchedPoints.add(singlePosition.longitude(), singlePosition.latitude());
+      }
+      return LevelOfDetailLine.create(mapMatchedPoints);
     }
 
-    map.addPolyline(new PolylineOptions()
-      .add(pointsArray)
-      .color(Color.parseColor("#8a8acb"))
-      .alpha(0.65f)
-      .width(4));
+    @Override
+    protected void onPostExecute(LevelOfDetailLine line) {
+      super.onPostExecute(line);
+      if (line == null || mapMatchedRouteUpdater == null) {
+        return;
+      }
+      // Show the map matched route on the Mapbox map, replacing any previous one.
+      mapMatchedRouteUpdater.setLine(line);
+    }
   }
 
   private void drawMapMatched(List<Point> coordinates) {
@@ -169,40 +204,17 @@ public class MapMatchingActivity extends AppCompatActivity {
         .profile(PROFILE_DRIVING)
         .coordinates(coordinates)
         .build();
+      client.setCallFactory(HttpClientProvider.getInstance(this).getClient());
 
       // Execute the API call and handle the response.
       client.enqueueCall(new Callback<MapMatchingResponse>() {
         @Override
         public void onResponse(Call<MapMatchingResponse> call,
                                Response<MapMatchingResponse> response) {
-          // Create a new list to store the map matched coordinates.
-          List<LatLng> mapMatchedPoints = new ArrayList<>();
-
           // Check that the map matching API response is "OK".
           if (response.code() == 200) {
-            // Convert the map matched response list from position to latlng coordinates.
-            // By default, the SDK uses MapMatchingCriteria.GEOMETRY_POLYLINE_6, therefore
-            // you need Constants.PRECISION_6 for the decode to be right
-            String geometry = response.body().matchings().get(0).geometry();
-            List<Point> pointList = PolylineUtils.decode(geometry, Constants.PRECISION_6);
-            if (pointList == null) {
-              return;
-            }
-
-            for (Point singlePosition : pointList) {
-              mapMatchedPoints.add(new LatLng(singlePosition.latitude(),
-                singlePosition.longitude()));
-            }
-
-            if (mapMatchedRoute != null) {
-              map.removeAnnotation(mapMatchedRoute);
-            }
-
-            // Add the map matched route to the Mapbox map.
-            mapMatchedRoute = map.addPolyline(new PolylineOptions()
-              .addAll(mapMatchedPoints)
-              .color(Color.parseColor("#3bb2d0"))
-              .width(4));
+            // Decode and simplify the map matched route off the main thread, then show it
+            new DrawMapMatched().execute(response.body().matchings().get(0).geometry());
           } else {
             // If the response code does not response "OK" an error has occurred.
             Log.e(TAG, "Too many coordinates, profile not found, invalid input, or no match.");
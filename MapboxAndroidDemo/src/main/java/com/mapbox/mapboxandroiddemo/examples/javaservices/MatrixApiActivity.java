@@ -24,6 +24,8 @@ import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
@@ -35,7 +37,6 @@ import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.turf.TurfConversion;
 
-import java.io.InputStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
@@ -57,6 +58,7 @@ public class MatrixApiActivity extends AppCompatActivity {
   private RecyclerView recyclerView;
   private MatrixApiLocationRecyclerViewAdapter matrixApiLocationRecyclerViewAdapter;
   private ArrayList<SingleRecyclerViewMatrixLocation> matrixLocationList;
+  private GeoJsonAssetLoader.Request loadRequest;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -81,14 +83,10 @@ public class MatrixApiActivity extends AppCompatActivity {
       public void onMapReady(final MapboxMap mapboxMap) {
         MatrixApiActivity.this.mapboxMap = mapboxMap;
 
-        // Add markers to the map
-        addMarkers();
-
-        // Set up list of locations to pass to the recyclerview
-        initMatrixLocationListForRecyclerView();
-
-        // Set up the recyclerview of charging station cards
-        initRecyclerView();
+        // The GeoJSON file might still be loading, in which case this is called once it's done
+        if (featureCollection != null) {
+          initMapContents();
+        }
 
         mapboxMap.setOnMarkerClickListener(new MapboxMap.OnMarkerClickListener() {
           @Override
@@ -106,6 +104,17 @@ public class MatrixApiActivity extends AppCompatActivity {
     });
   }
 
+  private void initMapContents() {
+    // Add markers to the map
+    addMarkers();
+
+    // Set up list of locations to pass to the recyclerview
+    initMatrixLocationListForRecyclerView();
+
+    // Set up the recyclerview of charging station cards
+    initRecyclerView();
+  }
+
   private int getClickedMarkerNumInPositionList(Marker clickedMarker) {
     int clickedMarkerIndexPositionInList = -1;
     if (clickedMarker != null) {
@@ -139,6 +148,7 @@ public class MatrixApiActivity extends AppCompatActivity {
       .profile(DirectionsCriteria.PROFILE_DRIVING)
       .coordinates(pointList)
       .build();
+    directionsMatrixClient.setCallFactory(HttpClientProvider.getInstance(this).getClient());
 
     // Handle the API response
     directionsMatrixClient.enqueueCall(new Callback<MatrixResponse>() {
@@ -182,26 +192,28 @@ public class MatrixApiActivity extends AppCompatActivity {
     }
   }
 
-  private String loadGeoJsonFromAsset(String filename) {
-    try {
-      // Load GeoJSON file from local asset folder
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-    } catch (Exception exception) {
-      Log.d("MatrixApiActivity", "Exception Loading GeoJSON: " + exception.toString());
-      exception.printStackTrace();
-      return null;
-    }
-  }
-
   private void initPositionListFromGeoJsonFile() {
 
-    // Get GeoJSON features from GeoJSON file in the assets folder
-    featureCollection = FeatureCollection.fromJson(loadGeoJsonFromAsset("boston_charge_stations.geojson"));
+    // Get GeoJSON features from GeoJSON file in the assets folder on a background thread
+    loadRequest = GeoJsonAssetLoader.getInstance(this).load("boston_charge_stations.geojson",
+      new GeoJsonAssetLoader.Callback() {
+        @Override
+        public void onLoaded(@NonNull FeatureCollection loadedFeatureCollection) {
+          initPositionList(loadedFeatureCollection);
+          if (mapboxMap != null) {
+            initMapContents();
+          }
+        }
+
+        @Override
+        public void onError(@NonNull Exception exception) {
+          Log.d("MatrixApiActivity", "Exception Loading GeoJSON: " + exception.toString());
+        }
+      });
+  }
+
+  private void initPositionList(FeatureCollection loadedFeatureCollection) {
+    featureCollection = loadedFeatureCollection;
 
     // Initialize List<Position> for eventual use in the Matrix API call
     pointList = new ArrayList<>();
@@ -259,6 +271,9 @@ public class MatrixApiActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (loadRequest != null) {
+      loadRequest.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -14,6 +14,7 @@ import com.mapbox.api.optimization.v1.models.OptimizationResponse;
 import com.mapbox.geojson.LineString;
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
@@ -139,6 +140,7 @@ public class OptimizationActivity extends AppCompatActivity implements OnMapRead
       .profile(DirectionsCriteria.PROFILE_DRIVING)
       .accessToken(Mapbox.getAccessToken())
       .build();
+    optimizedClient.setCallFactory(HttpClientProvider.getInstance(this).getClient());
 
     optimizedClient.enqueueCall(new Callback<OptimizationResponse>() {
       @Override
@@ -4,28 +4,25 @@ import android.graphics.Color;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
-import android.text.TextUtils;
 import android.util.Log;
 
-import com.mapbox.geojson.Point;
-import com.mapbox.geojson.utils.PolylineUtils;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.LineString;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LevelOfDetailLine;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LineStringExtractor;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PolylineSimplifier;
+import com.mapbox.mapboxandroiddemo.utils.LevelOfDetailLineUpdater;
 import com.mapbox.mapboxsdk.Mapbox;
-import com.mapbox.mapboxsdk.annotations.PolylineOptions;
-import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
+import com.mapbox.mapboxsdk.style.layers.LineLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
 
 /**
  * Using the polylines utility, simplify a polyline at a
@@ -36,7 +33,8 @@ public class SimplifyPolylineActivity extends AppCompatActivity {
   private static final String TAG = "SimplifyLineActivity";
 
   private MapView mapView;
-  private MapboxMap map;
+  private GeoJsonSource simplifiedSource;
+  private LevelOfDetailLineUpdater beforeUpdater;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -54,7 +52,20 @@ public class SimplifyPolylineActivity extends AppCompatActivity {
     mapView.getMapAsync(new OnMapReadyCallback() {
       @Override
       public void onMapReady(MapboxMap mapboxMap) {
-        map = mapboxMap;
+        // The original line follows the camera zoom, the simplified line always uses the same tolerance
+        GeoJsonSource beforeSource = new GeoJsonSource("before-simplify-source");
+        simplifiedSource = new GeoJsonSource("simplified-source");
+        mapboxMap.addSource(beforeSource);
+        mapboxMap.addSource(simplifiedSource);
+        mapboxMap.addLayer(new LineLayer("before-simplify-layer", "before-simplify-source").withProperties(
+          lineColor(Color.parseColor("#8a8acb")),
+          lineWidth(4f)
+        ));
+        mapboxMap.addLayer(new LineLayer("simplified-layer", "simplified-source").withProperties(
+          lineColor(Color.parseColor("#3bb2d0")),
+          lineWidth(4f)
+        ));
+        beforeUpdater = new LevelOfDetailLineUpdater(mapboxMap, beforeSource);
 
         new DrawGeoJson().execute();
 
@@ -95,6 +106,10 @@ public class SimplifyPolylineActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (beforeUpdater != null) {
+      beforeUpdater.release();
+      beforeUpdater = null;
+    }
     mapView.onDestroy();
   }
 
@@ -104,91 +119,37 @@ public class SimplifyPolylineActivity extends AppCompatActivity {
     mapView.onSaveInstanceState(outState);
   }
 
-  private class DrawGeoJson extends AsyncTask<Void, Void, List<Point>> {
-    @Override
-    protected List<Point> doInBackground(Void... voids) {
+  private class DrawGeoJson extends AsyncTask<Void, Void, Boolean> {
 
-      List<Point> points = new ArrayList<>();
+    private LevelOfDetailLine before;
+    private LineString simplified;
+
+    @Override
+    protected Boolean doInBackground(Void... voids) {
 
       try {
-        // Load GeoJSON file
-        InputStream inputStream = getAssets().open("matched_route.geojson");
-        BufferedReader rd = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
-        StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-          sb.append((char) cp);
-        }
-
-        inputStream.close();
-
-        // Parse JSON
-        JSONObject json = new JSONObject(sb.toString());
-        JSONArray features = json.getJSONArray("features");
-        JSONObject feature = features.getJSONObject(0);
-        JSONObject geometry = feature.getJSONObject("geometry");
-        if (geometry != null) {
-          String type = geometry.getString("type");
-
-          // Our GeoJSON only has one feature: a line string
-          if (!TextUtils.isEmpty(type) && type.equalsIgnoreCase("LineString")) {
-
-            // Get the Coordinates
-            JSONArray coords = geometry.getJSONArray("coordinates");
-            for (int lc = 0; lc < coords.length(); lc++) {
-              JSONArray coord = coords.getJSONArray(lc);
-              Point position = Point.fromLngLat(coord.getDouble(0), coord.getDouble(1));
-              points.add(position);
-            }
-          }
-        }
+        // Stream the coordinates of the line string out of the GeoJSON file.
+        // Our GeoJSON only has one feature: a line string
+        PackedCoordinates coordinates = LineStringExtractor.extract(getAssets().open("matched_route.geojson"));
+
+        before = LevelOfDetailLine.create(coordinates);
+        simplified = PolylineSimplifier.simplify(coordinates, 0.001, false).toLineString();
+        return true;
       } catch (Exception exception) {
         Log.e(TAG, "Exception Loading GeoJSON: " + exception.toString());
       }
 
-      return points;
+      return false;
     }
 
     @Override
-    protected void onPostExecute(List<Point> points) {
-      super.onPostExecute(points);
-
-      drawBeforeSimplify(points);
-      drawSimplify(points);
-
-    }
-  }
-
-  private void drawBeforeSimplify(List<Point> points) {
+    protected void onPostExecute(Boolean loaded) {
+      super.onPostExecute(loaded);
 
-    LatLng[] pointsArray = new LatLng[points.size()];
-    for (int i = 0; i < points.size(); i++) {
-      pointsArray[i] = new LatLng(points.get(i).latitude(), points.get(i).longitude());
-    }
-
-    map.addPolyline(new PolylineOptions()
-      .add(pointsArray)
-      .color(Color.parseColor("#8a8acb"))
-      .width(4));
-  }
-
-  private void drawSimplify(List<Point> points) {
-
-    List<Point> before = new ArrayList<>();
-    for (int i = 0; i < points.size(); i++) {
-      before.add(points.get(i));
-    }
-
-    List<Point> after = PolylineUtils.simplify(before, 0.001);
-
-    LatLng[] result = new LatLng[after.size()];
-    for (int i = 0; i < after.size(); i++) {
-      result[i] = new LatLng(after.get(i).latitude(), after.get(i).longitude());
+      if (loaded && beforeUpdater != null) {
+        beforeUpdater.setLine(before);
+        simplifiedSource.setGeoJson(Feature.fromGeometry(simplified));
+      }
     }
-
-    map.addPolyline(new PolylineOptions()
-      .add(result)
-      .color(Color.parseColor("#3bb2d0"))
-      .width(4));
   }
-}
\ No newline at end of file
+}
@@ -11,6 +11,7 @@ import com.mapbox.api.staticmap.v1.MapboxStaticMap;
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.MainActivity;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.PicassoProvider;
 import com.mapbox.mapboxsdk.constants.Style;
 import com.squareup.picasso.Picasso;
 
@@ -30,6 +31,9 @@ public class StaticImageActivity extends AppCompatActivity {
     ImageView parisImageView = (ImageView) findViewById(R.id.parisImageView);
     ImageView londonImageView = (ImageView) findViewById(R.id.londonImageView);
 
+    // Images are downloaded through the app's shared HTTP client
+    Picasso picasso = PicassoProvider.getInstance(this);
+
     MapboxStaticMap veniceStaticImage = MapboxStaticMap.builder()
       .accessToken(getString(R.string.access_token))
       .styleId(Style.LIGHT)
@@ -40,7 +44,7 @@ public class StaticImageActivity extends AppCompatActivity {
       .retina(true) // Retina 2x image will be returned
       .build();
 
-    Picasso.with(this).load(veniceStaticImage.url().toString()).into(veniceImageView);
+    picasso.load(veniceStaticImage.url().toString()).into(veniceImageView);
 
     MapboxStaticMap parisStaticImage = MapboxStaticMap.builder()
       .accessToken(getString(R.string.access_token))
@@ -54,7 +58,7 @@ public class StaticImageActivity extends AppCompatActivity {
       .retina(true)
       .build();
 
-    Picasso.with(this).load(parisStaticImage.url().toString()).into(parisImageView);
+    picasso.load(parisStaticImage.url().toString()).into(parisImageView);
 
     MapboxStaticMap londonStaticImage = MapboxStaticMap.builder()
       .accessToken(getString(R.string.access_token))
@@ -66,7 +70,7 @@ public class StaticImageActivity extends AppCompatActivity {
       .retina(true)
       .build();
 
-    Picasso.with(this).load(londonStaticImage.url().toString()).into(londonImageView);
+    picasso.load(londonStaticImage.url().toString()).into(londonImageView);
     banner = findViewById(R.id.banner);
     banner.setOnClickListener(new View.OnClickListener() {
       @Override
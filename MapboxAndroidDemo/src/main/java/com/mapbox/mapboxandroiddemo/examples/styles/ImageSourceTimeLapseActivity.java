@@ -1,10 +1,10 @@
 package com.mapbox.mapboxandroiddemo.examples.styles;
 
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.TimeLapsePlayer;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngQuad;
@@ -20,10 +20,11 @@ import com.mapbox.mapboxsdk.style.sources.ImageSource;
 public class ImageSourceTimeLapseActivity extends AppCompatActivity implements OnMapReadyCallback {
 
   private MapView mapView;
-  private Handler handler;
-  private Runnable runnable;
+  private TimeLapsePlayer player;
   private static final String ID_IMAGE_SOURCE = "animated_image_source";
   private static final String ID_IMAGE_LAYER = "animated_image_layer";
+  private static final int FRAME_CACHE_BYTES = 16 * 1024 * 1024;
+  private static final long FRAME_DURATION_MILLIS = 1000;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -49,43 +50,21 @@ public class ImageSourceTimeLapseActivity extends AppCompatActivity implements O
       new LatLng(46.437, -71.516),
       new LatLng(37.936, -71.516),
       new LatLng(37.936, -80.425));
-    mapboxMap.addSource(new ImageSource(ID_IMAGE_SOURCE, quad, R.drawable.southeast_radar_0));
+    ImageSource imageSource = new ImageSource(ID_IMAGE_SOURCE, quad, R.drawable.southeast_radar_0);
+    mapboxMap.addSource(imageSource);
 
     // Add layer
     RasterLayer layer = new RasterLayer(ID_IMAGE_LAYER, ID_IMAGE_SOURCE);
     mapboxMap.addLayer(layer);
 
-    // Loop the GeoJSON refreshing
-    handler = new Handler();
-    runnable = new RefreshImageRunnable(mapboxMap, handler);
-    handler.postDelayed(runnable, 100);
-  }
-
-  private static class RefreshImageRunnable implements Runnable {
-    private final MapboxMap mapboxMap;
-    private final Handler handler;
-    private int[] drawables;
-    private int drawableIndex;
-
-    RefreshImageRunnable(MapboxMap mapboxMap, Handler handler) {
-      this.mapboxMap = mapboxMap;
-      this.handler = handler;
-      drawables = new int[4];
-      drawables[0] = R.drawable.southeast_radar_0;
-      drawables[1] = R.drawable.southeast_radar_1;
-      drawables[2] = R.drawable.southeast_radar_2;
-      drawables[3] = R.drawable.southeast_radar_3;
-      drawableIndex = 1;
-    }
-
-    @Override
-    public void run() {
-      ((ImageSource) mapboxMap.getSource(ID_IMAGE_SOURCE)).setImage(drawables[drawableIndex++]);
-      if (drawableIndex > 3) {
-        drawableIndex = 0;
-      }
-      handler.postDelayed(this, 1000);
-    }
+    // Loop through the radar images. They are decoded once in the background and kept in memory, rather
+    // than decoded by the image source every time one is shown.
+    player = new TimeLapsePlayer(imageSource, TimeLapsePlayer.fromResources(getResources(),
+      R.drawable.southeast_radar_0,
+      R.drawable.southeast_radar_1,
+      R.drawable.southeast_radar_2,
+      R.drawable.southeast_radar_3), FRAME_CACHE_BYTES, FRAME_DURATION_MILLIS);
+    player.start();
   }
 
   // Add the mapView lifecycle to the activity's lifecycle methods
@@ -100,12 +79,18 @@ public class ImageSourceTimeLapseActivity extends AppCompatActivity implements O
   protected void onStart() {
     super.onStart();
     mapView.onStart();
+    if (player != null) {
+      player.start();
+    }
   }
 
   @Override
   protected void onStop() {
     super.onStop();
     mapView.onStop();
+    if (player != null) {
+      player.stop();
+    }
   }
 
   @Override
@@ -123,8 +108,8 @@ public class ImageSourceTimeLapseActivity extends AppCompatActivity implements O
   @Override
   protected void onDestroy() {
     super.onDestroy();
-    if (handler != null && runnable != null) {
-      handler.removeCallbacks(runnable);
+    if (player != null) {
+      player.release();
     }
     mapView.onDestroy();
   }
@@ -1,10 +1,6 @@
 package com.mapbox.mapboxandroiddemo.labs;
 
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Movie;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.v7.app.AppCompatActivity;
 
@@ -18,7 +14,7 @@ import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.layers.RasterLayer;
 import com.mapbox.mapboxsdk.style.sources.ImageSource;
 
-import java.io.InputStream;
+import timber.log.Timber;
 
 /**
  * Add an animated image (GIF) anywhere on the map
@@ -29,8 +25,7 @@ public class AnimatedImageGifActivity extends AppCompatActivity implements OnMap
   private static final String ID_IMAGE_LAYER = "animated_image_layer";
 
   private MapView mapView;
-  private Handler handler;
-  private Runnable runnable;
+  private GifFramePipeline framePipeline;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -70,16 +65,18 @@ public class AnimatedImageGifActivity extends AppCompatActivity implements OnMap
     // Add the layer to the map
     map.addLayer(layer);
 
-    // Use the RefreshImageRunnable class and runnable to quickly display images for a GIF/video UI experience
-    InputStream gifInputStream = getResources().openRawResource(R.raw.waving_bear);
-    runnable = new RefreshImageRunnable(imageSource, Movie.decodeStream(gifInputStream), handler = new Handler());
-    handler.postDelayed(runnable, 100);
+    // Decode the GIF frames in the background and show each one on the map for as long as the GIF says
+    framePipeline = new GifFramePipeline(imageSource, getResources().openRawResource(R.raw.waving_bear));
+    framePipeline.start();
   }
 
   @Override
   protected void onStart() {
     super.onStart();
     mapView.onStart();
+    if (framePipeline != null) {
+      framePipeline.start();
+    }
   }
 
   @Override
@@ -98,13 +95,20 @@ public class AnimatedImageGifActivity extends AppCompatActivity implements OnMap
   protected void onStop() {
     super.onStop();
     mapView.onStop();
-    handler.removeCallbacks(runnable);
+    if (framePipeline != null) {
+      framePipeline.stop();
+      Timber.d("GIF frames presented: %d, dropped: %d, late: %d", framePipeline.getPresentedFrames(),
+        framePipeline.getDroppedFrames(), framePipeline.getLateFrames());
+    }
   }
 
   @Override
   protected void onDestroy() {
     super.onDestroy();
     mapView.onDestroy();
+    if (framePipeline != null) {
+      framePipeline.release();
+    }
   }
 
   @Override
@@ -112,41 +116,4 @@ public class AnimatedImageGifActivity extends AppCompatActivity implements OnMap
     super.onSaveInstanceState(outState);
     mapView.onSaveInstanceState(outState);
   }
-
-  private static class RefreshImageRunnable implements Runnable {
-
-    private ImageSource imageSource;
-    private Movie movie;
-    private Handler handler;
-    private long movieStart;
-    private Bitmap bitmap;
-    private Canvas canvas;
-
-    RefreshImageRunnable(ImageSource imageSource, Movie movie, Handler handler) {
-      this.imageSource = imageSource;
-      this.movie = movie;
-      this.handler = handler;
-      bitmap = Bitmap.createBitmap(movie.width(), movie.height(), Bitmap.Config.ARGB_8888);
-      canvas = new Canvas(bitmap);
-    }
-
-    @Override
-    public void run() {
-      long now = android.os.SystemClock.uptimeMillis();
-      if (movieStart == 0) {
-        movieStart = now;
-      }
-
-      int dur = movie.duration();
-      if (dur == 0) {
-        dur = 1000;
-      }
-
-      movie.setTime((int) ((now - movieStart) % dur));
-      movie.draw(canvas, 0, 0);
-
-      imageSource.setImage(bitmap);
-      handler.postDelayed(this, 50);
-    }
-  }
 }
@@ -0,0 +1,221 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import timber.log.Timber;
+
+/**
+ * Two tier cache of rendered callout bitmaps, shared by every instance of the Mapillary lab.
+ * <p>
+ * Callouts are keyed by a hash of everything drawn into them, see {@link #key(String, String, boolean)}, so
+ * POIs with the same title no longer share an icon. The memory tier is bounded by bytes and survives
+ * activity restarts such as rotation. The disk tier holds PNGs and survives the process, it's trimmed to
+ * a fixed size, oldest files first.
+ * </p>
+ * <p>
+ * Bitmaps put in the cache belong to it. Bitmaps evicted from the memory tier are left to the garbage
+ * collector rather than recycled, since a caller may still be about to add them to the map.
+ * </p>
+ */
+class CalloutIconCache {
+
+  /**
+   * Bump whenever layout_callout or {@link CalloutRenderer} change how a callout looks, so that bitmaps
+   * cached on disk by older versions are no longer used.
+   */
+  static final int LAYOUT_VERSION = 1;
+
+  private static final String CACHE_DIRECTORY = "callout-cache";
+  private static final String CACHE_FILE_EXTENSION = ".png";
+  private static final long MAX_DISK_BYTES = 16 * 1024 * 1024;
+  private static final int MAX_MEMORY_BYTES = 16 * 1024 * 1024;
+  private static final int WRITES_PER_TRIM = 64;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static volatile CalloutIconCache instance;
+
+  private final File cacheDirectory;
+  private final LruCache<String, Bitmap> memoryCache;
+
+  // Disk writes run on one thread, in order
+  private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+  private int writesSinceTrim = WRITES_PER_TRIM;
+
+  static CalloutIconCache getInstance(@NonNull Context context) {
+    if (instance == null) {
+      synchronized (CalloutIconCache.class) {
+        if (instance == null) {
+          instance = new CalloutIconCache(context.getApplicationContext());
+        }
+      }
+    }
+    return instance;
+  }
+
+  private CalloutIconCache(Context context) {
+    cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY);
+    int maxMemoryBytes = (int) Math.min(MAX_MEMORY_BYTES, Runtime.getRuntime().maxMemory() / 8);
+    memoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+      @Override
+      protected int sizeOf(String key, Bitmap bitmap) {
+        return bitmap.getByteCount();
+      }
+    };
+  }
+
+  /**
+   * Returns the cache key, and map image id, of a callout.
+   *
+   * @return a hex encoded hash of the callout contents and {@link #LAYOUT_VERSION}
+   */
+  @NonNull
+  static String key(String title, String style, boolean favourite) {
+    String contents = LAYOUT_VERSION + "\u0000" + title + "\u0000" + style + "\u0000" + favourite;
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(contents.getBytes(UTF_8));
+      StringBuilder builder = new StringBuilder(digest.length * 2);
+      for (byte value : digest) {
+        builder.append(Character.forDigit((value >> 4) & 0xf, 16));
+        builder.append(Character.forDigit(value & 0xf, 16));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      // Every Android release ships SHA-1, fall back to something unique enough regardless
+      return Integer.toHexString(contents.hashCode()) + "_" + contents.length();
+    }
+  }
+
+  /**
+   * Returns a callout from the memory tier only, safe to call on the main thread.
+   */
+  @Nullable
+  Bitmap getFromMemory(@NonNull String key) {
+    return memoryCache.get(key);
+  }
+
+  /**
+   * Returns a callout from the memory tier, or decodes it from the disk tier.
+   */
+  @WorkerThread
+  @Nullable
+  Bitmap get(@NonNull String key) {
+    Bitmap bitmap = memoryCache.get(key);
+    if (bitmap != null) {
+      return bitmap;
+    }
+    File file = getCacheFile(key);
+    if (!file.exists()) {
+      return null;
+    }
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inMutable = true;
+    bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+    if (bitmap == null) {
+      Timber.w("Discarding unreadable callout %s", file);
+      deleteQuietly(file);
+      return null;
+    }
+    memoryCache.put(key, bitmap);
+    return bitmap;
+  }
+
+  /**
+   * Adds a callout to both tiers. The disk write happens in the background.
+   */
+  void put(@NonNull final String key, @NonNull final Bitmap bitmap) {
+    memoryCache.put(key, bitmap);
+    diskExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        write(key, bitmap);
+      }
+    });
+  }
+
+  private void write(String key, Bitmap bitmap) {
+    if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+      Timber.w("Unable to create %s", cacheDirectory);
+      return;
+    }
+    File file = getCacheFile(key);
+    if (file.exists()) {
+      return;
+    }
+    File tempFile = new File(cacheDirectory, file.getName() + ".tmp");
+    try {
+      OutputStream output = new FileOutputStream(tempFile);
+      try {
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
+      } finally {
+        output.close();
+      }
+      if (!tempFile.renameTo(file)) {
+        throw new IOException("Unable to rename " + tempFile + " to " + file);
+      }
+    } catch (IOException exception) {
+      Timber.w(exception, "Unable to cache callout %s", key);
+      deleteQuietly(tempFile);
+    }
+
+    if (++writesSinceTrim >= WRITES_PER_TRIM) {
+      writesSinceTrim = 0;
+      trim();
+    }
+  }
+
+  /**
+   * Deletes the least recently written files until the disk tier fits in {@link #MAX_DISK_BYTES}.
+   */
+  private void trim() {
+    File[] files = cacheDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    long totalBytes = 0;
+    for (File file : files) {
+      totalBytes += file.length();
+    }
+    if (totalBytes <= MAX_DISK_BYTES) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File first, File second) {
+        long difference = first.lastModified() - second.lastModified();
+        return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+      }
+    });
+    for (int i = 0; i < files.length && totalBytes > MAX_DISK_BYTES; i++) {
+      totalBytes -= files[i].length();
+      deleteQuietly(files[i]);
+    }
+  }
+
+  private File getCacheFile(String key) {
+    return new File(cacheDirectory, key + CACHE_FILE_EXTENSION);
+  }
+
+  private static void deleteQuietly(File file) {
+    if (file.exists() && !file.delete()) {
+      Timber.w("Unable to delete %s", file);
+    }
+  }
+}
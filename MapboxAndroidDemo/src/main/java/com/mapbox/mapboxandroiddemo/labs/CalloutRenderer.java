@@ -0,0 +1,84 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.mapbox.mapboxandroiddemo.R;
+
+/**
+ * Draws the callout bubble of a POI into a bitmap.
+ * <p>
+ * A single {@code layout_callout} view is inflated once and rebound for every POI, rather than inflating
+ * and keeping a view per POI. Each callout is drawn into a bitmap of exactly its measured size.
+ * </p>
+ * <p>
+ * The template is shared between threads, so it's only bound, measured and read inside synchronized
+ * methods, and never handed out.
+ * </p>
+ */
+class CalloutRenderer {
+
+  private final View template;
+  private final TextView titleView;
+  private final TextView styleView;
+  private final ImageView logoView;
+  private final View templateTextContainer;
+  private final Canvas canvas = new Canvas();
+  private final int measureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+  CalloutRenderer(@NonNull Context context) {
+    this.template = LayoutInflater.from(context).inflate(R.layout.layout_callout, null);
+    this.titleView = (TextView) template.findViewById(R.id.title);
+    this.styleView = (TextView) template.findViewById(R.id.style);
+    this.logoView = (ImageView) template.findViewById(R.id.logoView);
+    this.templateTextContainer = template.findViewById(R.id.text_container);
+  }
+
+  /**
+   * Computes where the text of a POI's callout is, relative to the callout's bottom-left anchor.
+   *
+   * @param result receives the hit rectangle of the text
+   * @return the result
+   */
+  @NonNull
+  synchronized Rect getTextHitRect(String title, String style, boolean favourite, @NonNull Rect result) {
+    bind(title, style, favourite);
+    templateTextContainer.getHitRect(result);
+    result.offset(0, -template.getMeasuredHeight());
+    return result;
+  }
+
+  /**
+   * Draws the callout of a POI into a new bitmap.
+   */
+  @NonNull
+  synchronized Bitmap render(String title, String style, boolean favourite) {
+    bind(title, style, favourite);
+
+    Bitmap bitmap = Bitmap.createBitmap(template.getMeasuredWidth(), template.getMeasuredHeight(),
+      Bitmap.Config.ARGB_8888);
+    canvas.setBitmap(bitmap);
+    template.draw(canvas);
+    canvas.setBitmap(null);
+    return bitmap;
+  }
+
+  /**
+   * Binds a POI to the template view, then measures and lays it out. Callers hold the lock.
+   */
+  private void bind(String title, String style, boolean favourite) {
+    titleView.setText(title);
+    styleView.setText(style);
+    logoView.setImageResource(favourite ? R.drawable.ic_favorite : R.drawable.ic_favorite_border);
+
+    template.measure(measureSpec, measureSpec);
+    template.layout(0, 0, template.getMeasuredWidth(), template.getMeasuredHeight());
+  }
+}
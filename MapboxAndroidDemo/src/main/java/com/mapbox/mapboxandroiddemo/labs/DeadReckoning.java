@@ -0,0 +1,95 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.turf.TurfMeasurement;
+
+/**
+ * Extrapolates the position of an object moving at a steady velocity from timed samples.
+ * <p>
+ * The velocity is derived from the last two samples, and the position in between samples is the last
+ * sample moved along that velocity. When a sample disagrees with the prediction the difference is not
+ * applied at once, it's blended out over {@link #CORRECTION_MILLIS} so the marker never jumps.
+ * </p>
+ */
+class DeadReckoning {
+
+  private static final long CORRECTION_MILLIS = 1000;
+
+  private boolean hasSample;
+  private double latitude;
+  private double longitude;
+  private long sampleTimestamp;
+  private long sampleTime;
+
+  // degrees per millisecond
+  private double latitudeSpeed;
+  private double longitudeSpeed;
+
+  // difference between the prediction and the last sample, blended out after the sample
+  private double latitudeCorrection;
+  private double longitudeCorrection;
+
+  /**
+   * Adds a sample.
+   *
+   * @param timestamp the time of the sample, in seconds, used to derive the velocity
+   * @param now       the local time the sample was received, in milliseconds
+   * @return the distance in kilometers between the sample and the position predicted for it, or -1 if
+   * there was no prediction yet
+   */
+  double addSample(double latitude, double longitude, long timestamp, long now) {
+    double error = -1;
+    if (hasSample) {
+      LatLng predicted = getPosition(now, new LatLng());
+      error = TurfMeasurement.distance(
+        Point.fromLngLat(predicted.getLongitude(), predicted.getLatitude()),
+        Point.fromLngLat(longitude, latitude));
+      latitudeCorrection = predicted.getLatitude() - latitude;
+      longitudeCorrection = wrap(predicted.getLongitude() - longitude);
+
+      long elapsed = (timestamp - sampleTimestamp) * 1000;
+      if (elapsed > 0) {
+        latitudeSpeed = (latitude - this.latitude) / elapsed;
+        longitudeSpeed = wrap(longitude - this.longitude) / elapsed;
+      }
+    }
+    this.hasSample = true;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.sampleTimestamp = timestamp;
+    this.sampleTime = now;
+    return error;
+  }
+
+  boolean hasSample() {
+    return hasSample;
+  }
+
+  /**
+   * Predicts the position at a given time.
+   *
+   * @param now    the local time, in milliseconds
+   * @param result receives the position, to avoid allocating one per frame
+   * @return result
+   */
+  @NonNull
+  LatLng getPosition(long now, @NonNull LatLng result) {
+    long elapsed = now - sampleTime;
+    double blend = elapsed < CORRECTION_MILLIS ? 1 - (double) elapsed / CORRECTION_MILLIS : 0;
+    double predictedLatitude = latitude + latitudeSpeed * elapsed + latitudeCorrection * blend;
+    result.setLatitude(Math.max(-90, Math.min(90, predictedLatitude)));
+    result.setLongitude(wrap(longitude + longitudeSpeed * elapsed + longitudeCorrection * blend));
+    return result;
+  }
+
+  /**
+   * Wraps a longitude, or a difference of longitudes, to [-180, 180).
+   */
+  private static double wrap(double longitude) {
+    double wrapped = (longitude + 180) % 360;
+    return wrapped < 0 ? wrapped + 180 : wrapped - 180;
+  }
+}
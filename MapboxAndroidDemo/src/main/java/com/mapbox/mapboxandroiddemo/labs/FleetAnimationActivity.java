@@ -0,0 +1,237 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.FleetAnimator;
+import com.mapbox.mapboxsdk.Mapbox;
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.Random;
+
+import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconIgnorePlacement;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconImage;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconRotate;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconRotationAlignment;
+
+/**
+ * Animate a synthetic fleet of vehicles through a single GeoJSON source, and show how long each
+ * frame takes to interpolate and publish with 1,000, 10,000 or 50,000 vehicles.
+ */
+public class FleetAnimationActivity extends AppCompatActivity implements OnMapReadyCallback {
+
+  private static final String FLEET_SOURCE_ID = "fleet-source";
+  private static final String FLEET_LAYER_ID = "fleet-layer";
+  private static final String VEHICLE_IMAGE_ID = "vehicle";
+
+  private static final int DEFAULT_FLEET_SIZE = 1000;
+  private static final double CENTER_LATITUDE = 37.7749;
+  private static final double CENTER_LONGITUDE = -122.4194;
+  private static final double AREA_DEGREES = 0.15; // size of the area the vehicles drive in
+  private static final double MAX_TRIP_DEGREES = 0.01; // the longest distance driven before turning
+  private static final long MIN_TRIP_MILLIS = 2000;
+  private static final long MAX_TRIP_MILLIS = 6000;
+  private static final long STATS_INTERVAL_MILLIS = 1000;
+
+  private MapView mapView;
+  private TextView statsView;
+  private FleetAnimator fleet;
+  private final Random random = new Random();
+  private final Handler handler = new Handler();
+
+  @Override
+  protected void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+
+    // Mapbox access token is configured here. This needs to be called either in your application
+    // object or in the same activity which contains the mapview.
+    Mapbox.getInstance(this, getString(R.string.access_token));
+
+    // This contains the MapView in XML and needs to be called after the access token is configured.
+    setContentView(R.layout.activity_lab_fleet_animation);
+
+    statsView = findViewById(R.id.fleet_stats);
+    mapView = findViewById(R.id.mapView);
+    mapView.onCreate(savedInstanceState);
+    mapView.getMapAsync(this);
+  }
+
+  @Override
+  public void onMapReady(MapboxMap mapboxMap) {
+    // Every vehicle is a feature of the same source, the layer rotates the icon of each one with the
+    // bearing stored in its properties.
+    GeoJsonSource source = new GeoJsonSource(FLEET_SOURCE_ID, FeatureCollection.fromFeatures(new Feature[] {}));
+    mapboxMap.addSource(source);
+    mapboxMap.addImage(VEHICLE_IMAGE_ID, createVehicleIcon());
+    mapboxMap.addLayer(new SymbolLayer(FLEET_LAYER_ID, FLEET_SOURCE_ID)
+      .withProperties(
+        iconImage(VEHICLE_IMAGE_ID),
+        iconRotate(get(FleetAnimator.PROPERTY_BEARING)),
+        iconRotationAlignment(Property.ICON_ROTATION_ALIGNMENT_MAP),
+        iconAllowOverlap(true),
+        iconIgnorePlacement(true)
+      ));
+
+    fleet = new FleetAnimator(source);
+    fleet.setListener(new FleetAnimator.Listener() {
+      @Override
+      public void onArrived(@NonNull FleetAnimator fleet, int index) {
+        startTrip(index);
+      }
+    });
+    createFleet(DEFAULT_FLEET_SIZE);
+    fleet.start();
+    handler.postDelayed(updateStats, STATS_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Replaces the fleet with a number of vehicles at random positions, each driving to a random target.
+   */
+  private void createFleet(int size) {
+    fleet.clear();
+    for (int i = 0; i < size; i++) {
+      fleet.add(CENTER_LONGITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES,
+        CENTER_LATITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES);
+      startTrip(i);
+    }
+    fleet.resetStats();
+  }
+
+  private void startTrip(int index) {
+    double longitude = clamp(fleet.getLongitude(index) + (random.nextDouble() - 0.5) * 2 * MAX_TRIP_DEGREES,
+      CENTER_LONGITUDE);
+    double latitude = clamp(fleet.getLatitude(index) + (random.nextDouble() - 0.5) * 2 * MAX_TRIP_DEGREES,
+      CENTER_LATITUDE);
+    long duration = MIN_TRIP_MILLIS + (long) (random.nextDouble() * (MAX_TRIP_MILLIS - MIN_TRIP_MILLIS));
+    fleet.moveTo(index, longitude, latitude, duration);
+  }
+
+  private static double clamp(double value, double center) {
+    return Math.max(center - AREA_DEGREES / 2, Math.min(center + AREA_DEGREES / 2, value));
+  }
+
+  private final Runnable updateStats = new Runnable() {
+    @Override
+    public void run() {
+      if (fleet != null) {
+        statsView.setText(getString(R.string.fleet_stats, fleet.size(), fleet.getAverageFrameMillis()));
+        fleet.resetStats();
+      }
+      handler.postDelayed(this, STATS_INTERVAL_MILLIS);
+    }
+  };
+
+  /**
+   * Draws an arrow pointing north, so the rotation of the icons shows which way vehicles are driving.
+   */
+  private Bitmap createVehicleIcon() {
+    int size = (int) (12 * getResources().getDisplayMetrics().density);
+    Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    Path arrow = new Path();
+    arrow.moveTo(size / 2f, 0);
+    arrow.lineTo(size, size);
+    arrow.lineTo(size / 2f, size * 0.75f);
+    arrow.lineTo(0, size);
+    arrow.close();
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    paint.setColor(Color.parseColor("#F13C6E"));
+    new Canvas(bitmap).drawPath(arrow, paint);
+    return bitmap;
+  }
+
+  @Override
+  public boolean onCreateOptionsMenu(Menu menu) {
+    getMenuInflater().inflate(R.menu.menu_fleet_animation, menu);
+    return true;
+  }
+
+  @Override
+  public boolean onOptionsItemSelected(MenuItem item) {
+    if (fleet == null) {
+      return super.onOptionsItemSelected(item);
+    }
+    switch (item.getItemId()) {
+      case R.id.menu_fleet_1k:
+        createFleet(1000);
+        return true;
+      case R.id.menu_fleet_10k:
+        createFleet(10000);
+        return true;
+      case R.id.menu_fleet_50k:
+        createFleet(50000);
+        return true;
+      default:
+        return super.onOptionsItemSelected(item);
+    }
+  }
+
+  @Override
+  public void onResume() {
+    super.onResume();
+    mapView.onResume();
+    if (fleet != null) {
+      fleet.start();
+      handler.postDelayed(updateStats, STATS_INTERVAL_MILLIS);
+    }
+  }
+
+  @Override
+  protected void onStart() {
+    super.onStart();
+    mapView.onStart();
+  }
+
+  @Override
+  protected void onStop() {
+    super.onStop();
+    mapView.onStop();
+  }
+
+  @Override
+  public void onPause() {
+    super.onPause();
+    mapView.onPause();
+    if (fleet != null) {
+      fleet.stop();
+    }
+    handler.removeCallbacks(updateStats);
+  }
+
+  @Override
+  public void onLowMemory() {
+    super.onLowMemory();
+    mapView.onLowMemory();
+  }
+
+  @Override
+  protected void onDestroy() {
+    super.onDestroy();
+    mapView.onDestroy();
+  }
+
+  @Override
+  protected void onSaveInstanceState(Bundle outState) {
+    super.onSaveInstanceState(outState);
+    mapView.onSaveInstanceState(outState);
+  }
+}
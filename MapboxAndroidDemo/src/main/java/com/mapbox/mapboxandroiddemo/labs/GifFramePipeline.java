@@ -0,0 +1,320 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Movie;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.style.sources.ImageSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import timber.log.Timber;
+
+/**
+ * Plays a GIF into an {@link ImageSource}, decoding frames ahead of time on a background thread.
+ * <p>
+ * {@link Movie} can draw the GIF at any time, but doesn't tell where frames start or how long they
+ * last, so those are read from the GIF's graphic control extensions, see {@link #readFrameDelays(byte[])}.
+ * Frames are drawn on a decoder thread into a small ring of reusable bitmaps, and each one is handed
+ * to the main thread to be shown at the time the GIF asks for. The image source is only updated when
+ * the frame actually changes, rather than on a fixed timer.
+ * </p>
+ * <p>
+ * A frame that is ready only once the next one is due is dropped, a frame shown more than
+ * {@link #LATE_THRESHOLD_MILLIS} after its time is counted as late.
+ * </p>
+ */
+class GifFramePipeline {
+
+  private static final int RING_SIZE = 3;
+  private static final long LATE_THRESHOLD_MILLIS = 8;
+
+  // Browsers show frames with a delay of 10ms or less for 100ms, do the same
+  private static final int MIN_FRAME_DELAY_MILLIS = 20;
+  private static final int DEFAULT_FRAME_DELAY_MILLIS = 100;
+
+  private final ImageSource imageSource;
+  private final InputStream inputStream;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final HandlerThread decoderThread = new HandlerThread("gif-decoder");
+  private final Handler decoderHandler;
+  private final ConcurrentLinkedQueue<Bitmap> freeBitmaps = new ConcurrentLinkedQueue<>();
+
+  // decoder thread state
+  private Movie movie;
+  private int[] frameTimes;
+  private int[] frameDelays;
+  private Bitmap[] ring;
+  private Canvas canvas;
+  private int nextFrame;
+  private long nextDueTime;
+
+  // main thread state
+  private int lastFrame = -1;
+  private volatile int generation;
+  private volatile long presentedFrames;
+  private volatile long droppedFrames;
+  private volatile long lateFrames;
+
+  /**
+   * @param inputStream the GIF, read and closed on the decoder thread
+   */
+  GifFramePipeline(@NonNull ImageSource imageSource, @NonNull InputStream inputStream) {
+    this.imageSource = imageSource;
+    this.inputStream = inputStream;
+    decoderThread.start();
+    decoderHandler = new Handler(decoderThread.getLooper());
+  }
+
+  /**
+   * Starts or restarts playback, from the first frame.
+   */
+  @MainThread
+  void start() {
+    final int startGeneration = ++generation;
+    mainHandler.removeCallbacksAndMessages(null);
+    decoderHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        if (!prepare()) {
+          return;
+        }
+        // Bitmaps handed out before this restart are no longer used, the whole ring is free again
+        freeBitmaps.clear();
+        for (Bitmap bitmap : ring) {
+          freeBitmaps.add(bitmap);
+        }
+        nextFrame = 0;
+        nextDueTime = SystemClock.uptimeMillis();
+        decode(startGeneration);
+      }
+    });
+  }
+
+  /**
+   * Stops playback, the current frame stays on the map.
+   */
+  @MainThread
+  void stop() {
+    generation++;
+    mainHandler.removeCallbacksAndMessages(null);
+  }
+
+  /**
+   * Stops playback and the decoder thread. The pipeline can't be used afterwards.
+   */
+  @MainThread
+  void release() {
+    stop();
+    decoderThread.quit();
+  }
+
+  long getPresentedFrames() {
+    return presentedFrames;
+  }
+
+  /**
+   * The number of frames skipped because they were ready too late.
+   */
+  long getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /**
+   * The number of frames shown, but later than they should have been.
+   */
+  long getLateFrames() {
+    return lateFrames;
+  }
+
+  /**
+   * Reads and decodes the GIF the first time it's needed.
+   */
+  private boolean prepare() {
+    if (movie != null) {
+      return true;
+    }
+    try {
+      byte[] gif = readFully(inputStream);
+      movie = Movie.decodeByteArray(gif, 0, gif.length);
+      if (movie == null) {
+        throw new IOException("Unable to decode the GIF");
+      }
+      int[] rawDelays = readFrameDelays(gif);
+      frameTimes = new int[rawDelays.length];
+      frameDelays = new int[rawDelays.length];
+      int time = 0;
+      for (int i = 0; i < rawDelays.length; i++) {
+        frameTimes[i] = time;
+        time += rawDelays[i];
+        frameDelays[i] = rawDelays[i] < MIN_FRAME_DELAY_MILLIS ? DEFAULT_FRAME_DELAY_MILLIS : rawDelays[i];
+      }
+      ring = new Bitmap[RING_SIZE];
+      for (int i = 0; i < RING_SIZE; i++) {
+        ring[i] = Bitmap.createBitmap(movie.width(), movie.height(), Bitmap.Config.ARGB_8888);
+      }
+      canvas = new Canvas();
+      return true;
+    } catch (IOException exception) {
+      Timber.e(exception);
+      movie = null;
+      return false;
+    }
+  }
+
+  /**
+   * Draws frames into free bitmaps of the ring, until the ring is full.
+   */
+  private void decode(int decodeGeneration) {
+    Bitmap bitmap;
+    while (decodeGeneration == generation && (bitmap = freeBitmaps.poll()) != null) {
+      int frame = nextFrame;
+      canvas.setBitmap(bitmap);
+      bitmap.eraseColor(Color.TRANSPARENT);
+      movie.setTime(frameTimes[frame]);
+      movie.draw(canvas, 0, 0);
+      canvas.setBitmap(null);
+
+      mainHandler.postAtTime(new Present(decodeGeneration, frame, bitmap, nextDueTime,
+        frameDelays[frame]), nextDueTime);
+      nextDueTime += frameDelays[frame];
+      nextFrame = (frame + 1) % frameTimes.length;
+    }
+  }
+
+  /**
+   * Shows a decoded frame on the main thread, at its due time.
+   */
+  private class Present implements Runnable {
+
+    private final int presentGeneration;
+    private final int frame;
+    private final Bitmap bitmap;
+    private final long dueTime;
+    private final long delay;
+
+    Present(int presentGeneration, int frame, Bitmap bitmap, long dueTime, long delay) {
+      this.presentGeneration = presentGeneration;
+      this.frame = frame;
+      this.bitmap = bitmap;
+      this.dueTime = dueTime;
+      this.delay = delay;
+    }
+
+    @Override
+    public void run() {
+      if (presentGeneration != generation) {
+        return;
+      }
+      long lateness = SystemClock.uptimeMillis() - dueTime;
+      if (lateness >= delay) {
+        // The next frame is already due, showing this one would only delay it further
+        droppedFrames++;
+      } else {
+        if (lateness > LATE_THRESHOLD_MILLIS) {
+          lateFrames++;
+        }
+        if (frame != lastFrame) {
+          // setImage copies the pixels, so the bitmap can be reused right after
+          imageSource.setImage(bitmap);
+          lastFrame = frame;
+        }
+        presentedFrames++;
+      }
+      freeBitmaps.add(bitmap);
+      decoderHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          decode(presentGeneration);
+        }
+      });
+    }
+  }
+
+  /**
+   * Reads how long every frame of a GIF lasts.
+   *
+   * @return the delay of every frame, in milliseconds, as stored in the GIF
+   */
+  static int[] readFrameDelays(@NonNull byte[] gif) throws IOException {
+    if (gif.length < 13 || gif[0] != 'G' || gif[1] != 'I' || gif[2] != 'F') {
+      throw new IOException("Not a GIF");
+    }
+    int[] delays = new int[16];
+    int frames = 0;
+    int delay = 0;
+    int position = 13 + colorTableSize(gif[10]);
+    while (position < gif.length) {
+      int block = gif[position] & 0xff;
+      if (block == 0x21) {
+        // extension, only graphic control extensions matter, they hold the delay of the next frame
+        if (position + 1 < gif.length && (gif[position + 1] & 0xff) == 0xf9 && position + 6 < gif.length) {
+          delay = ((gif[position + 4] & 0xff) | (gif[position + 5] & 0xff) << 8) * 10;
+        }
+        position = skipSubBlocks(gif, position + 2);
+      } else if (block == 0x2c) {
+        // image descriptor, followed by an optional color table and the image data
+        if (position + 9 >= gif.length) {
+          break;
+        }
+        position += 10 + colorTableSize(gif[position + 9]);
+        position = skipSubBlocks(gif, position + 1);
+        if (frames == delays.length) {
+          int[] grown = new int[delays.length * 2];
+          System.arraycopy(delays, 0, grown, 0, frames);
+          delays = grown;
+        }
+        delays[frames++] = delay;
+        delay = 0;
+      } else {
+        // trailer, or anything unexpected
+        break;
+      }
+    }
+    if (frames == 0) {
+      return new int[] {0};
+    }
+    int[] result = new int[frames];
+    System.arraycopy(delays, 0, result, 0, frames);
+    return result;
+  }
+
+  private static int colorTableSize(byte packed) {
+    return (packed & 0x80) != 0 ? 3 * (1 << ((packed & 0x07) + 1)) : 0;
+  }
+
+  private static int skipSubBlocks(byte[] gif, int position) {
+    while (position < gif.length) {
+      int size = gif[position] & 0xff;
+      position += size + 1;
+      if (size == 0) {
+        break;
+      }
+    }
+    return position;
+  }
+
+  private static byte[] readFully(InputStream inputStream) throws IOException {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[16 * 1024];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return output.toByteArray();
+    } finally {
+      inputStream.close();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.content.Context;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.style.layers.Layer;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * Shows the floors of indoor mapped buildings, one floor at a time.
+ * <p>
+ * When a building is selected, all of its floors are loaded in the background at once, and every floor
+ * is added to the map with a source and layers of its own, hidden. Switching floors then only toggles
+ * the visibility of two floors' layers, rather than reading, parsing and uploading a floor on every
+ * switch. Only the floors of the selected building are on the map, parsed floors of other buildings are
+ * kept in a cache bounded by their number of features, so going back to a building doesn't load it again.
+ * </p>
+ */
+class IndoorFloorManager {
+
+  /**
+   * A building, with the asset of every one of its floors, from the ground floor up.
+   */
+  static class Building {
+
+    final String id;
+    final PackedCoordinates footprint;
+    final String[] floorAssets;
+
+    Building(@NonNull String id, @NonNull PackedCoordinates footprint, @NonNull String... floorAssets) {
+      this.id = id;
+      this.footprint = footprint;
+      this.floorAssets = floorAssets;
+    }
+
+    int getFloorCount() {
+      return floorAssets.length;
+    }
+  }
+
+  /**
+   * Creates the layers showing a floor.
+   */
+  interface FloorStyle {
+    @NonNull
+    List<Layer> createLayers(@NonNull String sourceId, @NonNull String layerIdPrefix);
+  }
+
+  private static final String ID_PREFIX = "indoor-";
+
+  private final GeoJsonAssetLoader loader;
+  private final MapboxMap mapboxMap;
+  private final FloorStyle style;
+  private final LruCache<String, FeatureCollection> cache;
+  private final List<List<Layer>> floorLayers = new ArrayList<>();
+
+  private Building building;
+  private GeoJsonAssetLoader.Request[] requests;
+  private int floor;
+
+  /**
+   * @param maxCachedFeatures the maximum number of features held by parsed floors
+   */
+  IndoorFloorManager(@NonNull Context context, @NonNull MapboxMap mapboxMap, @NonNull FloorStyle style,
+                     int maxCachedFeatures) {
+    this.loader = GeoJsonAssetLoader.getInstance(context);
+    this.mapboxMap = mapboxMap;
+    this.style = style;
+    this.cache = new LruCache<String, FeatureCollection>(maxCachedFeatures) {
+      @Override
+      protected int sizeOf(String asset, FeatureCollection featureCollection) {
+        List<?> features = featureCollection.features();
+        return features != null ? Math.max(features.size(), 1) : 1;
+      }
+    };
+  }
+
+  /**
+   * Replaces the floors on the map with the ones of a building, showing its ground floor.
+   *
+   * @param building the building, or null to remove the floors of the current one
+   */
+  @MainThread
+  void setBuilding(@Nullable Building building) {
+    if (building == this.building) {
+      return;
+    }
+    removeFloors();
+    this.building = building;
+    this.floor = 0;
+    if (building == null) {
+      return;
+    }
+    requests = new GeoJsonAssetLoader.Request[building.getFloorCount()];
+    floorLayers.addAll(Collections.<List<Layer>>nCopies(building.getFloorCount(), null));
+    for (int i = 0; i < building.getFloorCount(); i++) {
+      FeatureCollection featureCollection = cache.get(building.floorAssets[i]);
+      if (featureCollection != null) {
+        addFloor(i, featureCollection);
+      } else {
+        requests[i] = load(building, i);
+      }
+    }
+  }
+
+  @Nullable
+  Building getBuilding() {
+    return building;
+  }
+
+  /**
+   * Shows a floor of the building, right away if it's loaded, or as soon as it is.
+   */
+  @MainThread
+  void showFloor(int floor) {
+    if (building == null || floor < 0 || floor >= building.getFloorCount() || floor == this.floor) {
+      return;
+    }
+    setVisible(this.floor, false);
+    setVisible(floor, true);
+    this.floor = floor;
+  }
+
+  int getFloor() {
+    return floor;
+  }
+
+  /**
+   * Stops pending loads. The floors on the map are left there.
+   */
+  @MainThread
+  void release() {
+    cancelRequests();
+  }
+
+  private GeoJsonAssetLoader.Request load(final Building building, final int floor) {
+    final String asset = building.floorAssets[floor];
+    return loader.load(asset, new GeoJsonAssetLoader.Callback() {
+      @Override
+      public void onLoaded(@NonNull FeatureCollection featureCollection) {
+        cache.put(asset, featureCollection);
+        if (building == IndoorFloorManager.this.building) {
+          requests[floor] = null;
+          addFloor(floor, featureCollection);
+        }
+      }
+
+      @Override
+      public void onError(@NonNull Exception exception) {
+        Timber.e(exception, "Unable to load %s", asset);
+      }
+    });
+  }
+
+  private void addFloor(int floor, FeatureCollection featureCollection) {
+    String sourceId = ID_PREFIX + building.id + "-" + floor;
+    mapboxMap.addSource(new GeoJsonSource(sourceId, featureCollection));
+    List<Layer> layers = style.createLayers(sourceId, sourceId + "-");
+    String visibility = floor == this.floor ? Property.VISIBLE : Property.NONE;
+    for (Layer layer : layers) {
+      layer.setProperties(PropertyFactory.visibility(visibility));
+      mapboxMap.addLayer(layer);
+    }
+    floorLayers.set(floor, layers);
+  }
+
+  private void setVisible(int floor, boolean visible) {
+    List<Layer> layers = floorLayers.get(floor);
+    if (layers == null) {
+      // Not loaded yet, it's added with the right visibility once it is
+      return;
+    }
+    for (Layer layer : layers) {
+      layer.setProperties(PropertyFactory.visibility(visible ? Property.VISIBLE : Property.NONE));
+    }
+  }
+
+  private void removeFloors() {
+    cancelRequests();
+    if (building == null) {
+      return;
+    }
+    for (int i = 0; i < floorLayers.size(); i++) {
+      if (floorLayers.get(i) == null) {
+        continue;
+      }
+      for (Layer layer : floorLayers.get(i)) {
+        mapboxMap.removeLayer(layer);
+      }
+      mapboxMap.removeSource(ID_PREFIX + building.id + "-" + i);
+    }
+    floorLayers.clear();
+  }
+
+  private void cancelRequests() {
+    if (requests == null) {
+      return;
+    }
+    for (int i = 0; i < requests.length; i++) {
+      if (requests[i] != null) {
+        requests[i].cancel();
+        requests[i] = null;
+      }
+    }
+  }
+}
@@ -2,27 +2,27 @@ package com.mapbox.mapboxandroiddemo.labs;
 
 import android.graphics.Color;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.view.animation.AlphaAnimation;
 import android.widget.Button;
 
-import com.mapbox.geojson.Point;
-import com.mapbox.geojson.Polygon;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.geometry.GeofenceIndex;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.utils.GeofenceMonitor;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.layers.FillLayer;
+import com.mapbox.mapboxsdk.style.layers.Layer;
 import com.mapbox.mapboxsdk.style.layers.LineLayer;
-import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
-import com.mapbox.turf.TurfJoins;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.mapbox.mapboxsdk.style.expressions.Expression.exponential;
@@ -40,12 +40,27 @@ import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
  */
 public class IndoorMapActivity extends AppCompatActivity {
 
-  private GeoJsonSource indoorBuildingSource;
-  private List<Point> boundingBox;
-  private List<List<Point>> boundingBoxList;
+  // The level buttons are only shown when zoomed in on a building
+  private static final double MIN_INDOOR_ZOOM = 16;
+  private static final int MAX_CACHED_FEATURES = 5000;
+
+  private static final IndoorFloorManager.Building WHITE_HOUSE = new IndoorFloorManager.Building("white-house",
+    rectangle(-77.03791, 38.89708, -77.03532, 38.89811),
+    "white_house_lvl_0.geojson", "white_house_lvl_1.geojson");
+  private static final IndoorFloorManager.Building COLLEGE_OF_TECH = new IndoorFloorManager.Building(
+    "college-of-tech", rectangle(-95.34285, 29.72299, -95.34237, 29.72364),
+    "college_of_tech.geojson", "college_of_tech_lvl_one.geojson");
+  private static final IndoorFloorManager.Building TECH_ANNEX = new IndoorFloorManager.Building("tech-annex",
+    rectangle(-95.34323, 29.72202, -95.34245, 29.72297),
+    "tech_annex.geojson");
+  private static final List<IndoorFloorManager.Building> BUILDINGS = Arrays.asList(
+    WHITE_HOUSE, COLLEGE_OF_TECH, TECH_ANNEX);
+
+  private IndoorFloorManager floorManager;
+  private GeofenceMonitor geofenceMonitor;
   private View levelButtons;
+  private Button buttonSecondLevel;
   private MapView mapView;
-  private MapboxMap map;
 
   @Override
   protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -63,51 +78,56 @@ public class IndoorMapActivity extends AppCompatActivity {
     mapView.getMapAsync(new OnMapReadyCallback() {
       @Override
       public void onMapReady(final MapboxMap mapboxMap) {
-        map = mapboxMap;
-
         levelButtons = findViewById(R.id.floor_level_buttons);
 
-        boundingBox = new ArrayList<>();
-
-        boundingBox.add(Point.fromLngLat(-77.03791, 38.89715));
-        boundingBox.add(Point.fromLngLat(-77.03791, 38.89811));
-        boundingBox.add(Point.fromLngLat(-77.03532, 38.89811));
-        boundingBox.add(Point.fromLngLat(-77.03532, 38.89708));
-
-        boundingBoxList = new ArrayList<>();
-        boundingBoxList.add(boundingBox);
-
-        mapboxMap.addOnCameraMoveListener(new MapboxMap.OnCameraMoveListener() {
-          @Override
-          public void onCameraMove() {
-            if (mapboxMap.getCameraPosition().zoom > 16) {
-              if (TurfJoins.inside(Point.fromLngLat(mapboxMap.getCameraPosition().target.getLongitude(),
-                mapboxMap.getCameraPosition().target.getLatitude()), Polygon.fromLngLats(boundingBoxList))) {
-                if (levelButtons.getVisibility() != View.VISIBLE) {
-                  showLevelButton();
-                }
-              } else {
-                if (levelButtons.getVisibility() == View.VISIBLE) {
-                  hideLevelButton();
-                }
+        // Every floor of the building the camera is in is loaded at once, and kept on the map with layers
+        // of its own, so that switching floors only changes which layers are visible.
+        floorManager = new IndoorFloorManager(IndoorMapActivity.this, mapboxMap,
+          new IndoorFloorManager.FloorStyle() {
+            @NonNull
+            @Override
+            public List<Layer> createLayers(@NonNull String sourceId, @NonNull String layerIdPrefix) {
+              return createBuildingLayers(sourceId, layerIdPrefix);
+            }
+          }, MAX_CACHED_FEATURES);
+        floorManager.setBuilding(WHITE_HOUSE);
+
+        // The camera entering and leaving buildings is checked at most once per frame rather than on
+        // every camera move.
+        List<PackedCoordinates> footprints = new ArrayList<>();
+        for (IndoorFloorManager.Building building : BUILDINGS) {
+          footprints.add(building.footprint);
+        }
+        geofenceMonitor = new GeofenceMonitor(mapboxMap, new GeofenceIndex(footprints), MIN_INDOOR_ZOOM,
+          new GeofenceMonitor.Listener() {
+            @Override
+            public void onEnter(int geofence) {
+              IndoorFloorManager.Building building = BUILDINGS.get(geofence);
+              floorManager.setBuilding(building);
+              buttonSecondLevel.setVisibility(building.getFloorCount() > 1 ? View.VISIBLE : View.GONE);
+              if (levelButtons.getVisibility() != View.VISIBLE) {
+                showLevelButton();
               }
-            } else if (levelButtons.getVisibility() == View.VISIBLE) {
-              hideLevelButton();
             }
-          }
-        });
-        indoorBuildingSource = new GeoJsonSource("indoor-building", loadJsonFromAsset("white_house_lvl_0.geojson"));
-        mapboxMap.addSource(indoorBuildingSource);
 
-        // Add the building layers since we know zoom levels in range
-        loadBuildingLayer();
+            @Override
+            public void onExit(int geofence) {
+              if (BUILDINGS.get(geofence) == floorManager.getBuilding()
+                && levelButtons.getVisibility() == View.VISIBLE) {
+                hideLevelButton();
+              }
+            }
+          });
+        geofenceMonitor.start();
       }
     });
-    Button buttonSecondLevel = findViewById(R.id.second_level_button);
+    buttonSecondLevel = findViewById(R.id.second_level_button);
     buttonSecondLevel.setOnClickListener(new View.OnClickListener() {
       @Override
       public void onClick(View view) {
-        indoorBuildingSource.setGeoJson(loadJsonFromAsset("white_house_lvl_1.geojson"));
+        if (floorManager != null) {
+          floorManager.showFloor(1);
+        }
       }
     });
 
@@ -115,7 +135,9 @@ public class IndoorMapActivity extends AppCompatActivity {
     buttonGroundLevel.setOnClickListener(new View.OnClickListener() {
       @Override
       public void onClick(View view) {
-        indoorBuildingSource.setGeoJson(loadJsonFromAsset("white_house_lvl_0.geojson"));
+        if (floorManager != null) {
+          floorManager.showFloor(0);
+        }
       }
     });
   }
@@ -130,12 +152,18 @@ public class IndoorMapActivity extends AppCompatActivity {
   protected void onStart() {
     super.onStart();
     mapView.onStart();
+    if (geofenceMonitor != null) {
+      geofenceMonitor.start();
+    }
   }
 
   @Override
   protected void onStop() {
     super.onStop();
     mapView.onStop();
+    if (geofenceMonitor != null) {
+      geofenceMonitor.stop();
+    }
   }
 
   @Override
@@ -147,6 +175,9 @@ public class IndoorMapActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (floorManager != null) {
+      floorManager.release();
+    }
     mapView.onDestroy();
   }
 
@@ -180,11 +211,12 @@ public class IndoorMapActivity extends AppCompatActivity {
     levelButtons.setVisibility(View.VISIBLE);
   }
 
-  private void loadBuildingLayer() {
-    // Method used to load the indoor layer on the map. First the fill layer is drawn and then the
+  private List<Layer> createBuildingLayers(String sourceId, String layerIdPrefix) {
+    // Method used to create the indoor layers of a floor. First the fill layer is drawn and then the
     // line layer is added.
+    List<Layer> layers = new ArrayList<>();
 
-    FillLayer indoorBuildingLayer = new FillLayer("indoor-building-fill", "indoor-building").withProperties(
+    FillLayer indoorBuildingLayer = new FillLayer(layerIdPrefix + "fill", sourceId).withProperties(
       fillColor(Color.parseColor("#eeeeee")),
       // Function.zoom is used here to fade out the indoor layer if zoom level is beyond 16. Only
       // necessary to show the indoor map at high zoom levels.
@@ -192,33 +224,25 @@ public class IndoorMapActivity extends AppCompatActivity {
         stop(17f, 1f),
         stop(16.5f, 0.5f),
         stop(16f, 0f))));
+    layers.add(indoorBuildingLayer);
 
-    map.addLayer(indoorBuildingLayer);
-
-    LineLayer indoorBuildingLineLayer = new LineLayer("indoor-building-line", "indoor-building").withProperties(
+    LineLayer indoorBuildingLineLayer = new LineLayer(layerIdPrefix + "line", sourceId).withProperties(
       lineColor(Color.parseColor("#50667f")),
       lineWidth(0.5f),
       lineOpacity(interpolate(exponential(1f), zoom(),
         stop(17f, 1f),
         stop(16.5f, 0.5f),
         stop(16f, 0f))));
-    map.addLayer(indoorBuildingLineLayer);
+    layers.add(indoorBuildingLineLayer);
+    return layers;
   }
 
-  private String loadJsonFromAsset(String filename) {
-    // Using this method to load in GeoJSON files from the assets folder.
-
-    try {
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (IOException ex) {
-      ex.printStackTrace();
-      return null;
-    }
+  private static PackedCoordinates rectangle(double west, double south, double east, double north) {
+    PackedCoordinates footprint = new PackedCoordinates(4);
+    footprint.add(west, south);
+    footprint.add(west, north);
+    footprint.add(east, north);
+    footprint.add(east, south);
+    return footprint;
   }
 }
@@ -12,21 +12,21 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.utils.MapCameraLink;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
-import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapView;
-import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.MapboxMapOptions;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.utils.MapFragmentUtils;
 
-public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCallback, MapboxMap.OnCameraMoveListener {
+public class InsetMapActivity extends AppCompatActivity {
+
+  private static final int ZOOM_DISTANCE_BETWEEN_MAIN_AND_FRAGMENT_MAPS = 3;
 
   private MapView mainMapMapView;
-  private MapboxMap mainLargeMapboxMap;
-  private OnMapMovedFragmentInterface onMapMovedFragmentInterfaceListener;
+  private MapCameraLink cameraLink;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -41,7 +41,9 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
 
     mainMapMapView = findViewById(R.id.main_mapView);
     mainMapMapView.onCreate(savedInstanceState);
-    mainMapMapView.getMapAsync(this);
+
+    // Makes the camera of the mini map follow the main map, at most once per frame of the mini map
+    cameraLink = new MapCameraLink(mainMapMapView);
 
     /* Custom version of the regular Mapbox SupportMapFragment class. A custom one is being built here
     so that the interface call backs can be used in the appropriate places so that the example eventually
@@ -79,23 +81,16 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
     }
   }
 
-  @Override
-  public void onMapReady(MapboxMap mapboxMap) {
-    InsetMapActivity.this.mainLargeMapboxMap = mapboxMap;
-    mainLargeMapboxMap.addOnCameraMoveListener(this);
-  }
-
-  @Override
-  public void onCameraMove() {
-    onMapMovedFragmentInterfaceListener.onMapMoved(mainLargeMapboxMap.getCameraPosition());
-  }
-
-  private void setOnDataListener(OnMapMovedFragmentInterface onMapMovedFragmentInterface) {
-    onMapMovedFragmentInterfaceListener = onMapMovedFragmentInterface;
+  private void onMiniMapCreated(MapView miniMapView) {
+    if (cameraLink != null) {
+      cameraLink.link(miniMapView, -ZOOM_DISTANCE_BETWEEN_MAIN_AND_FRAGMENT_MAPS);
+    }
   }
 
-  public interface OnMapMovedFragmentInterface {
-    void onMapMoved(CameraPosition mainMapCameraPosition);
+  private void onMiniMapDestroyed(MapView miniMapView) {
+    if (cameraLink != null) {
+      cameraLink.unlink(miniMapView);
+    }
   }
 
   // Add the mainMapMapView lifecycle to the activity's lifecycle methods
@@ -132,9 +127,7 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
   @Override
   protected void onDestroy() {
     super.onDestroy();
-    if (mainLargeMapboxMap != null) {
-      mainLargeMapboxMap.removeOnCameraMoveListener(this);
-    }
+    cameraLink.release();
     mainMapMapView.onDestroy();
   }
 
@@ -151,13 +144,10 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
    *
    * @see #getMapAsync(OnMapReadyCallback)
    */
-  public static class CustomSupportMapFragment extends Fragment implements
-    InsetMapActivity.OnMapMovedFragmentInterface {
+  public static class CustomSupportMapFragment extends Fragment {
 
     private MapView fragmentMap;
     private OnMapReadyCallback onMapReadyCallback;
-    private CameraPosition cameraPositionForFragmentMap;
-    private static final int ZOOM_DISTANCE_BETWEEN_MAIN_AND_FRAGMENT_MAPS = 3;
 
     /**
      * Creates a CustomSupportMapFragment instance
@@ -171,31 +161,6 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
       return mapFragment;
     }
 
-    // Override method for OnMapMovedFragmentInterface
-    @Override
-    public void onMapMoved(final CameraPosition mainMapCameraPosition) {
-
-      cameraPositionForFragmentMap = new CameraPosition.Builder()
-        .target(mainMapCameraPosition.target)
-        .zoom(mainMapCameraPosition.zoom - ZOOM_DISTANCE_BETWEEN_MAIN_AND_FRAGMENT_MAPS)
-        .bearing(mainMapCameraPosition.bearing)
-        .tilt(mainMapCameraPosition.tilt)
-        .build();
-
-      fragmentMap.getMapAsync(new OnMapReadyCallback() {
-        @Override
-        public void onMapReady(final MapboxMap mapInFragment) {
-          mapInFragment.moveCamera(CameraUpdateFactory.newCameraPosition(cameraPositionForFragmentMap));
-        }
-      });
-    }
-
-    @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-      super.onCreate(savedInstanceState);
-      ((InsetMapActivity) getActivity()).setOnDataListener(this);
-    }
-
     /**
      * Creates the fragment view hierarchy.
      *
@@ -221,6 +186,7 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
     public void onViewCreated(View view, Bundle savedInstanceState) {
       super.onViewCreated(view, savedInstanceState);
       fragmentMap.onCreate(savedInstanceState);
+      ((InsetMapActivity) getActivity()).onMiniMapCreated(fragmentMap);
     }
 
     /**
@@ -286,6 +252,7 @@ public class InsetMapActivity extends AppCompatActivity implements OnMapReadyCal
     @Override
     public void onDestroyView() {
       super.onDestroyView();
+      ((InsetMapActivity) getActivity()).onMiniMapDestroyed(fragmentMap);
       fragmentMap.onDestroy();
     }
 
@@ -0,0 +1,173 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.mapbox.mapboxandroiddemo.model.IssModel;
+
+import java.net.HttpURLConnection;
+import java.util.Random;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Polls the position of the International Space Station, only as often as it needs to.
+ * <p>
+ * The next request is scheduled once the previous one has finished, so requests never overlap however
+ * slow the link is. The interval starts at {@link #MIN_INTERVAL_MILLIS} and stretches up to
+ * {@link #MAX_INTERVAL_MILLIS} for as long as the listener reports that its predictions match the
+ * samples, it drops back to the minimum as soon as they don't. Failed requests are retried with an
+ * exponential, jittered backoff. Requests carry the ETag of the last response, so an unchanged
+ * position costs an empty 304 response.
+ * </p>
+ */
+class IssPositionPoller {
+
+  private static final String TAG = "IssPositionPoller";
+
+  static final long MIN_INTERVAL_MILLIS = 2000;
+  static final long MAX_INTERVAL_MILLIS = 16000;
+  private static final long MAX_BACKOFF_MILLIS = 60000;
+  private static final int MAX_BACKOFF_EXPONENT = 5;
+  private static final double INTERVAL_GROWTH = 1.5;
+
+  /**
+   * Receives new positions on the main thread.
+   */
+  interface Listener {
+
+    /**
+     * Invoked with every position that differs from the previous one.
+     *
+     * @param timestamp the time of the position, in seconds since the epoch
+     * @return true if the position was close to where it was expected, so the next poll can wait longer
+     */
+    boolean onPosition(double latitude, double longitude, long timestamp);
+  }
+
+  private final SpaceStationLocationActivity.IssApiService service;
+  private final Listener listener;
+  private final Handler handler = new Handler();
+  private final Random random = new Random();
+
+  private Call<IssModel> call;
+  private String etag;
+  private long lastTimestamp = -1;
+  private long interval = MIN_INTERVAL_MILLIS;
+  private int failures;
+  private boolean running;
+
+  IssPositionPoller(@NonNull SpaceStationLocationActivity.IssApiService service, @NonNull Listener listener) {
+    this.service = service;
+    this.listener = listener;
+  }
+
+  /**
+   * Polls right away, then keeps polling until {@link #stop()}.
+   */
+  void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    handler.post(pollRunnable);
+  }
+
+  /**
+   * Stops polling and cancels the request in flight, if any.
+   */
+  void stop() {
+    running = false;
+    handler.removeCallbacks(pollRunnable);
+    if (call != null) {
+      call.cancel();
+      call = null;
+    }
+  }
+
+  /**
+   * The delay before the next poll, when the last one succeeded.
+   */
+  long getInterval() {
+    return interval;
+  }
+
+  private final Runnable pollRunnable = new Runnable() {
+    @Override
+    public void run() {
+      if (!running || call != null) {
+        // only one request is ever in flight
+        return;
+      }
+      call = service.loadLocation(etag);
+      call.enqueue(callback);
+    }
+  };
+
+  private final Callback<IssModel> callback = new Callback<IssModel>() {
+    @Override
+    public void onResponse(Call<IssModel> finishedCall, Response<IssModel> response) {
+      if (finishedCall != call || !running) {
+        return;
+      }
+      call = null;
+
+      if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        onUnchanged();
+        return;
+      }
+      IssModel body = response.body();
+      if (!response.isSuccessful() || body == null || body.getIssPosition() == null) {
+        onError("Unexpected response " + response.code());
+        return;
+      }
+
+      etag = response.headers().get("ETag");
+      failures = 0;
+      long timestamp = body.getTimestamp() != null ? body.getTimestamp() : 0;
+      if (timestamp == lastTimestamp) {
+        onUnchanged();
+        return;
+      }
+      lastTimestamp = timestamp;
+
+      boolean expected = listener.onPosition(body.getIssPosition().getLatitude(),
+        body.getIssPosition().getLongitude(), timestamp);
+      interval = expected ? Math.min((long) (interval * INTERVAL_GROWTH), MAX_INTERVAL_MILLIS) : MIN_INTERVAL_MILLIS;
+      schedule(interval);
+    }
+
+    @Override
+    public void onFailure(Call<IssModel> failedCall, Throwable throwable) {
+      if (failedCall != call || !running) {
+        return;
+      }
+      call = null;
+      onError(throwable.getMessage() != null ? throwable.getMessage() : "Http connection failed");
+    }
+  };
+
+  private void onUnchanged() {
+    // The server has nothing new yet, which is no reason to poll any faster
+    failures = 0;
+    schedule(interval);
+  }
+
+  private void onError(String message) {
+    Log.e(TAG, message);
+    failures++;
+    long backoff = Math.min(MIN_INTERVAL_MILLIS << Math.min(failures, MAX_BACKOFF_EXPONENT), MAX_BACKOFF_MILLIS);
+
+    // Jitter keeps clients that failed together from retrying together
+    schedule(backoff / 2 + (long) (random.nextDouble() * backoff / 2));
+  }
+
+  private void schedule(long delay) {
+    if (running) {
+      handler.postDelayed(pollRunnable, delay);
+    }
+  }
+}
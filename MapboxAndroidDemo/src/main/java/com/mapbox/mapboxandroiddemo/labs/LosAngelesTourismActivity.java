@@ -1,30 +1,32 @@
 package com.mapbox.mapboxandroiddemo.labs;
 
-import android.animation.ArgbEvaluator;
-import android.animation.ValueAnimator;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 
 import com.getbase.floatingactionbutton.FloatingActionButton;
+import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
+import com.mapbox.mapboxandroiddemo.utils.LayerPulseAnimator;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
 import com.mapbox.mapboxsdk.style.layers.CircleLayer;
 import com.mapbox.mapboxsdk.style.layers.FillLayer;
-import com.mapbox.mapboxsdk.style.layers.Layer;
 import com.mapbox.mapboxsdk.style.layers.Property;
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import timber.log.Timber;
 
-import static com.mapbox.mapboxsdk.style.layers.Property.VISIBLE;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.circleColor;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.fillColor;
 
@@ -36,9 +38,10 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
 
   private MapView mapView;
   private MapboxMap mapboxMap;
-  private ValueAnimator parkColorAnimator;
-  private ValueAnimator hotelColorAnimator;
-  private ValueAnimator attractionsColorAnimator;
+  // Pulses the colors of the parks, hotels and attractions, only writing to the style when the color
+  // changes and only while the layer is visible.
+  private LayerPulseAnimator pulseAnimator;
+  private final List<GeoJsonAssetLoader.Request> loadRequests = new ArrayList<>();
 
   @Override
   protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -62,8 +65,9 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
     this.mapboxMap = mapboxMap;
 
     // Add the hotels source to the map
-    GeoJsonSource hotelSource = new GeoJsonSource("hotels", loadJsonFromAsset("la_hotels.geojson"));
+    GeoJsonSource hotelSource = new GeoJsonSource("hotels");
     mapboxMap.addSource(hotelSource);
+    loadJsonFromAsset(hotelSource, "la_hotels.geojson");
 
     FillLayer hotelLayer = new FillLayer("hotels", "hotels").withProperties(
       fillColor(Color.parseColor("#5a9fcf")),
@@ -72,31 +76,10 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
 
     mapboxMap.addLayer(hotelLayer);
 
-    final FillLayer hotels = (FillLayer) mapboxMap.getLayer("hotels");
-
-    hotelColorAnimator = ValueAnimator.ofObject(
-      new ArgbEvaluator(),
-      Color.parseColor("#5a9fcf"), // Brighter shade
-      Color.parseColor("#2C6B97") // Darker shade
-    );
-    hotelColorAnimator.setDuration(1000);
-    hotelColorAnimator.setRepeatCount(ValueAnimator.INFINITE);
-    hotelColorAnimator.setRepeatMode(ValueAnimator.REVERSE);
-    hotelColorAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-
-      @Override
-      public void onAnimationUpdate(ValueAnimator animator) {
-
-        hotels.setProperties(
-          fillColor((int) animator.getAnimatedValue())
-        );
-      }
-
-    });
-
     // Add the attractions source to the map
-    GeoJsonSource attractionsSource = new GeoJsonSource("attractions", loadJsonFromAsset("la_attractions.geojson"));
+    GeoJsonSource attractionsSource = new GeoJsonSource("attractions");
     mapboxMap.addSource(attractionsSource);
+    loadJsonFromAsset(attractionsSource, "la_attractions.geojson");
 
     CircleLayer attractionsLayer = new CircleLayer("attractions", "attractions").withProperties(
       circleColor(Color.parseColor("#5a9fcf")),
@@ -105,51 +88,25 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
 
     mapboxMap.addLayer(attractionsLayer);
 
-    final CircleLayer attractions = (CircleLayer) mapboxMap.getLayer("attractions");
-
-    attractionsColorAnimator = ValueAnimator.ofObject(
-      new ArgbEvaluator(),
-      Color.parseColor("#ec8a8a"), // Brighter shade
-      Color.parseColor("#de3232") // Darker shade
-    );
-    attractionsColorAnimator.setDuration(1000);
-    attractionsColorAnimator.setRepeatCount(ValueAnimator.INFINITE);
-    attractionsColorAnimator.setRepeatMode(ValueAnimator.REVERSE);
-    attractionsColorAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-
-      @Override
-      public void onAnimationUpdate(ValueAnimator animator) {
-
-        attractions.setProperties(
-          circleColor((int) animator.getAnimatedValue())
-        );
-      }
-
-    });
-
-    final FillLayer parks = (FillLayer) mapboxMap.getLayer("parks");
+    FillLayer parks = (FillLayer) mapboxMap.getLayer("parks");
     parks.setProperties(
       PropertyFactory.visibility(Property.NONE)
     );
 
-    parkColorAnimator = ValueAnimator.ofObject(
-      new ArgbEvaluator(),
+    // Each layer goes back and forth between a brighter and a darker shade, all three in sync.
+    pulseAnimator = new LayerPulseAnimator(1000);
+    pulseAnimator.addLayer(hotelLayer,
+      Color.parseColor("#5a9fcf"), // Brighter shade
+      Color.parseColor("#2C6B97"), // Darker shade
+      LayerPulseAnimator.FILL_COLOR, false);
+    pulseAnimator.addLayer(attractionsLayer,
+      Color.parseColor("#ec8a8a"), // Brighter shade
+      Color.parseColor("#de3232"), // Darker shade
+      LayerPulseAnimator.CIRCLE_COLOR, false);
+    pulseAnimator.addLayer(parks,
       Color.parseColor("#7ac79c"), // Brighter shade
-      Color.parseColor("#419a68") // Darker shade
-    );
-    parkColorAnimator.setDuration(1000);
-    parkColorAnimator.setRepeatCount(ValueAnimator.INFINITE);
-    parkColorAnimator.setRepeatMode(ValueAnimator.REVERSE);
-    parkColorAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-
-      @Override
-      public void onAnimationUpdate(ValueAnimator animator) {
-
-        parks.setProperties(
-          fillColor((int) animator.getAnimatedValue())
-        );
-      }
-    });
+      Color.parseColor("#419a68"), // Darker shade
+      LayerPulseAnimator.FILL_COLOR, false);
 
     FloatingActionButton toggleHotelsFab = (FloatingActionButton) findViewById(R.id.fab_toggle_hotels);
     toggleHotelsFab.setOnClickListener(new View.OnClickListener() {
@@ -176,43 +133,21 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
       }
     });
 
-    // Start all the animation at the same time so that they are in sync when displayed.
-    parkColorAnimator.start();
-    hotelColorAnimator.start();
-    attractionsColorAnimator.start();
-
+    // Start the animation, it only runs while at least one of the layers is displayed.
+    pulseAnimator.start();
   }
 
   private void setLayerVisible(String layerId) {
-    Layer layer = mapboxMap.getLayer(layerId);
-    if (layer == null) {
-      return;
-    }
-    if (VISIBLE.equals(layer.getVisibility().getValue())) {
-      // Layer is visible
-      layer.setProperties(
-        PropertyFactory.visibility("none")
-      );
-    } else {
-      // Layer isn't visible
-      layer.setProperties(
-        PropertyFactory.visibility("visible")
-      );
-    }
+    // The animator keeps track of which layers are visible, so the style doesn't need to be queried.
+    pulseAnimator.setVisible(layerId, !pulseAnimator.isVisible(layerId));
   }
 
   @Override
   public void onResume() {
     super.onResume();
     mapView.onResume();
-    if (hotelColorAnimator != null) {
-      hotelColorAnimator.start();
-    }
-    if (parkColorAnimator != null) {
-      parkColorAnimator.start();
-    }
-    if (attractionsColorAnimator != null) {
-      attractionsColorAnimator.start();
+    if (pulseAnimator != null) {
+      pulseAnimator.start();
     }
   }
 
@@ -232,9 +167,9 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
   public void onPause() {
     super.onPause();
     mapView.onPause();
-    hotelColorAnimator.cancel();
-    parkColorAnimator.cancel();
-    attractionsColorAnimator.cancel();
+    if (pulseAnimator != null) {
+      pulseAnimator.stop();
+    }
   }
 
   @Override
@@ -246,6 +181,9 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    for (GeoJsonAssetLoader.Request request : loadRequests) {
+      request.cancel();
+    }
     mapView.onDestroy();
   }
 
@@ -255,19 +193,18 @@ public class LosAngelesTourismActivity extends AppCompatActivity implements OnMa
     mapView.onSaveInstanceState(outState);
   }
 
-  private String loadJsonFromAsset(String filename) {
-    // Using this method to load in GeoJSON files from the assets folder.
-    try {
-      InputStream is = getAssets().open(filename);
-      int size = is.available();
-      byte[] buffer = new byte[size];
-      is.read(buffer);
-      is.close();
-      return new String(buffer, "UTF-8");
-
-    } catch (IOException ex) {
-      ex.printStackTrace();
-      return null;
-    }
+  private void loadJsonFromAsset(final GeoJsonSource source, String filename) {
+    // Using this method to load in GeoJSON files from the assets folder on a background thread.
+    loadRequests.add(GeoJsonAssetLoader.getInstance(this).load(filename, new GeoJsonAssetLoader.Callback() {
+      @Override
+      public void onLoaded(@NonNull FeatureCollection featureCollection) {
+        source.setGeoJson(featureCollection);
+      }
+
+      @Override
+      public void onError(@NonNull Exception exception) {
+        Timber.e(exception);
+      }
+    }));
   }
 }
@@ -0,0 +1,331 @@
+package com.mapbox.mapboxandroiddemo.labs;
+
+import android.annotation.SuppressLint;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.squareup.picasso.Picasso;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import timber.log.Timber;
+
+/**
+ * Loads Mapillary images around a point and their circular thumbnails.
+ * <p>
+ * The image list is requested first, then the thumbnails are downloaded and cropped on a small fixed
+ * pool of threads. Each thumbnail is delivered on the main thread as soon as it's ready, so markers can
+ * be shown one by one instead of after the slowest download. The endpoints are passed in, so the
+ * loader can be pointed at a local server.
+ * https://www.mapillary.com/developer/api-documentation/
+ * </p>
+ */
+class MapillaryDataLoader {
+
+  static final String KEY_UNIQUE_FEATURE = "key";
+  static final int IMAGE_SIZE = 128;
+
+  static final String API_URL = "https://a.mapillary.com/v3/images/"
+    + "?lookat=%f,%f&closeto=%f,%f&radius=%d"
+    + "&client_id=bjgtc1FDTnFPaXpxeTZuUDNabmJ5dzozOGE1ODhkMmEyYTkyZTI4";
+  static final String URL_IMAGE_PLACEHOLDER = "https://d1cuyjsrcm0gby.cloudfront.net/%s/thumb-320.jpg";
+
+  private static final int DEFAULT_PARALLELISM = 4;
+
+  /**
+   * Receives the results of a load on the main thread.
+   */
+  interface Callback {
+
+    /**
+     * Invoked once the list of images is known, before any thumbnail has been loaded.
+     */
+    void onFeaturesLoaded(@NonNull FeatureCollection featureCollection);
+
+    /**
+     * Invoked for every thumbnail, in the order the downloads finish.
+     */
+    void onImageLoaded(@NonNull Feature feature, @NonNull Bitmap bitmap);
+
+    /**
+     * Invoked once every thumbnail has been loaded or has failed.
+     */
+    void onComplete();
+
+    /**
+     * Invoked if the list of images can't be loaded.
+     */
+    void onError(@NonNull Exception exception);
+  }
+
+  private final OkHttpClient okHttpClient;
+  private final Picasso picasso;
+  private final String apiUrl;
+  private final String imageUrlPlaceholder;
+  private final ExecutorService executorService;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  // Crop state is reused by every thumbnail decoded on the same pool thread
+  private final ThreadLocal<CircleCropper> croppers = new ThreadLocal<CircleCropper>() {
+    @Override
+    protected CircleCropper initialValue() {
+      return new CircleCropper();
+    }
+  };
+
+  MapillaryDataLoader(@NonNull OkHttpClient okHttpClient, @NonNull Picasso picasso) {
+    this(okHttpClient, picasso, API_URL, URL_IMAGE_PLACEHOLDER, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * @param apiUrl              format string for the image search, taking the longitude and latitude twice
+   *                            followed by the radius
+   * @param imageUrlPlaceholder format string for a thumbnail, taking the image key
+   * @param parallelism         the maximum number of thumbnails loaded at the same time
+   */
+  MapillaryDataLoader(@NonNull OkHttpClient okHttpClient, @NonNull Picasso picasso, @NonNull String apiUrl,
+                      @NonNull String imageUrlPlaceholder, int parallelism) {
+    this.okHttpClient = okHttpClient;
+    this.picasso = picasso;
+    this.apiUrl = apiUrl;
+    this.imageUrlPlaceholder = imageUrlPlaceholder;
+    this.executorService = Executors.newFixedThreadPool(parallelism);
+  }
+
+  /**
+   * Loads the images around a point.
+   *
+   * @param point    the point to look for images around
+   * @param radius   the search radius in meters
+   * @param callback receives the results on the main thread
+   * @return the load, which can be cancelled
+   */
+  @NonNull
+  Job load(@NonNull Point point, int radius, @NonNull Callback callback) {
+    @SuppressLint("DefaultLocale") Request request = new Request.Builder()
+      .url(String.format(apiUrl,
+        point.longitude(), point.latitude(),
+        point.longitude(), point.latitude(),
+        radius
+      ))
+      .build();
+    Job job = new Job(okHttpClient.newCall(request), callback);
+    job.submit(job.fetchFeatures);
+    return job;
+  }
+
+  /**
+   * Cancels every load in progress and releases the threads. The loader can't be used afterwards.
+   */
+  void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * A single load, started by {@link #load(Point, int, Callback)}.
+   */
+  class Job {
+
+    private final Call call;
+    private final Callback callback;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    Job(Call call, Callback callback) {
+      this.call = call;
+      this.callback = callback;
+    }
+
+    /**
+     * Stops the load. No more callbacks are invoked after this returns.
+     */
+    void cancel() {
+      cancelled = true;
+      call.cancel();
+      synchronized (futures) {
+        for (Future<?> future : futures) {
+          future.cancel(true);
+        }
+        futures.clear();
+      }
+    }
+
+    boolean isCancelled() {
+      return cancelled;
+    }
+
+    private void submit(Runnable runnable) {
+      synchronized (futures) {
+        if (!cancelled && !executorService.isShutdown()) {
+          futures.add(executorService.submit(runnable));
+        }
+      }
+    }
+
+    private final Runnable fetchFeatures = new Runnable() {
+      @Override
+      public void run() {
+        final FeatureCollection featureCollection;
+        try {
+          featureCollection = readFeatures(call.execute());
+        } catch (final Exception exception) {
+          deliver(new Runnable() {
+            @Override
+            public void run() {
+              callback.onError(exception);
+            }
+          });
+          return;
+        }
+
+        List<Feature> features = featureCollection.features();
+        int count = features != null ? features.size() : 0;
+        remaining.set(count);
+        deliver(new Runnable() {
+          @Override
+          public void run() {
+            callback.onFeaturesLoaded(featureCollection);
+          }
+        });
+        if (count == 0) {
+          deliverComplete();
+          return;
+        }
+        for (Feature feature : features) {
+          submit(new FetchImage(feature));
+        }
+      }
+    };
+
+    private FeatureCollection readFeatures(Response response) throws IOException {
+      ResponseBody body = response.body();
+      try {
+        if (!response.isSuccessful() || body == null) {
+          throw new IOException("Unexpected response " + response.code());
+        }
+        return FeatureCollection.fromJson(body.string());
+      } finally {
+        response.close();
+      }
+    }
+
+    private class FetchImage implements Runnable {
+
+      private final Feature feature;
+
+      FetchImage(Feature feature) {
+        this.feature = feature;
+      }
+
+      @Override
+      public void run() {
+        try {
+          if (cancelled) {
+            return;
+          }
+          String imageUrl = String.format(imageUrlPlaceholder, feature.getStringProperty(KEY_UNIQUE_FEATURE));
+          Bitmap bitmap = picasso.load(imageUrl).resize(IMAGE_SIZE, IMAGE_SIZE).get();
+          if (bitmap == null || cancelled) {
+            return;
+          }
+          final Bitmap cropped = croppers.get().crop(bitmap);
+          deliver(new Runnable() {
+            @Override
+            public void run() {
+              callback.onImageLoaded(feature, cropped);
+            }
+          });
+        } catch (Exception exception) {
+          // A single missing thumbnail shouldn't fail the whole load, skip it
+          if (!cancelled) {
+            Timber.w(exception, "Unable to load Mapillary thumbnail %s",
+              feature.getStringProperty(KEY_UNIQUE_FEATURE));
+          }
+        } finally {
+          if (remaining.decrementAndGet() == 0) {
+            deliverComplete();
+          }
+        }
+      }
+    }
+
+    private void deliverComplete() {
+      deliver(new Runnable() {
+        @Override
+        public void run() {
+          callback.onComplete();
+        }
+      });
+    }
+
+    private void deliver(final Runnable runnable) {
+      if (cancelled) {
+        return;
+      }
+      mainHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          if (!cancelled) {
+            runnable.run();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Crops bitmaps to a circle, reusing its paint and canvas across bitmaps.
+   */
+  static class CircleCropper {
+
+    private final Paint paint = new Paint();
+    private final PorterDuffXfermode srcIn = new PorterDuffXfermode(PorterDuff.Mode.SRC_IN);
+    private final Canvas canvas = new Canvas();
+    private final Rect rect = new Rect();
+
+    CircleCropper() {
+      paint.setAntiAlias(true);
+    }
+
+    @NonNull
+    Bitmap crop(@NonNull Bitmap bitmap) {
+      int width = bitmap.getWidth();
+      int height = bitmap.getHeight();
+      Bitmap output = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      canvas.setBitmap(output);
+      rect.set(0, 0, width, height);
+
+      paint.setXfermode(null);
+      paint.setColor(Color.BLACK);
+      canvas.drawCircle(width / 2f, height / 2f, width / 2f, paint);
+      paint.setXfermode(srcIn);
+      canvas.drawBitmap(bitmap, rect, rect, paint);
+
+      canvas.setBitmap(null);
+      return output;
+    }
+  }
+}
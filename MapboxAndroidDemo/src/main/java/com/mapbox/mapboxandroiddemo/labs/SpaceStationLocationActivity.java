@@ -1,16 +1,13 @@
 package com.mapbox.mapboxandroiddemo.labs;
 
-import android.animation.ObjectAnimator;
-import android.animation.TypeEvaluator;
-import android.animation.ValueAnimator;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.support.v7.app.AppCompatActivity;
-import android.util.Log;
-import android.view.animation.LinearInterpolator;
 import android.widget.Toast;
 
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
+import com.mapbox.mapboxandroiddemo.utils.FrameDriver;
 import com.mapbox.mapboxandroiddemo.model.IssModel;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.Icon;
@@ -26,27 +23,27 @@ import com.mapbox.geojson.Point;
 import com.mapbox.turf.TurfMeasurement;
 
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 
 /**
  * Display the space station's real-time location
  */
 public class SpaceStationLocationActivity extends AppCompatActivity {
 
-  private static final String TAG = "SpaceStationActivity";
+  // The distance in kilometers a predicted position may be off by while the poll interval keeps growing.
+  private static final double MAX_PREDICTION_ERROR = 25;
 
-  private Handler handler;
-  private Runnable runnable;
-  private Call<IssModel> call;
+  // The poller calls the API every 2 seconds at first, and less often while the predicted positions
+  // are right, reducing the interval will only cause server traffic, the latitude and longitude
+  // values aren't updated that frequently.
+  private IssPositionPoller poller;
 
-  // apiCallTime is the time interval when we call the API in milliseconds, by default this is set
-  // to 2000 and you should only increase the value, reducing the interval will only cause server
-  // traffic, the latitude and longitude values aren't updated that frequently.
-  private int apiCallTime = 2000;
+  // In between API calls, the marker keeps moving along the last known velocity.
+  private final DeadReckoning deadReckoning = new DeadReckoning();
+  private final LatLng markerPosition = new LatLng();
+  private LatLng lastSample;
+  private boolean animatingMarker;
 
   // Map variables
   private MapView mapView;
@@ -85,8 +82,11 @@ public class SpaceStationLocationActivity extends AppCompatActivity {
     super.onResume();
     mapView.onResume();
     // When the user returns to the activity we want to resume the API calling.
-    if (handler != null && runnable != null) {
-      handler.post(runnable);
+    if (poller != null) {
+      poller.start();
+    }
+    if (animatingMarker) {
+      FrameDriver.getInstance().addListener(markerFrameListener);
     }
   }
 
@@ -108,9 +108,10 @@ public class SpaceStationLocationActivity extends AppCompatActivity {
     mapView.onPause();
     // When the user leaves the activity, there is no need in calling the API since the map
     // isn't in view.
-    if (handler != null && runnable != null) {
-      handler.removeCallbacks(runnable);
+    if (poller != null) {
+      poller.stop();
     }
+    FrameDriver.getInstance().removeListener(markerFrameListener);
   }
 
   @Override
@@ -133,52 +134,23 @@ public class SpaceStationLocationActivity extends AppCompatActivity {
 
   private void callApi() {
 
-    // Build our client, The API we are using is very basic only returning a handful of
+    // Get our client, The API we are using is very basic only returning a handful of
     // information, mainly, the current latitude and longitude of the International Space Station.
-    Retrofit client = new Retrofit.Builder()
-      .baseUrl("http://api.open-notify.org/")
-      .addConverterFactory(GsonConverterFactory.create())
-      .build();
-
-    final IssApiService service = client.create(IssApiService.class);
+    // The client is shared by the whole app, so every poll reuses the same connection.
+    IssApiService service = HttpClientProvider.getInstance(this)
+      .getRetrofit("http://api.open-notify.org/")
+      .create(IssApiService.class);
 
-    // A handler is needed to called the API every x amount of seconds.
-    handler = new Handler();
-    runnable = new Runnable() {
+    // The poller calls the API once the previous call has finished, backing off when calls fail.
+    poller = new IssPositionPoller(service, new IssPositionPoller.Listener() {
       @Override
-      public void run() {
-        // Call the API so we can get the updated coordinates.
-        call = service.loadLocation();
-        call.enqueue(new Callback<IssModel>() {
-          @Override
-          public void onResponse(Call<IssModel> call, Response<IssModel> response) {
-
-            // We only need the latitude and longitude from the API.
-            double latitude = response.body().getIssPosition().getLatitude();
-            double longitude = response.body().getIssPosition().getLongitude();
-
-            updateMarkerPosition(new LatLng(latitude, longitude));
-          }
-
-          @Override
-          public void onFailure(Call<IssModel> call, Throwable throwable) {
-            // If retrofit fails or the API was unreachable, an error will be called.
-            //to check if throwable is null, then give a custom message.
-            if (throwable.getMessage() == null) {
-              Log.e(TAG, "Http connection failed");
-            } else {
-              Log.e(TAG, throwable.getMessage());
-            }
-
-          }
-        });
-        // Schedule the next execution time for this runnable.
-        handler.postDelayed(this, apiCallTime);
+      public boolean onPosition(double latitude, double longitude, long timestamp) {
+        double error = deadReckoning.addSample(latitude, longitude, timestamp, SystemClock.uptimeMillis());
+        updateMarkerPosition(new LatLng(latitude, longitude));
+        return error >= 0 && error < MAX_PREDICTION_ERROR;
       }
-    };
-
-    // The first time this runs we don't need a delay so we immediately post.
-    handler.post(runnable);
+    });
+    poller.start();
   }
 
   private void updateMarkerPosition(LatLng position) {
@@ -198,35 +170,33 @@ public class SpaceStationLocationActivity extends AppCompatActivity {
 
       // Lastly, animate the camera to the new position so the user
       // wont have to search for the marker and then return.
-      map.animateCamera(CameraUpdateFactory.newLatLngZoom(position, 1), apiCallTime);
+      map.animateCamera(CameraUpdateFactory.newLatLngZoom(position, 1), (int) IssPositionPoller.MIN_INTERVAL_MILLIS);
+      lastSample = position;
+      startMarkerAnimation();
       return;
     }
 
     // Marker rotation is critical only if you want the marker to point in the direction the
-    // object's moving.
-    marker.setRotation((float) computeHeading(marker.getPosition(), position));
-
-    ValueAnimator markerAnimator = ObjectAnimator.ofObject(marker, "position",
-      new LatLngEvaluator(), marker.getPosition(), position);
-    markerAnimator.setDuration(apiCallTime);
-    markerAnimator.setInterpolator(new LinearInterpolator());
-    markerAnimator.start();
+    // object's moving. The marker itself may be slightly ahead of the sample, so use the samples.
+    marker.setRotation((float) computeHeading(lastSample, position));
+    lastSample = position;
   }
 
-  private static class LatLngEvaluator implements TypeEvaluator<LatLng> {
-    // Method is used to interpolate the marker animation.
-
-    private LatLng latLng = new LatLng();
+  private void startMarkerAnimation() {
+    animatingMarker = true;
+    FrameDriver.getInstance().addListener(markerFrameListener);
+  }
 
+  // Every frame, move the marker to where the station is predicted to be. The position comes from
+  // the dead reckoning, the frame driver only provides the frames.
+  private final FrameDriver.Listener markerFrameListener = new FrameDriver.Listener() {
     @Override
-    public LatLng evaluate(float fraction, LatLng startValue, LatLng endValue) {
-      latLng.setLatitude(startValue.getLatitude()
-        + ((endValue.getLatitude() - startValue.getLatitude()) * fraction));
-      latLng.setLongitude(startValue.getLongitude()
-        + ((endValue.getLongitude() - startValue.getLongitude()) * fraction));
-      return latLng;
+    public void onFrame(long frameTimeNanos) {
+      if (marker != null && deadReckoning.hasSample()) {
+        marker.setPosition(deadReckoning.getPosition(SystemClock.uptimeMillis(), markerPosition));
+      }
     }
-  }
+  };
 
   public static double computeHeading(LatLng from, LatLng to) {
     // Compute bearing/heading using Turf and return the value.
@@ -238,6 +208,6 @@ public class SpaceStationLocationActivity extends AppCompatActivity {
   // Interface used for Retrofit.
   public interface IssApiService {
     @GET("iss-now")
-    Call<IssModel> loadLocation();
+    Call<IssModel> loadLocation(@Header("If-None-Match") String etag);
   }
 }
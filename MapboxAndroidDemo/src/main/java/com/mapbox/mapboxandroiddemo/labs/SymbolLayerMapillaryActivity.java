@@ -4,16 +4,11 @@ import android.animation.Animator;
 import android.animation.AnimatorSet;
 import android.animation.TypeEvaluator;
 import android.animation.ValueAnimator;
-import android.annotation.SuppressLint;
-import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.PointF;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
@@ -30,7 +25,6 @@ import android.support.v7.widget.SnapHelper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -38,6 +32,13 @@ import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.Point;
 import com.mapbox.mapboxandroiddemo.R;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
+import com.mapbox.mapboxandroiddemo.commons.geometry.KdPointIndex;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.commons.geometry.WebMercator;
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
+import com.mapbox.mapboxandroiddemo.utils.ClusterSourceUpdater;
+import com.mapbox.mapboxandroiddemo.utils.PicassoProvider;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
@@ -51,14 +52,11 @@ import com.mapbox.mapboxsdk.style.layers.Layer;
 import com.mapbox.mapboxsdk.style.layers.LineLayer;
 import com.mapbox.mapboxsdk.style.layers.Property;
 import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
-import com.mapbox.mapboxsdk.style.sources.GeoJsonOptions;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 import com.mapbox.mapboxsdk.style.sources.Source;
 import com.mapbox.mapboxsdk.style.sources.TileSet;
 import com.mapbox.mapboxsdk.style.sources.VectorSource;
-import com.squareup.picasso.Picasso;
 
-import java.io.InputStream;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
@@ -67,9 +65,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import timber.log.Timber;
 
 import static android.support.v7.widget.RecyclerView.SCROLL_STATE_IDLE;
@@ -81,7 +76,7 @@ import static com.mapbox.mapboxsdk.style.expressions.Expression.gte;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.interpolate;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.literal;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.lt;
-import static com.mapbox.mapboxsdk.style.expressions.Expression.match;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.neq;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.stop;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.toNumber;
 import static com.mapbox.mapboxsdk.style.expressions.Expression.zoom;
@@ -109,33 +104,47 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
   MapboxMap.OnMapClickListener {
   private static final String SOURCE_ID = "mapbox.poi";
   private static final String MAKI_LAYER_ID = "mapbox.poi.maki";
+  private static final String SELECTION_SOURCE_ID = "mapbox.poi.selection";
+  private static final String SELECTED_MAKI_LAYER_ID = "mapbox.poi.maki.selected";
+  private static final String LOADING_SOURCE_ID = "mapbox.poi.loading.source";
   private static final String LOADING_LAYER_ID = "mapbox.poi.loading";
   private static final String CALLOUT_LAYER_ID = "mapbox.poi.callout";
 
-  private static final String PROPERTY_SELECTED = "selected";
-  private static final String PROPERTY_LOADING = "loading";
-  private static final String PROPERTY_LOADING_PROGRESS = "loading_progress";
   private static final String PROPERTY_TITLE = "title";
   private static final String PROPERTY_FAVOURITE = "favourite";
   private static final String PROPERTY_DESCRIPTION = "description";
   private static final String PROPERTY_POI = "poi";
   private static final String PROPERTY_STYLE = "style";
+  private static final String PROPERTY_CALLOUT = "callout";
+  private static final String PROPERTY_INDEX = "index";
 
   private static final long CAMERA_ANIMATION_TIME = 1950;
   private static final float LOADING_CIRCLE_RADIUS = 60;
   private static final int LOADING_PROGRESS_STEPS = 25; //number of steps in a progress animation
   private static final int LOADING_STEP_DURATION = 50; //duration between each step
+  private static final int CALLOUT_CHUNK_SIZE = 32; //callouts generated before they are added to the map
+  private static final float ICON_HIT_RADIUS = 24; //distance in dp from a maki icon that still selects it
 
   private MapView mapView;
   private MapboxMap mapboxMap;
   private RecyclerView recyclerView;
 
   private GeoJsonSource source;
+  private GeoJsonSource selectionSource;
+  private SymbolLayer makiLayer;
+  private GeoJsonSource loadingSource;
+  private CircleLayer loadingLayer;
   private FeatureCollection featureCollection;
-  private HashMap<String, View> viewMap;
+  private KdPointIndex poiIndex;
+  private int selectedIndex = -1;
+  private CalloutRenderer calloutRenderer;
+  private CalloutIconCache calloutIconCache;
   private AnimatorSet animatorSet;
 
+  private MapillaryDataLoader mapillaryDataLoader;
   private LoadMapillaryDataTask loadMapillaryDataTask;
+  private ClusterSourceUpdater mapillaryClusters;
+  private GeoJsonAssetLoader.Request loadPoiDataRequest;
 
   @ActivityStep
   private int currentStep;
@@ -169,6 +178,10 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     setContentView(R.layout.activity_symbol_layer_mapillary);
 
     recyclerView = findViewById(R.id.rv_on_top_of_map);
+    calloutIconCache = CalloutIconCache.getInstance(this);
+    calloutRenderer = new CalloutRenderer(this);
+    mapillaryDataLoader = new MapillaryDataLoader(HttpClientProvider.getInstance(this).getClient(),
+      PicassoProvider.getInstance(this));
 
     // Initialize the map view
     mapView = findViewById(R.id.mapView);
@@ -182,7 +195,9 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     mapboxMap.getUiSettings().setCompassEnabled(false);
     mapboxMap.getUiSettings().setLogoEnabled(false);
     mapboxMap.getUiSettings().setAttributionEnabled(false);
-    new LoadPoiDataTask(this).execute();
+    mapillaryClusters = new ClusterSourceUpdater(mapboxMap, LoadMapillaryDataTask.ID_SOURCE,
+      MapillaryDataLoader.IMAGE_SIZE / 3, 17);
+    loadPoiData();
     mapboxMap.addOnMapClickListener(this);
   }
 
@@ -197,18 +212,51 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
       handleClickCallout(feature, screenPoint, symbolScreenPoint);
     } else {
       // we didn't find a click event on callout layer, try clicking maki layer
-      handleClickIcon(screenPoint);
+      handleClickIcon(point, screenPoint);
     }
   }
 
+  /**
+   * Load the POI data from the assets folder on a background thread.
+   */
+  private void loadPoiData() {
+    loadPoiDataRequest = GeoJsonAssetLoader.getInstance(this).load("sf_poi.geojson",
+      new GeoJsonAssetLoader.Callback() {
+        @Override
+        public void onLoaded(@NonNull FeatureCollection featureCollection) {
+          setupData(featureCollection);
+          new GenerateViewIconTask(SymbolLayerMapillaryActivity.this).execute(featureCollection);
+        }
+
+        @Override
+        public void onError(@NonNull Exception exception) {
+          Timber.e(exception);
+        }
+      });
+  }
+
   public void setupData(final FeatureCollection collection) {
     if (mapboxMap == null) {
       return;
     }
 
     featureCollection = collection;
+    List<Feature> features = featureCollection.features();
+    PackedCoordinates positions = new PackedCoordinates(features.size());
+    for (int i = 0; i < features.size(); i++) {
+      Feature feature = features.get(i);
+      boolean favourite = feature.getBooleanProperty(PROPERTY_FAVOURITE);
+      feature.addStringProperty(PROPERTY_CALLOUT, getCalloutKey(feature, favourite));
+
+      // rendered features carry their index, so a tapped feature is found without scanning the list
+      feature.addNumberProperty(PROPERTY_INDEX, i);
+      Point point = (Point) feature.geometry();
+      positions.add(WebMercator.longitudeToX(point.longitude()), WebMercator.latitudeToY(point.latitude()));
+    }
+    poiIndex = new KdPointIndex(positions);
     setupSource();
     setupMakiLayer();
+    setupSelectionLayers();
     setupLoadingLayer();
     setupCalloutLayer();
     setupRecyclerView();
@@ -221,17 +269,11 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     mapboxMap.addSource(source);
   }
 
-  private void refreshSource() {
-    if (source != null && featureCollection != null) {
-      source.setGeoJson(featureCollection);
-    }
-  }
-
   /**
    * Setup a layer with maki icons, eg. restaurant.
    */
   private void setupMakiLayer() {
-    mapboxMap.addLayer(new SymbolLayer(MAKI_LAYER_ID, SOURCE_ID)
+    makiLayer = new SymbolLayer(MAKI_LAYER_ID, SOURCE_ID)
       .withProperties(
         /* show maki icon based on the value of poi feature property
          * https://www.mapbox.com/maki-icons/
@@ -239,50 +281,104 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
         iconImage("{poi}-15"),
 
         /* allows show all icons */
+        iconAllowOverlap(true)
+      );
+    mapboxMap.addLayer(makiLayer);
+  }
+
+  /**
+   * Setup the source and layer showing the selected feature.
+   * <p>
+   * The selected feature is copied into a source of its own, drawn with a larger maki icon and its
+   * callout, while the maki layer filters it out by index. Selecting a feature or toggling its favourite
+   * state only updates that single feature and the filter, the POI source is never pushed again.
+   * </p>
+   */
+  private void setupSelectionLayers() {
+    selectionSource = new GeoJsonSource(SELECTION_SOURCE_ID, FeatureCollection.fromFeatures(new Feature[] {}));
+    mapboxMap.addSource(selectionSource);
+
+    mapboxMap.addLayer(new SymbolLayer(SELECTED_MAKI_LAYER_ID, SELECTION_SOURCE_ID)
+      .withProperties(
+        iconImage("{poi}-15"),
         iconAllowOverlap(true),
 
-        /* when feature is in selected state, grow icon */
-        iconSize(match(get(PROPERTY_SELECTED), literal(1.0f),
-          stop(true, 1.5f))))
+        /* grow the icon of the selected feature */
+        iconSize(1.5f)
+      )
     );
   }
 
+  /**
+   * Show the selected feature, if any, in the selection source and hide it from the maki layer.
+   */
+  private void refreshSelection() {
+    if (selectionSource == null || makiLayer == null) {
+      return;
+    }
+    Feature feature = getSelectedFeature();
+    selectionSource.setGeoJson(feature != null
+      ? FeatureCollection.fromFeatures(new Feature[] {feature})
+      : FeatureCollection.fromFeatures(new Feature[] {}));
+    makiLayer.setFilter(neq(get(PROPERTY_INDEX), literal(selectedIndex)));
+  }
+
   /**
    * Setup layer indicating that there is an ongoing progress.
+   * <p>
+   * The layer has its own source holding only the feature that is loading, and the progress animation
+   * changes the radius of the layer. Animating it never touches the POI source.
+   * </p>
    */
   private void setupLoadingLayer() {
-    mapboxMap.addLayerBelow(new CircleLayer(LOADING_LAYER_ID, SOURCE_ID)
-        .withProperties(
-          circleRadius(interpolate(exponential(1), get(PROPERTY_LOADING_PROGRESS), getLoadingAnimationStops())),
-          circleColor(Color.GRAY),
-          circleOpacity(0.6f)
-        )
-        /*.withFilter(eq(PROPERTY_LOADING, true)),*/
-        .withFilter(eq((get(PROPERTY_LOADING)), literal(0))),
-      MAKI_LAYER_ID
-    );
+    loadingSource = new GeoJsonSource(LOADING_SOURCE_ID, FeatureCollection.fromFeatures(new Feature[] {}));
+    mapboxMap.addSource(loadingSource);
+
+    loadingLayer = new CircleLayer(LOADING_LAYER_ID, LOADING_SOURCE_ID)
+      .withProperties(
+        circleRadius(0f),
+        circleColor(Color.GRAY),
+        circleOpacity(0.6f)
+      );
+    mapboxMap.addLayerBelow(loadingLayer, MAKI_LAYER_ID);
   }
 
-  private Expression.Stop[] getLoadingAnimationStops() {
-    List<Expression.Stop> stops = new ArrayList<>();
-    for (int i = 0; i < LOADING_PROGRESS_STEPS; i++) {
-      stops.add(stop(i, LOADING_CIRCLE_RADIUS * i / LOADING_PROGRESS_STEPS));
+  /**
+   * Show the loading indicator around a feature.
+   *
+   * @param feature the feature that is loading, or null to hide the indicator
+   */
+  private void setLoadingFeature(Feature feature) {
+    if (loadingSource == null) {
+      return;
     }
+    loadingSource.setGeoJson(feature != null
+      ? FeatureCollection.fromFeatures(new Feature[] {Feature.fromGeometry(feature.geometry())})
+      : FeatureCollection.fromFeatures(new Feature[] {}));
+  }
 
-    return stops.toArray(new Expression.Stop[LOADING_PROGRESS_STEPS]);
+  /**
+   * Grow or shrink the loading indicator.
+   *
+   * @param progress the step of the progress animation, from 0 to {@link #LOADING_PROGRESS_STEPS}
+   */
+  private void setLoadingProgress(int progress) {
+    if (loadingLayer != null) {
+      loadingLayer.setProperties(circleRadius(LOADING_CIRCLE_RADIUS * progress / LOADING_PROGRESS_STEPS));
+    }
   }
 
   /**
    * Setup a layer with Android SDK call-outs
    * <p>
-   * title of the feature is used as key for the iconImage
+   * The layer draws from the selection source, so only the selected feature has a callout.
    * </p>
    */
   private void setupCalloutLayer() {
-    mapboxMap.addLayer(new SymbolLayer(CALLOUT_LAYER_ID, SOURCE_ID)
+    mapboxMap.addLayer(new SymbolLayer(CALLOUT_LAYER_ID, SELECTION_SOURCE_ID)
       .withProperties(
-        /* show image with id title based on the value of the title feature property */
-        iconImage("{title}"),
+        /* show image with the id stored in the callout feature property */
+        iconImage("{" + PROPERTY_CALLOUT + "}"),
 
         /* set anchor of icon to bottom-left */
         iconAnchor("bottom-left"),
@@ -290,9 +386,7 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
         /* offset icon slightly to match bubble layout */
         iconOffset(new Float[] {-20.0f, -10.0f})
       )
-
-      /* add a filter to show only when selected feature property is true */
-      .withFilter(eq((get(PROPERTY_SELECTED)), literal(true))));
+    );
   }
 
   private void setupRecyclerView() {
@@ -342,19 +436,13 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
    * @param symbolScreenPoint the point of the symbol on screen
    */
   private void handleClickCallout(Feature feature, PointF screenPoint, PointF symbolScreenPoint) {
-    View view = viewMap.get(feature.getStringProperty(PROPERTY_TITLE));
-    View textContainer = view.findViewById(R.id.text_container);
-
-    // create hitbox for textView
-    Rect hitRectText = new Rect();
-    textContainer.getHitRect(hitRectText);
+    // create hitbox for textView, offset vertically to match anchor behaviour
+    Rect hitRectText = calloutRenderer.getTextHitRect(feature.getStringProperty(PROPERTY_TITLE),
+      feature.getStringProperty(PROPERTY_STYLE), feature.getBooleanProperty(PROPERTY_FAVOURITE), new Rect());
 
     // move hitbox to location of symbol
     hitRectText.offset((int) symbolScreenPoint.x, (int) symbolScreenPoint.y);
 
-    // offset vertically to match anchor behaviour
-    hitRectText.offset(0, -view.getMeasuredHeight());
-
     // hit test if clicked point is in textview hitbox
     if (hitRectText.contains((int) screenPoint.x, (int) screenPoint.y)) {
       // user clicked on text
@@ -362,33 +450,63 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
       Toast.makeText(this, callout, Toast.LENGTH_LONG).show();
     } else {
       // user clicked on icon
-      List<Feature> featureList = featureCollection.features();
-      for (int i = 0; i < featureList.size(); i++) {
-        if (featureList.get(i).getStringProperty(PROPERTY_TITLE).equals(feature.getStringProperty(PROPERTY_TITLE))) {
-          toggleFavourite(i);
-        }
-      }
+      toggleFavourite(feature.getNumberProperty(PROPERTY_INDEX).intValue());
     }
   }
 
   /**
    * This method handles click events for maki symbols.
    * <p>
-   * When a maki symbol is clicked, we moved that feature to the selected state.
+   * When a maki symbol is clicked, we moved that feature to the selected state. The POI closest to the
+   * click, within {@link #ICON_HIT_RADIUS}, is looked up in a spatial index of all POIs, so taps away from
+   * any POI are dismissed without querying the map. The map is then only asked which symbols the maki
+   * layer actually draws there: if the closest POI is the selected one, which the maki layer hides, or its
+   * symbol was dropped by collision, the closest drawn POI is selected instead.
    * </p>
    *
+   * @param point       the location clicked
    * @param screenPoint the point on screen clicked
    */
-  private void handleClickIcon(PointF screenPoint) {
-    List<Feature> features = mapboxMap.queryRenderedFeatures(screenPoint, MAKI_LAYER_ID);
-    if (!features.isEmpty()) {
-      String title = features.get(0).getStringProperty(PROPERTY_TITLE);
-      List<Feature> featureList = featureCollection.features();
-      for (int i = 0; i < featureList.size(); i++) {
-        if (featureList.get(i).getStringProperty(PROPERTY_TITLE).equals(title)) {
-          setSelected(i, true);
-        }
+  private void handleClickIcon(LatLng point, PointF screenPoint) {
+    if (poiIndex == null) {
+      return;
+    }
+    double x = WebMercator.longitudeToX(point.getLongitude());
+    double y = WebMercator.latitudeToY(point.getLatitude());
+    double radius = WebMercator.pixelsToWorld(ICON_HIT_RADIUS, mapboxMap.getCameraPosition().zoom);
+    int nearest = poiIndex.nearest(x, y, radius);
+    if (nearest < 0) {
+      return;
+    }
+
+    float hitRadius = ICON_HIT_RADIUS * getResources().getDisplayMetrics().density;
+    List<Feature> rendered = mapboxMap.queryRenderedFeatures(new RectF(screenPoint.x - hitRadius,
+      screenPoint.y - hitRadius, screenPoint.x + hitRadius, screenPoint.y + hitRadius), MAKI_LAYER_ID);
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    int nearestRendered = -1;
+    for (Feature feature : rendered) {
+      if (!feature.hasProperty(PROPERTY_INDEX) || !(feature.geometry() instanceof Point)) {
+        continue;
+      }
+      int index = feature.getNumberProperty(PROPERTY_INDEX).intValue();
+      if (index == selectedIndex) {
+        continue;
+      }
+      if (index == nearest) {
+        nearestRendered = index;
+        break;
       }
+      Point position = (Point) feature.geometry();
+      double dx = WebMercator.longitudeToX(position.longitude()) - x;
+      double dy = WebMercator.latitudeToY(position.latitude()) - y;
+      double distance = dx * dx + dy * dy;
+      if (distance < nearestDistance) {
+        nearestRendered = index;
+        nearestDistance = distance;
+      }
+    }
+    if (nearestRendered >= 0) {
+      setSelected(nearestRendered, true);
     }
   }
 
@@ -405,10 +523,10 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
 
     deselectAll(false);
 
+    selectFeature(index);
     Feature feature = featureCollection.features().get(index);
-    selectFeature(feature);
     animateCameraToSelection(feature);
-    refreshSource();
+    refreshSelection();
     loadMapillaryData(feature);
 
     if (withScroll) {
@@ -417,12 +535,10 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
   }
 
   /**
-   * Deselects the state of all the features
+   * Deselects the state of all the features, call {@link #refreshSelection()} to update the map
    */
   private void deselectAll(boolean hideRecycler) {
-    for (Feature feature : featureCollection.features()) {
-      feature.properties().addProperty(PROPERTY_SELECTED, false);
-    }
+    selectedIndex = -1;
 
     if (hideRecycler) {
       recyclerView.setVisibility(View.GONE);
@@ -432,19 +548,15 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
   /**
    * Selects the state of a feature
    *
-   * @param feature the feature to be selected.
+   * @param index the index of the feature to be selected.
    */
-  private void selectFeature(Feature feature) {
-    feature.properties().addProperty(PROPERTY_SELECTED, true);
+  private void selectFeature(int index) {
+    selectedIndex = index;
   }
 
   private Feature getSelectedFeature() {
-    if (featureCollection != null) {
-      for (Feature feature : featureCollection.features()) {
-        if (feature.getBooleanProperty(PROPERTY_SELECTED)) {
-          return feature;
-        }
-      }
+    if (featureCollection != null && selectedIndex >= 0) {
+      return featureCollection.features().get(selectedIndex);
     }
 
     return null;
@@ -479,12 +591,12 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
 
   private void loadMapillaryData(Feature feature) {
     if (loadMapillaryDataTask != null) {
-      loadMapillaryDataTask.cancel(true);
+      loadMapillaryDataTask.cancel();
     }
 
     loadMapillaryDataTask = new LoadMapillaryDataTask(this,
-      mapboxMap, Picasso.with(getApplicationContext()), new Handler(), feature);
-    loadMapillaryDataTask.execute(50);
+      mapboxMap, mapillaryDataLoader, mapillaryClusters, new Handler(), feature);
+    loadMapillaryDataTask.start();
   }
 
   /**
@@ -494,28 +606,40 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
    */
   private void toggleFavourite(int index) {
     Feature feature = featureCollection.features().get(index);
-    String title = feature.getStringProperty(PROPERTY_TITLE);
-    boolean currentState = feature.getBooleanProperty(PROPERTY_FAVOURITE);
-    feature.properties().addProperty(PROPERTY_FAVOURITE, !currentState);
-    View view = viewMap.get(title);
-
-    ImageView imageView = (ImageView) view.findViewById(R.id.logoView);
-    imageView.setImageResource(currentState ? R.drawable.ic_favorite : R.drawable.ic_favorite_border);
-    Bitmap bitmap = SymbolGenerator.generate(view);
-    mapboxMap.addImage(title, bitmap);
-    refreshSource();
+    boolean favourite = !feature.getBooleanProperty(PROPERTY_FAVOURITE);
+    String key = getCalloutKey(feature, favourite);
+
+    Bitmap bitmap = calloutIconCache.getFromMemory(key);
+    if (bitmap == null) {
+      bitmap = calloutRenderer.render(feature.getStringProperty(PROPERTY_TITLE),
+        feature.getStringProperty(PROPERTY_STYLE), favourite);
+      calloutIconCache.put(key, bitmap);
+    }
+    mapboxMap.addImage(key, bitmap);
+
+    feature.properties().addProperty(PROPERTY_FAVOURITE, favourite);
+    feature.properties().addProperty(PROPERTY_CALLOUT, key);
+    if (index == selectedIndex) {
+      refreshSelection();
+    }
+  }
+
+  private static String getCalloutKey(Feature feature, boolean favourite) {
+    return CalloutIconCache.key(feature.getStringProperty(PROPERTY_TITLE), feature.getStringProperty(PROPERTY_STYLE),
+      favourite);
   }
 
   /**
-   * Invoked when the bitmaps have been generated from a view.
+   * Invoked with each chunk of bitmaps loaded or generated for the callouts.
    */
-  public void setImageGenResults(HashMap<String, View> viewMap, HashMap<String, Bitmap> imageMap) {
-    if (mapboxMap != null) {
-      // calling addImages is faster as separate addImage calls for each bitmap.
-      mapboxMap.addImages(imageMap);
+  public void addCalloutImages(Map<String, Bitmap> imageMap) {
+    if (mapboxMap == null) {
+      return;
+    }
+    for (Map.Entry<String, Bitmap> entry : imageMap.entrySet()) {
+      // addImage copies the pixels right away, the bitmap stays in the callout cache
+      mapboxMap.addImage(entry.getKey(), entry.getValue());
     }
-    // need to store reference to views to be able to use them as hitboxes for click events.
-    this.viewMap = viewMap;
   }
 
   private void setActivityStep(@ActivityStep int activityStep) {
@@ -549,7 +673,7 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     super.onStop();
 
     if (loadMapillaryDataTask != null) {
-      loadMapillaryDataTask.cancel(true);
+      loadMapillaryDataTask.cancel();
     }
     mapView.onStop();
   }
@@ -569,8 +693,13 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    if (loadPoiDataRequest != null) {
+      loadPoiDataRequest.cancel();
+    }
+    mapillaryDataLoader.shutdown();
     if (mapboxMap != null) {
       mapboxMap.removeOnMapClickListener(this);
+      mapillaryClusters.release();
     }
     mapView.onDestroy();
   }
@@ -579,11 +708,11 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
   public void onBackPressed() {
     if (currentStep == STEP_LOADING || currentStep == STEP_READY) {
       if (loadMapillaryDataTask != null) {
-        loadMapillaryDataTask.cancel(true);
+        loadMapillaryDataTask.cancel();
       }
       setActivityStep(STEP_INITIAL);
       deselectAll(true);
-      refreshSource();
+      refreshSelection();
     } else {
       super.onBackPressed();
     }
@@ -663,331 +792,270 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     }
   }
 
-  /**
-   * AsyncTask to load data from the assets folder.
-   */
-  private static class LoadPoiDataTask extends AsyncTask<Void, Void, FeatureCollection> {
-
-    private final WeakReference<SymbolLayerMapillaryActivity> activityRef;
-
-    LoadPoiDataTask(SymbolLayerMapillaryActivity activity) {
-      this.activityRef = new WeakReference<>(activity);
-    }
-
-    @Override
-    protected FeatureCollection doInBackground(Void... params) {
-      SymbolLayerMapillaryActivity activity = activityRef.get();
-
-      if (activity == null) {
-        return null;
-      }
-
-      String geoJson = loadGeoJsonFromAsset(activity, "sf_poi.geojson");
-      return FeatureCollection.fromJson(geoJson);
-    }
-
-    @Override
-    protected void onPostExecute(FeatureCollection featureCollection) {
-      super.onPostExecute(featureCollection);
-      SymbolLayerMapillaryActivity activity = activityRef.get();
-      if (featureCollection == null || activity == null) {
-        return;
-      }
-      activity.setupData(featureCollection);
-      new GenerateViewIconTask(activity).execute(featureCollection);
-    }
-
-    static String loadGeoJsonFromAsset(Context context, String filename) {
-      try {
-        // Load GeoJSON file from local asset folder
-        InputStream is = context.getAssets().open(filename);
-        int size = is.available();
-        byte[] buffer = new byte[size];
-        is.read(buffer);
-        is.close();
-        return new String(buffer, "UTF-8");
-      } catch (Exception exception) {
-        throw new RuntimeException(exception);
-      }
-    }
-  }
-
   /**
    * AsyncTask to generate Bitmap from Views to be used as iconImage in a SymbolLayer.
    * <p>
-   * Call be optionally be called to update the underlying data source after execution.
+   * Call be optionally be called to update the selected feature after execution.
    * </p>
    * <p>
    * Generating Views on background thread since we are not going to be adding them to the view hierarchy.
    * </p>
    */
-  private static class GenerateViewIconTask extends AsyncTask<FeatureCollection, Void, HashMap<String, Bitmap>> {
+  private static class GenerateViewIconTask extends AsyncTask<FeatureCollection, HashMap<String, Bitmap>, Void> {
 
-    private final HashMap<String, View> viewMap = new HashMap<>();
     private final WeakReference<SymbolLayerMapillaryActivity> activityRef;
-    private final boolean refreshSource;
+    private final boolean refreshSelection;
 
-    GenerateViewIconTask(SymbolLayerMapillaryActivity activity, boolean refreshSource) {
+    GenerateViewIconTask(SymbolLayerMapillaryActivity activity, boolean refreshSelection) {
       this.activityRef = new WeakReference<>(activity);
-      this.refreshSource = refreshSource;
+      this.refreshSelection = refreshSelection;
     }
 
     GenerateViewIconTask(SymbolLayerMapillaryActivity activity) {
       this(activity, false);
     }
 
-    @SuppressWarnings("WrongThread")
+    @SuppressWarnings( {"WrongThread", "unchecked"})
     @Override
-    protected HashMap<String, Bitmap> doInBackground(FeatureCollection... params) {
+    protected Void doInBackground(FeatureCollection... params) {
       SymbolLayerMapillaryActivity activity = activityRef.get();
-      if (activity != null) {
-        HashMap<String, Bitmap> imagesMap = new HashMap<>();
-        LayoutInflater inflater = LayoutInflater.from(activity);
-        FeatureCollection featureCollection = params[0];
-
-        for (Feature feature : featureCollection.features()) {
-          View view = inflater.inflate(R.layout.layout_callout, null);
-
-          String name = feature.getStringProperty(PROPERTY_TITLE);
-          TextView titleTv = (TextView) view.findViewById(R.id.title);
-          titleTv.setText(name);
-
-          String style = feature.getStringProperty(PROPERTY_STYLE);
-          TextView styleTv = (TextView) view.findViewById(R.id.style);
-          styleTv.setText(style);
+      if (activity == null) {
+        return null;
+      }
+      CalloutRenderer renderer = activity.calloutRenderer;
+      CalloutIconCache cache = activity.calloutIconCache;
 
-          boolean favourite = feature.getBooleanProperty(PROPERTY_FAVOURITE);
-          ImageView imageView = (ImageView) view.findViewById(R.id.logoView);
-          imageView.setImageResource(favourite ? R.drawable.ic_favorite : R.drawable.ic_favorite_border);
+      // Callouts drawn before, in this process or a previous one, come from the cache. Hand the bitmaps
+      // over in chunks, so they show up on the map while the rest are still being loaded or drawn
+      HashMap<String, Bitmap> imagesMap = new HashMap<>();
+      for (Feature feature : params[0].features()) {
+        if (isCancelled()) {
+          return null;
+        }
+        String key = feature.getStringProperty(PROPERTY_CALLOUT);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+          bitmap = renderer.render(feature.getStringProperty(PROPERTY_TITLE),
+            feature.getStringProperty(PROPERTY_STYLE), feature.getBooleanProperty(PROPERTY_FAVOURITE));
+          cache.put(key, bitmap);
+        }
+        imagesMap.put(key, bitmap);
 
-          Bitmap bitmap = SymbolGenerator.generate(view);
-          imagesMap.put(name, bitmap);
-          viewMap.put(name, view);
+        if (imagesMap.size() == CALLOUT_CHUNK_SIZE) {
+          publishProgress(imagesMap);
+          imagesMap = new HashMap<>();
         }
+      }
+      if (!imagesMap.isEmpty()) {
+        publishProgress(imagesMap);
+      }
+      return null;
+    }
 
-        return imagesMap;
-      } else {
-        return null;
+    @Override
+    protected void onProgressUpdate(HashMap<String, Bitmap>... chunks) {
+      super.onProgressUpdate(chunks);
+      SymbolLayerMapillaryActivity activity = activityRef.get();
+      if (activity != null) {
+        activity.addCalloutImages(chunks[0]);
       }
     }
 
     @Override
-    protected void onPostExecute(HashMap<String, Bitmap> bitmapHashMap) {
-      super.onPostExecute(bitmapHashMap);
+    protected void onPostExecute(Void result) {
+      super.onPostExecute(result);
       SymbolLayerMapillaryActivity activity = activityRef.get();
-      if (activity != null && bitmapHashMap != null) {
-        activity.setImageGenResults(viewMap, bitmapHashMap);
-        if (refreshSource) {
-          activity.refreshSource();
-        }
+      if (activity != null && refreshSelection) {
+        activity.refreshSelection();
       }
     }
   }
 
   /**
-   * Async task which fetches pictures from around the POI using Mapillary services.
-   * https://www.mapillary.com/developer/api-documentation/
+   * Fetches pictures from around the POI using Mapillary services and shows them on the map as they arrive.
    */
-  private static class LoadMapillaryDataTask extends AsyncTask<Integer, Void, MapillaryDataLoadResult> {
+  private static class LoadMapillaryDataTask implements MapillaryDataLoader.Callback {
 
-    static final String URL_IMAGE_PLACEHOLDER = "https://d1cuyjsrcm0gby.cloudfront.net/%s/thumb-320.jpg";
-    static final String KEY_UNIQUE_FEATURE = "key";
-    static final String TOKEN_UNIQUE_FEATURE = "{" + KEY_UNIQUE_FEATURE + "}";
+    static final String TOKEN_UNIQUE_FEATURE = "{" + MapillaryDataLoader.KEY_UNIQUE_FEATURE + "}";
     static final String ID_SOURCE = "cluster_source";
     static final String ID_LAYER_UNCLUSTERED = "unclustered_layer";
-    static final int IMAGE_SIZE = 128;
-    static final String API_URL = "https://a.mapillary.com/v3/images/"
-      + "?lookat=%f,%f&closeto=%f,%f&radius=%d"
-      + "&client_id=bjgtc1FDTnFPaXpxeTZuUDNabmJ5dzozOGE1ODhkMmEyYTkyZTI4";
+    static final String PROPERTY_THUMBNAIL_LOADED = "thumbnail_loaded";
+    static final int SEARCH_RADIUS = 50;
 
     private WeakReference<SymbolLayerMapillaryActivity> activityRef;
     private MapboxMap map;
-    private Picasso picasso;
+    private MapillaryDataLoader loader;
+    private ClusterSourceUpdater clusters;
     private final Handler progressHandler;
     private int loadingProgress;
     private boolean loadingIncrease = true;
+    private boolean loading;
     private Feature feature;
+    private MapillaryDataLoader.Job job;
+    private final List<Feature> loadedFeatures = new ArrayList<>();
+    private int featureCount;
+    private boolean sourceUpdatePending;
 
-    public LoadMapillaryDataTask(SymbolLayerMapillaryActivity activity, MapboxMap map, Picasso picasso,
-                                 Handler progressHandler, Feature feature) {
+    public LoadMapillaryDataTask(SymbolLayerMapillaryActivity activity, MapboxMap map, MapillaryDataLoader loader,
+                                 ClusterSourceUpdater clusters, Handler progressHandler, Feature feature) {
       this.activityRef = new WeakReference<>(activity);
       this.map = map;
-      this.picasso = picasso;
+      this.loader = loader;
+      this.clusters = clusters;
       this.progressHandler = progressHandler;
       this.feature = feature;
     }
 
-    @Override
-    protected void onPreExecute() {
-      super.onPreExecute();
+    void start() {
       loadingProgress = 0;
       setLoadingState(true, false);
+      progressHandler.post(progressRunnable);
+      job = loader.load((Point) feature.geometry(), SEARCH_RADIUS, this);
     }
 
-    @Override
-    protected MapillaryDataLoadResult doInBackground(Integer... radius) {
-      progressHandler.post(progressRunnable);
-      try {
-        Thread.sleep(2500); //ensure loading visualisation
-      } catch (InterruptedException exception) {
-        exception.printStackTrace();
+    void cancel() {
+      if (job != null) {
+        job.cancel();
       }
-      OkHttpClient okHttpClient = new OkHttpClient();
-      try {
-        Point poiPosition = (Point) feature.geometry();
-
-        @SuppressLint("DefaultLocale") Request request = new Request.Builder()
-          .url(String.format(API_URL,
-            poiPosition.longitude(), poiPosition.latitude(),
-            poiPosition.longitude(), poiPosition.latitude(),
-            radius[0]
-          ))
-          .build();
-
-        Response response = okHttpClient.newCall(request).execute();
-        FeatureCollection featureCollection = FeatureCollection.fromJson(response.body().string());
-        MapillaryDataLoadResult mapillaryDataLoadResult = new MapillaryDataLoadResult(featureCollection);
-        for (Feature feature : featureCollection.features()) {
-          String imageId = feature.getStringProperty(KEY_UNIQUE_FEATURE);
-          String imageUrl = String.format(URL_IMAGE_PLACEHOLDER, imageId);
-          Bitmap bitmap = picasso.load(imageUrl).resize(IMAGE_SIZE, IMAGE_SIZE).get();
-
-          //cropping bitmap to be circular
-          bitmap = getCroppedBitmap(bitmap);
-
-          mapillaryDataLoadResult.add(feature, bitmap);
-        }
-        return mapillaryDataLoadResult;
+      progressHandler.removeCallbacksAndMessages(null);
+      if (loading) {
+        setLoadingState(false, false);
+      }
+    }
 
-      } catch (Exception exception) {
-        Timber.e(exception);
+    @Override
+    public void onFeaturesLoaded(@NonNull FeatureCollection featureCollection) {
+      // Every image found is clustered once, thumbnails only show their point as they arrive
+      List<Feature> features = featureCollection.features() != null
+        ? new ArrayList<>(featureCollection.features()) : new ArrayList<Feature>();
+      loadedFeatures.clear();
+      featureCount = features.size();
+      clusters.setFeatures(features);
+      GeoJsonSource mapillarySource = (GeoJsonSource) map.getSource(ID_SOURCE);
+      if (mapillarySource == null) {
+        setupMapillaryLayers();
+      } else {
+        mapillarySource.setGeoJson(FeatureCollection.fromFeatures(new Feature[] {}));
       }
-      return null;
     }
 
     @Override
-    protected void onPostExecute(MapillaryDataLoadResult mapillaryDataLoadResult) {
-      super.onPostExecute(mapillaryDataLoadResult);
-      setLoadingState(false, true);
-      if (mapillaryDataLoadResult == null) {
-        SymbolLayerMapillaryActivity activity = activityRef.get();
-        if (activity != null) {
-          Toast.makeText(activity, "Error. Unable to load Mapillary data.", Toast.LENGTH_LONG).show();
-        }
-        return;
+    public void onImageLoaded(@NonNull Feature feature, @NonNull Bitmap bitmap) {
+      if (loading) {
+        // Markers are shown as soon as the first one is ready
+        setLoadingState(false, true);
+      }
+      map.addImage(feature.getStringProperty(MapillaryDataLoader.KEY_UNIQUE_FEATURE), bitmap);
+      feature.addBooleanProperty(PROPERTY_THUMBNAIL_LOADED, true);
+      loadedFeatures.add(feature);
+
+      // Thumbnails that arrive together are shown in a single update, without clustering again
+      if (!sourceUpdatePending) {
+        sourceUpdatePending = true;
+        progressHandler.post(sourceUpdateRunnable);
       }
+    }
 
-      FeatureCollection featureCollection = mapillaryDataLoadResult.mapillaryFeatureCollection;
+    @Override
+    public void onComplete() {
+      if (loading) {
+        setLoadingState(false, true);
+      }
+      if (loadedFeatures.size() < featureCount) {
+        // Some thumbnails failed, cluster again once so the cluster counts leave them out
+        featureCount = loadedFeatures.size();
+        clusters.setFeatures(new ArrayList<>(loadedFeatures));
+      }
+    }
 
-      Map<Feature, Bitmap> bitmapMap = mapillaryDataLoadResult.bitmapHashMap;
-      for (Map.Entry<Feature, Bitmap> featureBitmapEntry : bitmapMap.entrySet()) {
-        Feature feature = featureBitmapEntry.getKey();
-        String key = feature.getStringProperty(KEY_UNIQUE_FEATURE);
-        map.addImage(key, featureBitmapEntry.getValue());
+    @Override
+    public void onError(@NonNull Exception exception) {
+      Timber.e(exception);
+      setLoadingState(false, true);
+      SymbolLayerMapillaryActivity activity = activityRef.get();
+      if (activity != null) {
+        Toast.makeText(activity, "Error. Unable to load Mapillary data.", Toast.LENGTH_LONG).show();
       }
+    }
 
-      GeoJsonSource mapillarySource = (GeoJsonSource) map.getSource(ID_SOURCE);
-      if (mapillarySource == null) {
-        map.addSource(new GeoJsonSource(ID_SOURCE, featureCollection, new GeoJsonOptions()
-          .withCluster(true)
-          .withClusterMaxZoom(17)
-          .withClusterRadius(IMAGE_SIZE / 3)
-        ));
-
-        // unclustered
-        map.addLayerBelow(new SymbolLayer(ID_LAYER_UNCLUSTERED, ID_SOURCE).withProperties(
-          iconImage(TOKEN_UNIQUE_FEATURE),
-          iconAllowOverlap(true),
-          iconSize(interpolate(exponential(1f), zoom(),
-            stop(18, 1.7f),
-            stop(17, 1.4f),
-            stop(16, 1.1f),
-            stop(15, 0.8f),
-            stop(12, 0.0f)))), MAKI_LAYER_ID);
-
-        // clustered
-        int[][] layers = new int[][] {
-          new int[] {20, Color.RED},
-          new int[] {10, Color.BLUE},
-          new int[] {0, Color.GREEN}
-        };
-
-        for (int i = 0; i < layers.length; i++) {
-
-          Expression pointCount = toNumber(Expression.get("point_count"));
-
-          //Add cluster circles
-          CircleLayer clusterLayer = new CircleLayer("cluster-" + i, ID_SOURCE);
-          clusterLayer.setProperties(
-            circleColor(layers[i][1]),
-            circleRadius(
-              interpolate(
-                exponential(1f),
-                zoom(),
-                stop(12, 10f),
-                stop(14, 16f),
-                stop(15, 18f),
-                stop(16, 20f)
-              )
-            ),
-            circleOpacity(0.6f));
-          // Add a filter to the cluster layer that hides the circles based on "point_count"
-          clusterLayer.setFilter(
-            i == 0
-              ? gte(pointCount, literal(layers[i][0])) :
-              all(
-                gte(pointCount, literal(layers[i][0])),
-                lt(pointCount, literal(layers[i - 1][0]))
-              )
-          );
-          map.addLayerBelow(clusterLayer, MAKI_LAYER_ID);
-        }
+    private void setupMapillaryLayers() {
+      // Not clustered by the map, the clusters are given to the source by the ClusterSourceUpdater
+      map.addSource(new GeoJsonSource(ID_SOURCE, FeatureCollection.fromFeatures(new Feature[] {})));
 
-        //Add the count labels
-        SymbolLayer count = new SymbolLayer("count", ID_SOURCE);
-        count.setProperties(
-          textField("{point_count}"),
-          textSize(8f),
-          textOffset(new Float[] {0.0f, 0.0f}),
-          textColor(Color.WHITE),
-          textIgnorePlacement(true)
+      // unclustered
+      SymbolLayer unclustered = new SymbolLayer(ID_LAYER_UNCLUSTERED, ID_SOURCE);
+      unclustered.setFilter(eq(get(PROPERTY_THUMBNAIL_LOADED), literal(true)));
+      map.addLayerBelow(unclustered.withProperties(
+        iconImage(TOKEN_UNIQUE_FEATURE),
+        iconAllowOverlap(true),
+        iconSize(interpolate(exponential(1f), zoom(),
+          stop(18, 1.7f),
+          stop(17, 1.4f),
+          stop(16, 1.1f),
+          stop(15, 0.8f),
+          stop(12, 0.0f)))), MAKI_LAYER_ID);
+
+      // clustered
+      int[][] layers = new int[][] {
+        new int[] {20, Color.RED},
+        new int[] {10, Color.BLUE},
+        new int[] {0, Color.GREEN}
+      };
+
+      for (int i = 0; i < layers.length; i++) {
+
+        Expression pointCount = toNumber(Expression.get("point_count"));
+
+        //Add cluster circles
+        CircleLayer clusterLayer = new CircleLayer("cluster-" + i, ID_SOURCE);
+        clusterLayer.setProperties(
+          circleColor(layers[i][1]),
+          circleRadius(
+            interpolate(
+              exponential(1f),
+              zoom(),
+              stop(12, 10f),
+              stop(14, 16f),
+              stop(15, 18f),
+              stop(16, 20f)
+            )
+          ),
+          circleOpacity(0.6f));
+        // Add a filter to the cluster layer that hides the circles based on "point_count"
+        clusterLayer.setFilter(
+          i == 0
+            ? gte(pointCount, literal(layers[i][0])) :
+            all(
+              gte(pointCount, literal(layers[i][0])),
+              lt(pointCount, literal(layers[i - 1][0]))
+            )
         );
-        map.addLayerBelow(count, MAKI_LAYER_ID);
-      } else {
-        mapillarySource.setGeoJson(featureCollection);
+        map.addLayerBelow(clusterLayer, MAKI_LAYER_ID);
       }
-    }
 
-    static Bitmap getCroppedBitmap(Bitmap bitmap) {
-      Bitmap output = Bitmap.createBitmap(bitmap.getWidth(),
-        bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-      Canvas canvas = new Canvas(output);
-
-      final int color = 0xff424242;
-      final Paint paint = new Paint();
-      final Rect rect = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
-
-      paint.setAntiAlias(true);
-      canvas.drawARGB(0, 0, 0, 0);
-      paint.setColor(color);
-      // canvas.drawRoundRect(rectF, roundPx, roundPx, paint);
-      canvas.drawCircle(bitmap.getWidth() / 2, bitmap.getHeight() / 2,
-        bitmap.getWidth() / 2, paint);
-      paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-      canvas.drawBitmap(bitmap, rect, rect, paint);
-      //Bitmap _bmp = Bitmap.createScaledBitmap(output, 60, 60, false);
-      //return _bmp;
-      return output;
+      //Add the count labels
+      SymbolLayer count = new SymbolLayer("count", ID_SOURCE);
+      count.setProperties(
+        textField("{point_count}"),
+        textSize(8f),
+        textOffset(new Float[] {0.0f, 0.0f}),
+        textColor(Color.WHITE),
+        textIgnorePlacement(true)
+      );
+      map.addLayerBelow(count, MAKI_LAYER_ID);
     }
 
-    private Runnable progressRunnable = new Runnable() {
+    private Runnable sourceUpdateRunnable = new Runnable() {
       @Override
       public void run() {
-        if (isCancelled()) {
-          setLoadingState(false, false);
-          return;
-        }
+        sourceUpdatePending = false;
+        clusters.refresh();
+      }
+    };
 
+    private Runnable progressRunnable = new Runnable() {
+      @Override
+      public void run() {
         if (loadingIncrease) {
           if (loadingProgress >= LOADING_PROGRESS_STEPS) {
             loadingIncrease = false;
@@ -1000,21 +1068,21 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
 
         loadingProgress = loadingIncrease ? loadingProgress + 1 : loadingProgress - 1;
 
-        feature.addNumberProperty(PROPERTY_LOADING_PROGRESS, loadingProgress);
         SymbolLayerMapillaryActivity activity = activityRef.get();
         if (activity != null) {
-          activity.refreshSource();
+          activity.setLoadingProgress(loadingProgress);
         }
         progressHandler.postDelayed(this, LOADING_STEP_DURATION);
       }
     };
 
     private void setLoadingState(boolean isLoading, boolean isSuccess) {
-      progressHandler.removeCallbacksAndMessages(null);
-      feature.addBooleanProperty(PROPERTY_LOADING, isLoading);
+      loading = isLoading;
+      progressHandler.removeCallbacks(progressRunnable);
       SymbolLayerMapillaryActivity activity = activityRef.get();
       if (activity != null) {
-        activity.refreshSource();
+        activity.setLoadingProgress(0);
+        activity.setLoadingFeature(isLoading ? feature : null);
 
         if (isLoading) { //zooming to a loading state
           activity.setActivityStep(STEP_LOADING);
@@ -1025,49 +1093,6 @@ public class SymbolLayerMapillaryActivity extends AppCompatActivity implements O
     }
   }
 
-  private static class MapillaryDataLoadResult {
-    private final HashMap<Feature, Bitmap> bitmapHashMap = new HashMap<>();
-    private final FeatureCollection mapillaryFeatureCollection;
-
-    MapillaryDataLoadResult(FeatureCollection mapillaryFeatureCollection) {
-      this.mapillaryFeatureCollection = mapillaryFeatureCollection;
-    }
-
-    public void add(Feature feature, Bitmap bitmap) {
-      bitmapHashMap.put(feature, bitmap);
-    }
-  }
-
-  /**
-   * Utility class to generate Bitmaps for Symbol.
-   * <p>
-   * Bitmaps can be added to the map with {@link com.mapbox.mapboxsdk.maps.MapboxMap#addImage(String, Bitmap)}
-   * </p>
-   */
-  private static class SymbolGenerator {
-
-    /**
-     * Generate a Bitmap from an Android SDK View.
-     *
-     * @param view the View to be drawn to a Bitmap
-     * @return the generated bitmap
-     */
-    static Bitmap generate(@NonNull View view) {
-      int measureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
-      view.measure(measureSpec, measureSpec);
-
-      int measuredWidth = view.getMeasuredWidth();
-      int measuredHeight = view.getMeasuredHeight();
-
-      view.layout(0, 0, measuredWidth, measuredHeight);
-      Bitmap bitmap = Bitmap.createBitmap(measuredWidth, measuredHeight, Bitmap.Config.ARGB_8888);
-      bitmap.eraseColor(Color.TRANSPARENT);
-      Canvas canvas = new Canvas(bitmap);
-      view.draw(canvas);
-      return bitmap;
-    }
-  }
-
   /**
    * Util class that creates a Source and a Layer based on Mapillary data.
    * https://www.mapillary.com/developer/tiles-documentation/
@@ -0,0 +1,241 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxandroiddemo.commons.geometry.PackedCoordinates;
+import com.mapbox.mapboxandroiddemo.commons.geometry.Supercluster;
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows point features clustered on a plain, unclustered, GeoJSON source, using a {@link Supercluster}
+ * built in the background, instead of letting the map cluster the source.
+ * <p>
+ * The clusters for every zoom level are built once per set of features. The source is then only given
+ * the points and clusters of the current integer zoom level around the visible region, with the same
+ * {@code cluster}, {@code cluster_id}, {@code point_count} and {@code point_count_abbreviated} properties
+ * the map gives clusters, so layers styling clustered sources work unchanged. A margin of half the
+ * visible region on every side is included, so the source is only updated when the zoom level changes
+ * or the camera moves out of that margin, checked at most once per display frame from the shared
+ * {@link FrameDriver}.
+ * </p>
+ */
+public class ClusterSourceUpdater implements FrameDriver.Listener, MapboxMap.OnCameraMoveListener,
+  MapboxMap.OnCameraIdleListener {
+
+  public static final String PROPERTY_CLUSTER = "cluster";
+  public static final String PROPERTY_CLUSTER_ID = "cluster_id";
+  public static final String PROPERTY_POINT_COUNT = "point_count";
+  public static final String PROPERTY_POINT_COUNT_ABBREVIATED = "point_count_abbreviated";
+
+  private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+  private final MapboxMap mapboxMap;
+  private final String sourceId;
+  private final double radius;
+  private final int maxZoom;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  private Supercluster index;
+  private Feature[] points;
+  private int generation;
+  private boolean scheduled;
+  private boolean released;
+
+  // The region and zoom level the source was last given the clusters of
+  private int shownZoom = -1;
+  private double shownWest;
+  private double shownSouth;
+  private double shownEast;
+  private double shownNorth;
+  private long lastUpdateNanos;
+
+  private List<Feature> clusterFeatures;
+  private final Supercluster.Visitor featureVisitor = new Supercluster.Visitor() {
+    @Override
+    public void visit(int id, double longitude, double latitude, int pointCount) {
+      if (!index.isCluster(id)) {
+        clusterFeatures.add(points[id]);
+        return;
+      }
+      Feature cluster = Feature.fromGeometry(Point.fromLngLat(longitude, latitude));
+      cluster.addBooleanProperty(PROPERTY_CLUSTER, true);
+      cluster.addNumberProperty(PROPERTY_CLUSTER_ID, id);
+      cluster.addNumberProperty(PROPERTY_POINT_COUNT, pointCount);
+      cluster.addStringProperty(PROPERTY_POINT_COUNT_ABBREVIATED, abbreviate(pointCount));
+      clusterFeatures.add(cluster);
+    }
+  };
+
+  /**
+   * @param sourceId the id of the GeoJSON source to update, which may be added to the map later
+   * @param radius   the cluster radius, in pixels
+   * @param maxZoom  the highest zoom level points are clustered at
+   */
+  @MainThread
+  public ClusterSourceUpdater(@NonNull MapboxMap mapboxMap, @NonNull String sourceId, double radius,
+                              int maxZoom) {
+    this.mapboxMap = mapboxMap;
+    this.sourceId = sourceId;
+    this.radius = radius;
+    this.maxZoom = maxZoom;
+    mapboxMap.addOnCameraMoveListener(this);
+    mapboxMap.addOnCameraIdleListener(this);
+  }
+
+  /**
+   * Clusters a new set of features in the background, and shows them once they are. Features that
+   * aren't points are left out, the list must not be changed while it's clustered.
+   */
+  @MainThread
+  public void setFeatures(@NonNull final List<Feature> features) {
+    if (released) {
+      return;
+    }
+    final int requested = ++generation;
+    EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        List<Feature> pointFeatures = new ArrayList<>(features.size());
+        PackedCoordinates coordinates = new PackedCoordinates(features.size());
+        for (Feature feature : features) {
+          if (feature.geometry() instanceof Point) {
+            Point point = (Point) feature.geometry();
+            pointFeatures.add(feature);
+            coordinates.add(point.longitude(), point.latitude());
+          }
+        }
+        final Supercluster built = new Supercluster(coordinates, radius, 0, maxZoom);
+        final Feature[] builtPoints = pointFeatures.toArray(new Feature[pointFeatures.size()]);
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (released || requested != generation) {
+              return;
+            }
+            index = built;
+            points = builtPoints;
+            shownZoom = -1;
+            update();
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Gives the source the points and clusters it shows again, after properties of the clustered
+   * features were changed. The clusters aren't rebuilt, so positions must not have changed.
+   */
+  @MainThread
+  public void refresh() {
+    shownZoom = -1;
+    update();
+  }
+
+  /**
+   * The clusters of the current features, or null until they're built.
+   */
+  @Nullable
+  public Supercluster getIndex() {
+    return index;
+  }
+
+  /**
+   * The time the last source update took, from the clusters query to handing the features to the source.
+   */
+  public long getLastUpdateNanos() {
+    return lastUpdateNanos;
+  }
+
+  /**
+   * Stops following the camera. Features being clustered are dropped, the source keeps what it shows.
+   */
+  @MainThread
+  public void release() {
+    released = true;
+    mapboxMap.removeOnCameraMoveListener(this);
+    mapboxMap.removeOnCameraIdleListener(this);
+    unschedule();
+  }
+
+  @Override
+  public void onCameraMove() {
+    if (!scheduled && index != null) {
+      scheduled = true;
+      FrameDriver.getInstance().addListener(this);
+    }
+  }
+
+  @Override
+  public void onCameraIdle() {
+    unschedule();
+    update();
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    unschedule();
+    update();
+  }
+
+  private void unschedule() {
+    if (scheduled) {
+      scheduled = false;
+      FrameDriver.getInstance().removeListener(this);
+    }
+  }
+
+  private void update() {
+    if (index == null || !(mapboxMap.getSource(sourceId) instanceof GeoJsonSource)) {
+      return;
+    }
+    CameraPosition position = mapboxMap.getCameraPosition();
+    LatLngBounds bounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+    int zoom = (int) Math.floor(position.zoom);
+    if (zoom == shownZoom && bounds.getLonWest() >= shownWest && bounds.getLonEast() <= shownEast
+      && bounds.getLatSouth() >= shownSouth && bounds.getLatNorth() <= shownNorth) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+    double marginX = bounds.getLonEast() - bounds.getLonWest();
+    double marginY = bounds.getLatNorth() - bounds.getLatSouth();
+    shownZoom = zoom;
+    shownWest = bounds.getLonWest() - marginX / 2;
+    shownEast = bounds.getLonEast() + marginX / 2;
+    shownSouth = Math.max(bounds.getLatSouth() - marginY / 2, -90);
+    shownNorth = Math.min(bounds.getLatNorth() + marginY / 2, 90);
+    clusterFeatures = new ArrayList<>();
+    index.getClusters(shownWest, shownSouth, shownEast, shownNorth, zoom, featureVisitor);
+    ((GeoJsonSource) mapboxMap.getSource(sourceId)).setGeoJson(FeatureCollection.fromFeatures(clusterFeatures));
+    lastUpdateNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Abbreviates a point count the way the map does for clustered sources, such as 1.2k for 1234.
+   */
+  private static String abbreviate(int pointCount) {
+    if (pointCount >= 10000) {
+      return Math.round(pointCount / 1000f) + "k";
+    } else if (pointCount >= 1000) {
+      int tenths = Math.round(pointCount / 100f);
+      return tenths % 10 == 0 ? tenths / 10 + "k" : tenths / 10 + "." + tenths % 10 + "k";
+    }
+    return String.valueOf(pointCount);
+  }
+}
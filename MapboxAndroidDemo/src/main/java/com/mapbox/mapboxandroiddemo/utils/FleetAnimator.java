@@ -0,0 +1,247 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.google.gson.JsonObject;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+import com.mapbox.turf.TurfMeasurement;
+
+import java.util.Arrays;
+
+/**
+ * Animates a fleet of moving entities through a single {@link GeoJsonSource}.
+ * <p>
+ * Moving a marker per entity with its own animator doesn't scale past a handful of entities. The
+ * fleet keeps the start, target and current positions of every entity in primitive arrays instead,
+ * interpolates all of them in one pass per frame, and publishes the whole fleet to the source as one
+ * FeatureCollection. Nothing is published on frames where no entity moved.
+ * </p>
+ * <p>
+ * Every feature carries a {@link #PROPERTY_BEARING} property, computed once per move, for a
+ * SymbolLayer to rotate its icon with. Frames come from the shared {@link FrameDriver}, and the time
+ * spent interpolating and publishing is measured, see {@link #getAverageFrameMillis()}.
+ * </p>
+ */
+public class FleetAnimator implements FrameDriver.Listener {
+
+  public static final String PROPERTY_BEARING = "bearing";
+
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  /**
+   * Notified on the main thread when entities reach their target.
+   */
+  public interface Listener {
+
+    /**
+     * Invoked for every entity that arrived during a frame, after the frame was published. The entity
+     * can be given its next target right away.
+     */
+    void onArrived(@NonNull FleetAnimator fleet, int index);
+  }
+
+  private final GeoJsonSource source;
+  private Listener listener;
+
+  private int size;
+  private double[] current = new double[DEFAULT_CAPACITY * 2];
+  private double[] start = new double[DEFAULT_CAPACITY * 2];
+  private double[] target = new double[DEFAULT_CAPACITY * 2];
+  private long[] startTimes = new long[DEFAULT_CAPACITY];
+  private long[] durations = new long[DEFAULT_CAPACITY];
+  private boolean[] moving = new boolean[DEFAULT_CAPACITY];
+  private JsonObject[] properties = new JsonObject[DEFAULT_CAPACITY];
+  private int[] arrived = new int[DEFAULT_CAPACITY];
+  private Feature[] features = new Feature[0];
+
+  private long lastFrameTimeNanos = -1;
+  private boolean dirty;
+  private boolean running;
+  private boolean resumed;
+
+  private long measuredFrames;
+  private long measuredNanos;
+
+  public FleetAnimator(@NonNull GeoJsonSource source) {
+    this.source = source;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Adds a stationary entity.
+   *
+   * @return the index of the entity
+   */
+  public int add(double longitude, double latitude) {
+    if (size == moving.length) {
+      grow(size * 2);
+    }
+    int index = size++;
+    current[2 * index] = longitude;
+    current[2 * index + 1] = latitude;
+    moving[index] = false;
+    properties[index] = new JsonObject();
+    properties[index].addProperty(PROPERTY_BEARING, 0);
+    dirty = true;
+    return index;
+  }
+
+  /**
+   * Removes every entity.
+   */
+  public void clear() {
+    size = 0;
+    Arrays.fill(properties, null);
+    dirty = true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Starts moving an entity from where it currently is to a target, in a straight line.
+   *
+   * @param duration the time the move takes, in milliseconds
+   */
+  public void moveTo(int index, double longitude, double latitude, long duration) {
+    checkIndex(index);
+    double fromLongitude = current[2 * index];
+    double fromLatitude = current[2 * index + 1];
+    start[2 * index] = fromLongitude;
+    start[2 * index + 1] = fromLatitude;
+    target[2 * index] = longitude;
+    target[2 * index + 1] = latitude;
+    startTimes[index] = lastFrameTimeNanos >= 0 ? lastFrameTimeNanos : System.nanoTime();
+    durations[index] = Math.max(duration, 1);
+    moving[index] = true;
+
+    // The bearing only changes when the target does, so it's computed here and not every frame
+    properties[index].addProperty(PROPERTY_BEARING, TurfMeasurement.bearing(
+      Point.fromLngLat(fromLongitude, fromLatitude), Point.fromLngLat(longitude, latitude)));
+  }
+
+  public double getLongitude(int index) {
+    checkIndex(index);
+    return current[2 * index];
+  }
+
+  public double getLatitude(int index) {
+    checkIndex(index);
+    return current[2 * index + 1];
+  }
+
+  /**
+   * Starts animating, and publishing, the fleet.
+   */
+  @MainThread
+  public void start() {
+    if (!running) {
+      running = true;
+      resumed = true;
+      FrameDriver.getInstance().addListener(this);
+    }
+  }
+
+  /**
+   * Stops animating. Entities resume from where they were when started again, their moves are
+   * shifted by the time spent stopped.
+   */
+  @MainThread
+  public void stop() {
+    running = false;
+    FrameDriver.getInstance().removeListener(this);
+  }
+
+  /**
+   * The average time spent interpolating and publishing a frame since the last {@link #resetStats()}.
+   */
+  public double getAverageFrameMillis() {
+    return measuredFrames > 0 ? measuredNanos / NANOS_PER_MILLI / measuredFrames : 0;
+  }
+
+  public long getMeasuredFrames() {
+    return measuredFrames;
+  }
+
+  public void resetStats() {
+    measuredFrames = 0;
+    measuredNanos = 0;
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    long begin = System.nanoTime();
+    // Moves don't progress while the fleet is stopped
+    long pause = resumed && lastFrameTimeNanos >= 0 ? frameTimeNanos - lastFrameTimeNanos : 0;
+    resumed = false;
+    lastFrameTimeNanos = frameTimeNanos;
+
+    int arrivedCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (!moving[i]) {
+        continue;
+      }
+      startTimes[i] += pause;
+      double fraction = (frameTimeNanos - startTimes[i]) / NANOS_PER_MILLI / durations[i];
+      if (fraction >= 1) {
+        fraction = 1;
+        moving[i] = false;
+        if (arrivedCount == arrived.length) {
+          arrived = Arrays.copyOf(arrived, arrived.length * 2);
+        }
+        arrived[arrivedCount++] = i;
+      }
+      current[2 * i] = start[2 * i] + (target[2 * i] - start[2 * i]) * fraction;
+      current[2 * i + 1] = start[2 * i + 1] + (target[2 * i + 1] - start[2 * i + 1]) * fraction;
+      dirty = true;
+    }
+
+    if (dirty) {
+      publish();
+      dirty = false;
+      measuredNanos += System.nanoTime() - begin;
+      measuredFrames++;
+    }
+
+    if (listener != null) {
+      for (int i = 0; i < arrivedCount; i++) {
+        listener.onArrived(this, arrived[i]);
+      }
+    }
+  }
+
+  private void publish() {
+    if (features.length != size) {
+      features = new Feature[size];
+    }
+    for (int i = 0; i < size; i++) {
+      features[i] = Feature.fromGeometry(Point.fromLngLat(current[2 * i], current[2 * i + 1]), properties[i]);
+    }
+    source.setGeoJson(FeatureCollection.fromFeatures(features));
+  }
+
+  private void grow(int capacity) {
+    current = Arrays.copyOf(current, capacity * 2);
+    start = Arrays.copyOf(start, capacity * 2);
+    target = Arrays.copyOf(target, capacity * 2);
+    startTimes = Arrays.copyOf(startTimes, capacity);
+    durations = Arrays.copyOf(durations, capacity);
+    moving = Arrays.copyOf(moving, capacity);
+    properties = Arrays.copyOf(properties, capacity);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls its listeners once per display frame, from a single frame callback.
+ * <p>
+ * Animations driven by their own animators and handlers each keep their own clock and drift apart.
+ * Listeners of the driver all run in the same {@link Choreographer} callback and get the same frame
+ * time. The callback is only posted while there are listeners. On API 15, which has no Choreographer,
+ * frames are approximated with a handler.
+ * </p>
+ * <p>
+ * The driver must only be used from the main thread.
+ * </p>
+ */
+public final class FrameDriver {
+
+  private static final long FALLBACK_FRAME_MILLIS = 16;
+
+  /**
+   * Receives frames until it's removed.
+   */
+  public interface Listener {
+
+    /**
+     * @param frameTimeNanos the time the frame started rendering, in the {@link System#nanoTime()} time base
+     */
+    void onFrame(long frameTimeNanos);
+  }
+
+  private static FrameDriver instance;
+
+  private final List<Listener> listeners = new ArrayList<>();
+  private final List<Listener> dispatching = new ArrayList<>();
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private Choreographer.FrameCallback frameCallback;
+  private boolean scheduled;
+
+  @MainThread
+  public static FrameDriver getInstance() {
+    if (instance == null) {
+      instance = new FrameDriver();
+    }
+    return instance;
+  }
+
+  private FrameDriver() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+          dispatch(frameTimeNanos);
+        }
+      };
+    }
+  }
+
+  /**
+   * Starts calling a listener every frame, from the next one on. Adding a listener twice has no effect.
+   */
+  @MainThread
+  public void addListener(@NonNull Listener listener) {
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+    schedule();
+  }
+
+  /**
+   * Stops calling a listener, even if it's removed while the current frame is being dispatched.
+   */
+  @MainThread
+  public void removeListener(@NonNull Listener listener) {
+    listeners.remove(listener);
+  }
+
+  private void dispatch(long frameTimeNanos) {
+    scheduled = false;
+    // Listeners may add or remove listeners, dispatch to a copy
+    dispatching.addAll(listeners);
+    for (int i = 0; i < dispatching.size(); i++) {
+      Listener listener = dispatching.get(i);
+      if (listeners.contains(listener)) {
+        listener.onFrame(frameTimeNanos);
+      }
+    }
+    dispatching.clear();
+    schedule();
+  }
+
+  private void schedule() {
+    if (scheduled || listeners.isEmpty()) {
+      return;
+    }
+    scheduled = true;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      Choreographer.getInstance().postFrameCallback(frameCallback);
+    } else {
+      handler.postDelayed(fallbackFrame, FALLBACK_FRAME_MILLIS);
+    }
+  }
+
+  private final Runnable fallbackFrame = new Runnable() {
+    @Override
+    public void run() {
+      dispatch(System.nanoTime());
+    }
+  };
+}
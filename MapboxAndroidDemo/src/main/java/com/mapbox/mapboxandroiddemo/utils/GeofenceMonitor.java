@@ -0,0 +1,151 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxandroiddemo.commons.geometry.GeofenceIndex;
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+/**
+ * Reports when the center of the map enters or leaves geofences, such as indoor mapped buildings.
+ * <p>
+ * Camera moves only mark the camera as moved. The geofences containing the camera target are looked up
+ * in a {@link GeofenceIndex} at most once per display frame, from the shared {@link FrameDriver}, and
+ * once more when the camera becomes idle. Enter and exit events are reported by comparing the result
+ * with the geofences the camera was in before. Below a minimum zoom, the camera isn't in any geofence.
+ * </p>
+ */
+public class GeofenceMonitor implements FrameDriver.Listener, MapboxMap.OnCameraMoveListener,
+  MapboxMap.OnCameraIdleListener {
+
+  /**
+   * Notified on the main thread when the camera enters or leaves a geofence.
+   */
+  public interface Listener {
+
+    /**
+     * @param geofence the index of the geofence in its {@link GeofenceIndex}
+     */
+    void onEnter(int geofence);
+
+    /**
+     * @param geofence the index of the geofence in its {@link GeofenceIndex}
+     */
+    void onExit(int geofence);
+  }
+
+  private final MapboxMap mapboxMap;
+  private final GeofenceIndex index;
+  private final double minZoom;
+  private final Listener listener;
+
+  private boolean[] inside;
+  private boolean[] found;
+  private boolean scheduled;
+  private boolean started;
+
+  private final GeofenceIndex.Visitor visitor = new GeofenceIndex.Visitor() {
+    @Override
+    public void visit(int geofence) {
+      found[geofence] = true;
+    }
+  };
+
+  /**
+   * @param minZoom the zoom level below which the camera is considered outside of every geofence
+   */
+  public GeofenceMonitor(@NonNull MapboxMap mapboxMap, @NonNull GeofenceIndex index, double minZoom,
+                         @NonNull Listener listener) {
+    this.mapboxMap = mapboxMap;
+    this.index = index;
+    this.minZoom = minZoom;
+    this.listener = listener;
+    this.inside = new boolean[index.size()];
+    this.found = new boolean[index.size()];
+  }
+
+  /**
+   * Starts following the camera, reporting the geofences it's already in right away.
+   */
+  @MainThread
+  public void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    mapboxMap.addOnCameraMoveListener(this);
+    mapboxMap.addOnCameraIdleListener(this);
+    update();
+  }
+
+  /**
+   * Stops following the camera. The geofences it's in are kept, and not reported again on the next start.
+   */
+  @MainThread
+  public void stop() {
+    started = false;
+    mapboxMap.removeOnCameraMoveListener(this);
+    mapboxMap.removeOnCameraIdleListener(this);
+    unschedule();
+  }
+
+  /**
+   * Returns whether the camera was in a geofence when last checked.
+   */
+  public boolean isInside(int geofence) {
+    return inside[geofence];
+  }
+
+  @Override
+  public void onCameraMove() {
+    if (!scheduled) {
+      scheduled = true;
+      FrameDriver.getInstance().addListener(this);
+    }
+  }
+
+  @Override
+  public void onCameraIdle() {
+    unschedule();
+    update();
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    unschedule();
+    update();
+  }
+
+  private void unschedule() {
+    if (scheduled) {
+      scheduled = false;
+      FrameDriver.getInstance().removeListener(this);
+    }
+  }
+
+  private void update() {
+    CameraPosition position = mapboxMap.getCameraPosition();
+    for (int i = 0; i < found.length; i++) {
+      found[i] = false;
+    }
+    if (position.target != null && position.zoom >= minZoom) {
+      index.query(position.target.getLongitude(), position.target.getLatitude(), visitor);
+    }
+
+    // Swap before notifying, so that listeners see the new state through isInside
+    boolean[] previous = inside;
+    inside = found;
+    found = previous;
+    for (int i = 0; i < inside.length; i++) {
+      if (previous[i] && !inside[i]) {
+        listener.onExit(i);
+      }
+    }
+    for (int i = 0; i < inside.length; i++) {
+      if (inside[i] && !previous[i]) {
+        listener.onEnter(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.graphics.Color;
+import android.support.annotation.ColorInt;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.style.layers.Layer;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
+import com.mapbox.mapboxsdk.style.layers.PropertyValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulses the color of layers back and forth between two colors, in sync.
+ * <p>
+ * Each color ramp is computed once into an array of {@link #RAMP_STEPS} colors. Every frame, the phase
+ * of the pulse picks a step of the ramp, and a layer's color property is only written when its step
+ * changes. A pulse writes to the style at most {@link #RAMP_STEPS} times per half period, instead of
+ * on every animator update. Hidden layers aren't written to, and when no layer is visible the
+ * animator stops listening to frames altogether.
+ * </p>
+ */
+public class LayerPulseAnimator implements FrameDriver.Listener {
+
+  /**
+   * Creates the style property a pulse writes its color to.
+   */
+  public interface ColorProperty {
+    PropertyValue<?> create(@ColorInt int color);
+  }
+
+  public static final ColorProperty FILL_COLOR = new ColorProperty() {
+    @Override
+    public PropertyValue<?> create(int color) {
+      return PropertyFactory.fillColor(color);
+    }
+  };
+
+  public static final ColorProperty CIRCLE_COLOR = new ColorProperty() {
+    @Override
+    public PropertyValue<?> create(int color) {
+      return PropertyFactory.circleColor(color);
+    }
+  };
+
+  private static final int RAMP_STEPS = 32;
+  private static final long NANOS_PER_MILLI = 1000000;
+
+  private final long halfPeriodNanos;
+  private final List<Pulse> pulses = new ArrayList<>();
+  private long startTimeNanos = -1;
+  private boolean running;
+  private boolean listening;
+
+  /**
+   * @param duration the time it takes to go from one color to the other, in milliseconds
+   */
+  public LayerPulseAnimator(long duration) {
+    this.halfPeriodNanos = Math.max(duration, 1) * NANOS_PER_MILLI;
+  }
+
+  /**
+   * Pulses a layer between two colors.
+   *
+   * @param visible whether the layer is visible, change it with {@link #setVisible(String, boolean)}
+   */
+  @MainThread
+  public void addLayer(@NonNull Layer layer, @ColorInt int fromColor, @ColorInt int toColor,
+                       @NonNull ColorProperty property, boolean visible) {
+    pulses.add(new Pulse(layer, createRamp(fromColor, toColor), property, visible));
+    updateListening();
+  }
+
+  /**
+   * Shows or hides a layer, pausing its pulse while it's hidden.
+   *
+   * @return false if the layer isn't pulsed by this animator
+   */
+  @MainThread
+  public boolean setVisible(@NonNull String layerId, boolean visible) {
+    Pulse pulse = getPulse(layerId);
+    if (pulse == null) {
+      return false;
+    }
+    pulse.visible = visible;
+    pulse.step = -1;
+    pulse.layer.setProperties(PropertyFactory.visibility(visible ? Property.VISIBLE : Property.NONE));
+    updateListening();
+    return true;
+  }
+
+  /**
+   * Returns whether a layer pulsed by this animator is visible, without querying the style.
+   */
+  public boolean isVisible(@NonNull String layerId) {
+    Pulse pulse = getPulse(layerId);
+    return pulse != null && pulse.visible;
+  }
+
+  @MainThread
+  public void start() {
+    running = true;
+    updateListening();
+  }
+
+  @MainThread
+  public void stop() {
+    running = false;
+    updateListening();
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (startTimeNanos < 0) {
+      startTimeNanos = frameTimeNanos;
+    }
+    // Ping-pong between the two ends of the ramp
+    long elapsed = (frameTimeNanos - startTimeNanos) % (2 * halfPeriodNanos);
+    double fraction = elapsed < halfPeriodNanos
+      ? (double) elapsed / halfPeriodNanos
+      : 2 - (double) elapsed / halfPeriodNanos;
+    int step = (int) Math.round(fraction * (RAMP_STEPS - 1));
+
+    for (int i = 0; i < pulses.size(); i++) {
+      Pulse pulse = pulses.get(i);
+      if (pulse.visible && pulse.step != step) {
+        pulse.step = step;
+        pulse.layer.setProperties(pulse.property.create(pulse.ramp[step]));
+      }
+    }
+  }
+
+  private void updateListening() {
+    boolean anyVisible = false;
+    for (Pulse pulse : pulses) {
+      anyVisible |= pulse.visible;
+    }
+    boolean listen = running && anyVisible;
+    if (listen == listening) {
+      return;
+    }
+    listening = listen;
+    if (listen) {
+      FrameDriver.getInstance().addListener(this);
+    } else {
+      FrameDriver.getInstance().removeListener(this);
+    }
+  }
+
+  private Pulse getPulse(String layerId) {
+    for (Pulse pulse : pulses) {
+      if (pulse.layerId.equals(layerId)) {
+        return pulse;
+      }
+    }
+    return null;
+  }
+
+  private static int[] createRamp(int fromColor, int toColor) {
+    int[] ramp = new int[RAMP_STEPS];
+    for (int i = 0; i < RAMP_STEPS; i++) {
+      float fraction = (float) i / (RAMP_STEPS - 1);
+      ramp[i] = Color.argb(
+        interpolate(Color.alpha(fromColor), Color.alpha(toColor), fraction),
+        interpolate(Color.red(fromColor), Color.red(toColor), fraction),
+        interpolate(Color.green(fromColor), Color.green(toColor), fraction),
+        interpolate(Color.blue(fromColor), Color.blue(toColor), fraction));
+    }
+    return ramp;
+  }
+
+  private static int interpolate(int from, int to, float fraction) {
+    return Math.round(from + (to - from) * fraction);
+  }
+
+  private static class Pulse {
+
+    final Layer layer;
+    final String layerId;
+    final int[] ramp;
+    final ColorProperty property;
+    boolean visible;
+    int step = -1;
+
+    Pulse(Layer layer, int[] ramp, ColorProperty property, boolean visible) {
+      this.layer = layer;
+      this.layerId = layer.getId();
+      this.ramp = ramp;
+      this.property = property;
+      this.visible = visible;
+    }
+  }
+}
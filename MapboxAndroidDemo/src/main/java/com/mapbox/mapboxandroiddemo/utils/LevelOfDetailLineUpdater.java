@@ -0,0 +1,57 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.LineString;
+import com.mapbox.mapboxandroiddemo.commons.geometry.LevelOfDetailLine;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+/**
+ * Keeps a {@link GeoJsonSource} showing the level of a {@link LevelOfDetailLine} that matches the camera
+ * zoom. The source is only updated when the camera comes to rest on a zoom that uses a different level.
+ */
+public class LevelOfDetailLineUpdater implements MapboxMap.OnCameraIdleListener {
+
+  private final MapboxMap mapboxMap;
+  private final GeoJsonSource source;
+  private LevelOfDetailLine line;
+  private LineString displayedLine;
+
+  public LevelOfDetailLineUpdater(@NonNull MapboxMap mapboxMap, @NonNull GeoJsonSource source) {
+    this.mapboxMap = mapboxMap;
+    this.source = source;
+    mapboxMap.addOnCameraIdleListener(this);
+  }
+
+  /**
+   * Sets the line to display, replacing any previous one.
+   *
+   * @param line the line and its levels
+   */
+  public void setLine(@NonNull LevelOfDetailLine line) {
+    this.line = line;
+    displayedLine = null;
+    onCameraIdle();
+  }
+
+  @Override
+  public void onCameraIdle() {
+    if (line == null) {
+      return;
+    }
+    LineString lineString = line.getLine(mapboxMap.getCameraPosition().zoom);
+    if (lineString != displayedLine) {
+      displayedLine = lineString;
+      source.setGeoJson(Feature.fromGeometry(lineString));
+    }
+  }
+
+  /**
+   * Stops following the camera.
+   */
+  public void release() {
+    mapboxMap.removeOnCameraIdleListener(this);
+  }
+}
@@ -0,0 +1,199 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.OnMapReadyCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes the camera of any number of linked maps follow the camera of a primary map, such as overview
+ * maps following a main map, each at its own zoom offset.
+ * <p>
+ * Every map is resolved once, when it's linked. Camera moves of the primary map only mark it as moved,
+ * its position is then read once per display frame, from the shared {@link FrameDriver}, and pushed to the
+ * linked maps. A linked map is only given a new position once it has rendered the previous one, so a
+ * linked map that renders slower than the primary one isn't flooded with camera changes it can't show.
+ * Positions that didn't change aren't pushed at all.
+ * </p>
+ */
+public class MapCameraLink implements FrameDriver.Listener {
+
+  // A linked map that hasn't rendered for this long is given the latest position anyway
+  private static final long MAX_RENDER_WAIT_MILLIS = 250;
+
+  private final List<Link> links = new ArrayList<>();
+  private final CameraPosition.Builder builder = new CameraPosition.Builder();
+  private MapboxMap primaryMap;
+  private boolean scheduled;
+  private boolean released;
+
+  private final MapboxMap.OnCameraMoveListener cameraMoveListener = new MapboxMap.OnCameraMoveListener() {
+    @Override
+    public void onCameraMove() {
+      schedule();
+    }
+  };
+
+  /**
+   * @param primaryMapView the map the linked maps follow
+   */
+  @MainThread
+  public MapCameraLink(@NonNull MapView primaryMapView) {
+    primaryMapView.getMapAsync(new OnMapReadyCallback() {
+      @Override
+      public void onMapReady(MapboxMap mapboxMap) {
+        if (released) {
+          return;
+        }
+        primaryMap = mapboxMap;
+        primaryMap.addOnCameraMoveListener(cameraMoveListener);
+        schedule();
+      }
+    });
+  }
+
+  /**
+   * Makes a map follow the primary map.
+   *
+   * @param zoomOffset the zoom of the linked map relative to the primary map, negative to show more of
+   *                   the world than the primary map
+   */
+  @MainThread
+  public void link(@NonNull MapView mapView, double zoomOffset) {
+    final Link link = new Link(mapView, zoomOffset);
+    links.add(link);
+    mapView.getMapAsync(new OnMapReadyCallback() {
+      @Override
+      public void onMapReady(MapboxMap mapboxMap) {
+        if (!links.contains(link)) {
+          return;
+        }
+        link.map = mapboxMap;
+        link.mapView.addOnDidFinishRenderingFrameListener(link);
+        schedule();
+      }
+    });
+  }
+
+  /**
+   * Stops a map from following the primary map.
+   */
+  @MainThread
+  public void unlink(@NonNull MapView mapView) {
+    for (int i = links.size() - 1; i >= 0; i--) {
+      Link link = links.get(i);
+      if (link.mapView == mapView) {
+        mapView.removeOnDidFinishRenderingFrameListener(link);
+        links.remove(i);
+      }
+    }
+  }
+
+  /**
+   * Unlinks every map and stops following the primary map.
+   */
+  @MainThread
+  public void release() {
+    released = true;
+    for (int i = links.size() - 1; i >= 0; i--) {
+      unlink(links.get(i).mapView);
+    }
+    if (primaryMap != null) {
+      primaryMap.removeOnCameraMoveListener(cameraMoveListener);
+    }
+    unschedule();
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (primaryMap == null) {
+      unschedule();
+      return;
+    }
+    CameraPosition position = primaryMap.getCameraPosition();
+    long now = SystemClock.uptimeMillis();
+    boolean waiting = false;
+    for (int i = 0; i < links.size(); i++) {
+      Link link = links.get(i);
+      if (link.map == null) {
+        continue;
+      }
+      if (!link.rendered && now - link.pushTime < MAX_RENDER_WAIT_MILLIS) {
+        // Still rendering the last position, the latest one is pushed on a later frame
+        waiting = true;
+        continue;
+      }
+      link.push(position, now);
+    }
+    if (!waiting) {
+      unschedule();
+    }
+  }
+
+  private void schedule() {
+    if (!scheduled && !released) {
+      scheduled = true;
+      FrameDriver.getInstance().addListener(this);
+    }
+  }
+
+  private void unschedule() {
+    if (scheduled) {
+      scheduled = false;
+      FrameDriver.getInstance().removeListener(this);
+    }
+  }
+
+  private class Link implements MapView.OnDidFinishRenderingFrameListener {
+
+    final MapView mapView;
+    final double zoomOffset;
+    MapboxMap map;
+    boolean rendered = true;
+    long pushTime;
+
+    private LatLng target;
+    private double zoom = Double.NaN;
+    private double bearing = Double.NaN;
+    private double tilt = Double.NaN;
+
+    Link(MapView mapView, double zoomOffset) {
+      this.mapView = mapView;
+      this.zoomOffset = zoomOffset;
+    }
+
+    void push(CameraPosition position, long now) {
+      double newZoom = Math.max(position.zoom + zoomOffset, 0);
+      if (position.target == null || (position.target.equals(target) && newZoom == zoom
+        && position.bearing == bearing && position.tilt == tilt)) {
+        return;
+      }
+      target = position.target;
+      zoom = newZoom;
+      bearing = position.bearing;
+      tilt = position.tilt;
+      map.moveCamera(CameraUpdateFactory.newCameraPosition(builder
+        .target(target)
+        .zoom(zoom)
+        .bearing(bearing)
+        .tilt(tilt)
+        .build()));
+      rendered = false;
+      pushTime = now;
+    }
+
+    @Override
+    public void onDidFinishRenderingFrame(boolean fully) {
+      rendered = true;
+    }
+  }
+}
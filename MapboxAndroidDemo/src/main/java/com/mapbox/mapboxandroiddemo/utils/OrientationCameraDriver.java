@@ -0,0 +1,151 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.camera.CameraPosition;
+import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+/**
+ * Tilts and rotates the camera of a map following the orientation of the device.
+ * <p>
+ * Accelerometer and magnetometer readings are smoothed with a low-pass filter as they arrive, into
+ * buffers owned by the driver. The orientation is only computed once per display frame, from the latest
+ * readings, and the camera is moved without animation, so at most one camera update happens per frame
+ * however fast the sensors report. Changes smaller than a deadband are ignored, so the camera doesn't
+ * jitter while the device is held still. Frames come from the shared {@link FrameDriver}.
+ * </p>
+ */
+public class OrientationCameraDriver implements SensorEventListener, FrameDriver.Listener {
+
+  // Weight of a new reading in the filtered value, lower is smoother but lags more
+  private static final float FILTER_ALPHA = 0.15f;
+  private static final double DEADBAND_DEGREES = 0.5;
+
+  private final MapboxMap mapboxMap;
+  private final SensorManager sensorManager;
+  private final Sensor accelerometer;
+  private final Sensor magnetometer;
+  private final float tiltAmplifier;
+  private final float bearingAmplifier;
+
+  private final float[] gravity = new float[3];
+  private final float[] magnetic = new float[3];
+  private final float[] rotationMatrix = new float[9];
+  private final float[] orientation = new float[3];
+  // Only tilt and bearing are ever set, so the builder is reused rather than created every frame
+  private final CameraPosition.Builder builder = new CameraPosition.Builder();
+  private boolean hasGravity;
+  private boolean hasMagnetic;
+  private boolean dirty;
+  private boolean running;
+
+  private double tilt = Double.NaN;
+  private double bearing = Double.NaN;
+
+  /**
+   * @param tiltAmplifier    the camera tilt per radian of device pitch
+   * @param bearingAmplifier the camera bearing per radian of device roll
+   */
+  public OrientationCameraDriver(@NonNull MapboxMap mapboxMap, @NonNull SensorManager sensorManager,
+                                 float tiltAmplifier, float bearingAmplifier) {
+    this.mapboxMap = mapboxMap;
+    this.sensorManager = sensorManager;
+    this.accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+    this.magnetometer = sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
+    this.tiltAmplifier = tiltAmplifier;
+    this.bearingAmplifier = bearingAmplifier;
+  }
+
+  public boolean hasAccelerometer() {
+    return accelerometer != null;
+  }
+
+  public boolean hasMagnetometer() {
+    return magnetometer != null;
+  }
+
+  /**
+   * Starts listening to the sensors and moving the camera.
+   */
+  @MainThread
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    // The camera moves at most once per frame, sensor readings faster than that would only be filtered
+    if (accelerometer != null) {
+      sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_GAME);
+    }
+    if (magnetometer != null) {
+      sensorManager.registerListener(this, magnetometer, SensorManager.SENSOR_DELAY_GAME);
+    }
+    FrameDriver.getInstance().addListener(this);
+  }
+
+  /**
+   * Stops listening to the sensors, the camera stays where it is.
+   */
+  @MainThread
+  public void stop() {
+    running = false;
+    sensorManager.unregisterListener(this);
+    FrameDriver.getInstance().removeListener(this);
+  }
+
+  @Override
+  public void onSensorChanged(SensorEvent event) {
+    // Event values are reused by the framework, readings are copied into the driver's own buffers
+    if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
+      filter(event.values, gravity, hasGravity);
+      hasGravity = true;
+    } else if (event.sensor.getType() == Sensor.TYPE_MAGNETIC_FIELD) {
+      filter(event.values, magnetic, hasMagnetic);
+      hasMagnetic = true;
+    }
+    dirty = true;
+  }
+
+  @Override
+  public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    // Intentionally left empty
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (!dirty || !hasGravity || !hasMagnetic) {
+      return;
+    }
+    dirty = false;
+    if (!SensorManager.getRotationMatrix(rotationMatrix, null, gravity, magnetic)) {
+      return;
+    }
+    SensorManager.getOrientation(rotationMatrix, orientation);
+    double newTilt = orientation[1] * tiltAmplifier;
+    double newBearing = orientation[2] * bearingAmplifier;
+    if (Math.abs(newTilt - tilt) < DEADBAND_DEGREES && Math.abs(newBearing - bearing) < DEADBAND_DEGREES) {
+      return;
+    }
+    tilt = newTilt;
+    bearing = newBearing;
+    mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(builder
+      .tilt(tilt)
+      .bearing(bearing)
+      .build()));
+  }
+
+  /**
+   * Blends a reading into its filtered value, taking the first reading as is.
+   */
+  private static void filter(float[] values, float[] filtered, boolean initialized) {
+    for (int i = 0; i < filtered.length; i++) {
+      filtered[i] = initialized ? filtered[i] + FILTER_ALPHA * (values[i] - filtered[i]) : values[i];
+    }
+  }
+}
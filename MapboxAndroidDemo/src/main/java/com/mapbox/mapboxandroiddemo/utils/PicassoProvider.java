@@ -0,0 +1,93 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxandroiddemo.commons.network.HttpClientProvider;
+import com.squareup.picasso.Downloader;
+import com.squareup.picasso.NetworkPolicy;
+import com.squareup.picasso.Picasso;
+
+import java.io.IOException;
+
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/**
+ * Process wide Picasso instance downloading through the shared {@link HttpClientProvider} client.
+ * <p>
+ * Picasso 2.5 only knows how to use OkHttp 2 on its own, so images are fetched through a small
+ * {@link Downloader} over the shared OkHttp 3 client instead, which gives image requests the same
+ * connection pool, disk cache and metrics as every other request of the app.
+ * </p>
+ */
+public final class PicassoProvider {
+
+  private static volatile Picasso instance;
+
+  private PicassoProvider() {
+    // No instances
+  }
+
+  /**
+   * Returns the shared Picasso instance.
+   *
+   * @param context any context, only the application context is retained
+   */
+  @NonNull
+  public static Picasso getInstance(@NonNull Context context) {
+    if (instance == null) {
+      synchronized (PicassoProvider.class) {
+        if (instance == null) {
+          Context appContext = context.getApplicationContext();
+          instance = new Picasso.Builder(appContext)
+            .downloader(new OkHttp3Downloader(HttpClientProvider.getInstance(appContext).getClient()))
+            .build();
+        }
+      }
+    }
+    return instance;
+  }
+
+  private static class OkHttp3Downloader implements Downloader {
+
+    private final OkHttpClient client;
+
+    OkHttp3Downloader(OkHttpClient client) {
+      this.client = client;
+    }
+
+    @Override
+    public Response load(Uri uri, int networkPolicy) throws IOException {
+      Request.Builder builder = new Request.Builder().url(uri.toString());
+      if (NetworkPolicy.isOfflineOnly(networkPolicy)) {
+        builder.cacheControl(CacheControl.FORCE_CACHE);
+      } else if (networkPolicy != 0) {
+        CacheControl.Builder cacheControl = new CacheControl.Builder();
+        if (!NetworkPolicy.shouldReadFromDiskCache(networkPolicy)) {
+          cacheControl.noCache();
+        }
+        if (!NetworkPolicy.shouldWriteToDiskCache(networkPolicy)) {
+          cacheControl.noStore();
+        }
+        builder.cacheControl(cacheControl.build());
+      }
+
+      okhttp3.Response response = client.newCall(builder.build()).execute();
+      ResponseBody body = response.body();
+      if (!response.isSuccessful() || body == null) {
+        response.close();
+        throw new ResponseException(response.code() + " " + response.message(), networkPolicy, response.code());
+      }
+      return new Response(body.byteStream(), response.cacheResponse() != null, body.contentLength());
+    }
+
+    @Override
+    public void shutdown() {
+      // The client is shared, it outlives any Picasso instance
+    }
+  }
+}
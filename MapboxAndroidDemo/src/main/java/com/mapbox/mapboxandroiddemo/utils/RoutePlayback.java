@@ -0,0 +1,112 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxandroiddemo.commons.geometry.RoutePath;
+
+/**
+ * Moves a position along a {@link RoutePath} at a constant speed, one step per display frame.
+ * <p>
+ * Each frame, the distance travelled is advanced by the time elapsed since the previous frame, and the
+ * position at that distance is handed to the listener. Pausing and resuming keeps the distance, so the
+ * playback continues where it stopped. Frames come from the shared {@link FrameDriver}.
+ * </p>
+ */
+public class RoutePlayback implements FrameDriver.Listener {
+
+  /**
+   * Receives the position of the playback every frame, on the main thread.
+   */
+  public interface Listener {
+
+    /**
+     * @param bearing the bearing of the route at the position, in degrees clockwise from north
+     */
+    void onPosition(double longitude, double latitude, double bearing);
+
+    /**
+     * Invoked once the end of the route has been reached, after its last position.
+     */
+    void onFinished();
+  }
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final RoutePath path;
+  private final Listener listener;
+  private final double[] position = new double[2];
+  private double speed;
+  private double distance;
+  private long lastFrameTimeNanos = -1;
+  private boolean running;
+
+  /**
+   * @param speed the speed of the playback, in meters per second
+   */
+  public RoutePlayback(@NonNull RoutePath path, double speed, @NonNull Listener listener) {
+    this.path = path;
+    this.speed = speed;
+    this.listener = listener;
+  }
+
+  /**
+   * Starts or resumes the playback.
+   */
+  @MainThread
+  public void start() {
+    if (running || isFinished()) {
+      return;
+    }
+    running = true;
+    lastFrameTimeNanos = -1;
+    FrameDriver.getInstance().addListener(this);
+  }
+
+  /**
+   * Pauses the playback at its current position.
+   */
+  @MainThread
+  public void pause() {
+    running = false;
+    FrameDriver.getInstance().removeListener(this);
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public boolean isFinished() {
+    return distance >= path.getLength();
+  }
+
+  /**
+   * The distance travelled along the route, in meters.
+   */
+  public double getDistance() {
+    return distance;
+  }
+
+  /**
+   * @param speed the speed of the playback, in meters per second
+   */
+  public void setSpeed(double speed) {
+    this.speed = speed;
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (lastFrameTimeNanos >= 0) {
+      distance = Math.min(distance + speed * (frameTimeNanos - lastFrameTimeNanos) / NANOS_PER_SECOND,
+        path.getLength());
+    }
+    lastFrameTimeNanos = frameTimeNanos;
+
+    path.positionAt(distance, position);
+    listener.onPosition(position[0], position[1], path.bearingAt(distance));
+    if (isFinished()) {
+      pause();
+      listener.onFinished();
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.LruCache;
+
+import com.mapbox.mapboxsdk.style.sources.ImageSource;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import timber.log.Timber;
+
+/**
+ * Plays a sequence of images, such as the frames of a radar loop, into an {@link ImageSource}.
+ * <p>
+ * Handing the image source a drawable resource makes it decode the image on the main thread on every
+ * frame. The player decodes frames once on a background thread instead and keeps them in a cache bounded
+ * by bytes. While a frame is shown, the frames after it are decoded ahead: as many as fit in the cache,
+ * so a loop that fits entirely is only ever decoded once. If a frame isn't decoded by the time it's due,
+ * playback waits for it rather than skipping it, see {@link #getStalls()}.
+ * </p>
+ * <p>
+ * Bitmaps evicted from the cache are reused to decode the next frames, when the {@link FrameLoader}
+ * supports it.
+ * </p>
+ */
+public class TimeLapsePlayer {
+
+  /**
+   * Loads the frames of a time lapse.
+   */
+  public interface FrameLoader {
+
+    int getFrameCount();
+
+    /**
+     * Loads a frame, on a background thread.
+     *
+     * @param reusable a bitmap that is no longer used, which the frame may be decoded into
+     */
+    @WorkerThread
+    @NonNull
+    Bitmap load(int index, @Nullable Bitmap reusable) throws IOException;
+  }
+
+  private static final int MAX_REUSABLE_BITMAPS = 2;
+
+  private final ImageSource imageSource;
+  private final FrameLoader loader;
+  private final int frameCount;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final ExecutorService decoder = Executors.newSingleThreadExecutor();
+  private final LruCache<Integer, Bitmap> cache;
+  private final Set<Integer> pending = new HashSet<>();
+  private final ConcurrentLinkedQueue<Bitmap> reusable = new ConcurrentLinkedQueue<>();
+  private final long maxCacheBytes;
+
+  private long frameDuration;
+  private int position;
+  private int prefetchCount = 1;
+  private boolean running;
+  private boolean waiting;
+  private boolean released;
+  private long stalls;
+
+  /**
+   * @param maxCacheBytes the maximum number of bytes held by decoded frames
+   * @param frameDuration the time each frame is shown, in milliseconds
+   */
+  public TimeLapsePlayer(@NonNull ImageSource imageSource, @NonNull FrameLoader loader, int maxCacheBytes,
+                         long frameDuration) {
+    this.imageSource = imageSource;
+    this.loader = loader;
+    this.frameCount = loader.getFrameCount();
+    this.maxCacheBytes = maxCacheBytes;
+    this.frameDuration = frameDuration;
+    cache = new LruCache<Integer, Bitmap>(maxCacheBytes) {
+      @Override
+      protected int sizeOf(Integer key, Bitmap bitmap) {
+        return bitmap.getByteCount();
+      }
+
+      @Override
+      protected void entryRemoved(boolean evicted, Integer key, Bitmap oldValue, Bitmap newValue) {
+        // The image source copies the pixels it's given, an evicted frame isn't referenced anywhere else
+        if (evicted && !released && reusable.size() < MAX_REUSABLE_BITMAPS) {
+          reusable.add(oldValue);
+        }
+      }
+    };
+  }
+
+  /**
+   * Starts or resumes playback, from the frame after the last one shown.
+   */
+  @MainThread
+  public void start() {
+    if (running || released || frameCount == 0) {
+      return;
+    }
+    running = true;
+    showFrame();
+  }
+
+  /**
+   * Pauses playback. Decoded frames are kept.
+   */
+  @MainThread
+  public void stop() {
+    running = false;
+    waiting = false;
+    handler.removeCallbacks(tick);
+  }
+
+  /**
+   * Stops playback and the decoder, and drops every decoded frame. The player can't be used afterwards.
+   */
+  @MainThread
+  public void release() {
+    stop();
+    released = true;
+    handler.removeCallbacksAndMessages(null);
+    decoder.shutdownNow();
+    cache.evictAll();
+    reusable.clear();
+  }
+
+  /**
+   * @param frameDuration the time each frame is shown, in milliseconds, applied from the next frame on
+   */
+  public void setFrameDuration(long frameDuration) {
+    this.frameDuration = frameDuration;
+  }
+
+  /**
+   * The number of times a frame wasn't decoded yet when it was due.
+   */
+  public long getStalls() {
+    return stalls;
+  }
+
+  private final Runnable tick = new Runnable() {
+    @Override
+    public void run() {
+      showFrame();
+    }
+  };
+
+  private void showFrame() {
+    Bitmap bitmap = cache.get(position);
+    if (bitmap == null) {
+      // Shown as soon as it's decoded, see onFrameLoaded
+      if (!waiting) {
+        waiting = true;
+        stalls++;
+      }
+      prefetch();
+      return;
+    }
+    waiting = false;
+    imageSource.setImage(bitmap);
+    position = (position + 1) % frameCount;
+    prefetch();
+    handler.postDelayed(tick, frameDuration);
+  }
+
+  /**
+   * Decodes the frames from the next one to be shown on, that aren't decoded yet.
+   */
+  private void prefetch() {
+    for (int i = 0; i < prefetchCount; i++) {
+      final int index = (position + i) % frameCount;
+      if (pending.contains(index) || cache.get(index) != null) {
+        continue;
+      }
+      pending.add(index);
+      decoder.execute(new Runnable() {
+        @Override
+        public void run() {
+          Bitmap bitmap = null;
+          try {
+            bitmap = loader.load(index, reusable.poll());
+          } catch (IOException | RuntimeException exception) {
+            Timber.e(exception, "Unable to load frame %d", index);
+          }
+          final Bitmap loaded = bitmap;
+          handler.post(new Runnable() {
+            @Override
+            public void run() {
+              onFrameLoaded(index, loaded);
+            }
+          });
+        }
+      });
+    }
+  }
+
+  private void onFrameLoaded(int index, @Nullable Bitmap bitmap) {
+    if (released) {
+      return;
+    }
+    pending.remove(index);
+    if (bitmap != null) {
+      // Decode ahead as many frames as the cache holds, keeping room for the frame being shown
+      int framesThatFit = (int) (maxCacheBytes / Math.max(bitmap.getByteCount(), 1));
+      prefetchCount = Math.max(1, Math.min(frameCount, framesThatFit - 1));
+      cache.put(index, bitmap);
+    } else if (index == position) {
+      // Skip frames that can't be loaded, rather than waiting for them forever
+      position = (position + 1) % frameCount;
+    }
+    if (running && waiting) {
+      showFrame();
+    }
+  }
+
+  /**
+   * Loads frames from drawable resources, at their original size.
+   */
+  public static FrameLoader fromResources(@NonNull final Resources resources, @NonNull @DrawableRes final int... ids) {
+    return new FrameLoader() {
+      @Override
+      public int getFrameCount() {
+        return ids.length;
+      }
+
+      @NonNull
+      @Override
+      public Bitmap load(int index, @Nullable Bitmap reusable) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inMutable = true;
+        options.inBitmap = reusable;
+        Bitmap bitmap;
+        try {
+          bitmap = BitmapFactory.decodeResource(resources, ids[index], options);
+        } catch (IllegalArgumentException exception) {
+          // The reusable bitmap doesn't fit this frame
+          options.inBitmap = null;
+          bitmap = BitmapFactory.decodeResource(resources, ids[index], options);
+        }
+        if (bitmap == null) {
+          throw new IOException("Unable to decode frame " + index);
+        }
+        return bitmap;
+      }
+    };
+  }
+}
@@ -0,0 +1,304 @@
+package com.mapbox.mapboxandroiddemo.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.style.layers.Layer;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
+
+import java.util.Arrays;
+
+/**
+ * Steps through the frames of a time series shown on the map, such as rainfall indexed by time.
+ * <p>
+ * How a frame is shown is up to a {@link Strategy}. Changing the filter of a single layer makes the
+ * renderer evaluate the new filter over the whole source on every frame. {@link LayerPerFrameStrategy}
+ * creates one layer per frame up front instead, each with a fixed filter or its own pre-filtered source,
+ * and only toggles the visibility of two of them per frame.
+ * </p>
+ * <p>
+ * Frames advance at a fixed or per-frame duration, and can be scrubbed with {@link #seekTo(int)}. For
+ * every frame, the time spent in the strategy and the time until the map finished rendering the frame
+ * are measured, so that strategies can be compared, see {@link #getAverageUpdateMillis()} and
+ * {@link #getAverageRenderMillis()}.
+ * </p>
+ */
+public class TimeSeriesAnimator {
+
+  /**
+   * Shows the frames of a time series on the map.
+   */
+  public interface Strategy {
+
+    /**
+     * Shows a frame, hiding the one shown before.
+     *
+     * @param previousFrame the frame shown before, or -1 if there is none
+     */
+    void showFrame(int frame, int previousFrame);
+  }
+
+  /**
+   * Notified on the main thread when a frame is shown.
+   */
+  public interface Listener {
+    void onFrame(int frame);
+  }
+
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private final Strategy strategy;
+  private final int frameCount;
+  private final MapView mapView;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private Listener listener;
+
+  private long[] frameDurations;
+  private int frame = -1;
+  private long nextFrameTime;
+  private boolean running;
+
+  private long measuredFrames;
+  private long updateNanos;
+  private long renderedFrames;
+  private long renderNanos;
+  private long renderStartNanos = -1;
+
+  /**
+   * @param mapView       the map the frames are shown on, used to measure how long frames take to render
+   * @param frameDuration the time every frame is shown, in milliseconds
+   */
+  public TimeSeriesAnimator(@NonNull MapView mapView, @NonNull Strategy strategy, int frameCount,
+                            long frameDuration) {
+    if (frameCount <= 0) {
+      throw new IllegalArgumentException("A time series needs at least one frame");
+    }
+    this.mapView = mapView;
+    this.strategy = strategy;
+    this.frameCount = frameCount;
+    setFrameDuration(frameDuration);
+    mapView.addOnDidFinishRenderingFrameListener(renderListener);
+  }
+
+  public void setListener(@Nullable Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @param frameDuration the time every frame is shown, in milliseconds
+   */
+  public void setFrameDuration(long frameDuration) {
+    long[] durations = new long[frameCount];
+    Arrays.fill(durations, frameDuration);
+    setFrameDurations(durations);
+  }
+
+  /**
+   * @param frameDurations the time each frame is shown, in milliseconds, one duration per frame
+   */
+  public void setFrameDurations(@NonNull long[] frameDurations) {
+    if (frameDurations.length != frameCount) {
+      throw new IllegalArgumentException("Expected " + frameCount + " durations, got " + frameDurations.length);
+    }
+    this.frameDurations = frameDurations.clone();
+  }
+
+  /**
+   * Starts or resumes playback from the current frame.
+   */
+  @MainThread
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    if (frame < 0) {
+      show(0);
+    }
+    nextFrameTime = SystemClock.uptimeMillis() + frameDurations[frame];
+    handler.postAtTime(advance, nextFrameTime);
+  }
+
+  /**
+   * Pauses playback on the current frame.
+   */
+  @MainThread
+  public void stop() {
+    running = false;
+    handler.removeCallbacks(advance);
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stops playback and stops measuring the map. The frames shown by the strategy are left on the map.
+   */
+  @MainThread
+  public void release() {
+    stop();
+    mapView.removeOnDidFinishRenderingFrameListener(renderListener);
+  }
+
+  /**
+   * Shows a frame right away. Playback, if running, continues from it.
+   */
+  @MainThread
+  public void seekTo(int frame) {
+    if (frame < 0 || frame >= frameCount) {
+      throw new IndexOutOfBoundsException("Frame: " + frame + ", frame count: " + frameCount);
+    }
+    show(frame);
+    if (running) {
+      handler.removeCallbacks(advance);
+      nextFrameTime = SystemClock.uptimeMillis() + frameDurations[frame];
+      handler.postAtTime(advance, nextFrameTime);
+    }
+  }
+
+  /**
+   * The frame shown, or -1 before the first one is.
+   */
+  public int getFrame() {
+    return frame;
+  }
+
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * The average time the strategy took to show a frame since the last {@link #resetStats()}.
+   */
+  public double getAverageUpdateMillis() {
+    return measuredFrames > 0 ? updateNanos / NANOS_PER_MILLI / measuredFrames : 0;
+  }
+
+  /**
+   * The average time from showing a frame until the map finished rendering it completely, since the last
+   * {@link #resetStats()}.
+   */
+  public double getAverageRenderMillis() {
+    return renderedFrames > 0 ? renderNanos / NANOS_PER_MILLI / renderedFrames : 0;
+  }
+
+  public long getMeasuredFrames() {
+    return measuredFrames;
+  }
+
+  public void resetStats() {
+    measuredFrames = 0;
+    updateNanos = 0;
+    renderedFrames = 0;
+    renderNanos = 0;
+    // A render in progress started before the reset, it isn't counted
+    renderStartNanos = -1;
+  }
+
+  private void show(int newFrame) {
+    if (newFrame == frame) {
+      return;
+    }
+    long begin = System.nanoTime();
+    strategy.showFrame(newFrame, frame);
+    long end = System.nanoTime();
+    updateNanos += end - begin;
+    measuredFrames++;
+    // Frames shown before the map caught up are measured from the first of them
+    if (renderStartNanos < 0) {
+      renderStartNanos = begin;
+    }
+    frame = newFrame;
+    if (listener != null) {
+      listener.onFrame(newFrame);
+    }
+  }
+
+  private final Runnable advance = new Runnable() {
+    @Override
+    public void run() {
+      show((frame + 1) % frameCount);
+      // Scheduled from the previous due time rather than from now, so frames don't drift
+      long now = SystemClock.uptimeMillis();
+      nextFrameTime = Math.max(nextFrameTime + frameDurations[frame], now);
+      handler.postAtTime(this, nextFrameTime);
+    }
+  };
+
+  private final MapView.OnDidFinishRenderingFrameListener renderListener =
+    new MapView.OnDidFinishRenderingFrameListener() {
+      @Override
+      public void onDidFinishRenderingFrame(boolean fully) {
+        if (fully && renderStartNanos >= 0) {
+          renderNanos += System.nanoTime() - renderStartNanos;
+          renderedFrames++;
+          renderStartNanos = -1;
+        }
+      }
+    };
+
+  /**
+   * Shows every frame with a layer of its own, created up front and hidden, and shows a frame by
+   * toggling the visibility of its layer and of the previous frame's layer.
+   */
+  public static class LayerPerFrameStrategy implements Strategy {
+
+    /**
+     * Creates the layer showing a frame, either filtering a shared source by frame or using a source
+     * holding the frame only.
+     */
+    public interface LayerFactory {
+      @NonNull
+      Layer create(@NonNull String layerId, int frame);
+    }
+
+    private final MapboxMap mapboxMap;
+    private final Layer[] layers;
+
+    /**
+     * Creates the layers and adds them to the map, hidden.
+     *
+     * @param belowLayerId the layer to add the layers below, or null to add them on top
+     */
+    public LayerPerFrameStrategy(@NonNull MapboxMap mapboxMap, @NonNull String layerIdPrefix, int frameCount,
+                                 @NonNull LayerFactory factory, @Nullable String belowLayerId) {
+      this.mapboxMap = mapboxMap;
+      this.layers = new Layer[frameCount];
+      for (int i = 0; i < frameCount; i++) {
+        Layer layer = factory.create(layerIdPrefix + i, i);
+        layer.setProperties(PropertyFactory.visibility(Property.NONE));
+        if (belowLayerId != null) {
+          mapboxMap.addLayerBelow(layer, belowLayerId);
+        } else {
+          mapboxMap.addLayer(layer);
+        }
+        layers[i] = layer;
+      }
+    }
+
+    @Override
+    public void showFrame(int frame, int previousFrame) {
+      layers[frame].setProperties(PropertyFactory.visibility(Property.VISIBLE));
+      if (previousFrame >= 0) {
+        layers[previousFrame].setProperties(PropertyFactory.visibility(Property.NONE));
+      }
+    }
+
+    /**
+     * Removes the layers from the map.
+     */
+    public void remove() {
+      for (Layer layer : layers) {
+        mapboxMap.removeLayer(layer);
+      }
+    }
+  }
+}
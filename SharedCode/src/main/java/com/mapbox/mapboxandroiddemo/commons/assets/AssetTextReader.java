@@ -0,0 +1,72 @@
+package com.mapbox.mapboxandroiddemo.commons.assets;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Reads text files from the assets folder in bulk.
+ * <p>
+ * Characters are decoded a chunk at a time into a char buffer that is reused by every read on the same
+ * thread, instead of being pulled through {@link Reader#read()} and appended one at a time.
+ * </p>
+ */
+public final class AssetTextReader {
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  private static final ThreadLocal<char[]> CHUNK_BUFFER = new ThreadLocal<char[]>() {
+    @Override
+    protected char[] initialValue() {
+      return new char[CHUNK_SIZE];
+    }
+  };
+
+  private AssetTextReader() {
+    // No instances
+  }
+
+  /**
+   * Reads a UTF-8 encoded file from the assets folder.
+   *
+   * @param context  the context used to access the assets
+   * @param filename the name of the file in the assets folder
+   * @return the contents of the file
+   * @throws IOException if the file can't be read
+   */
+  @WorkerThread
+  @NonNull
+  public static String readAsset(@NonNull Context context, @NonNull String filename) throws IOException {
+    return read(context.getAssets().open(filename));
+  }
+
+  /**
+   * Reads a UTF-8 encoded stream to the end and closes it.
+   *
+   * @param inputStream the stream to read
+   * @return the contents of the stream
+   * @throws IOException if the stream can't be read
+   */
+  @WorkerThread
+  @NonNull
+  public static String read(@NonNull InputStream inputStream) throws IOException {
+    // available() is only a sizing hint here, the loop below reads until the end of the stream
+    StringBuilder builder = new StringBuilder(Math.max(inputStream.available(), CHUNK_SIZE));
+    Reader reader = new InputStreamReader(inputStream, GeoJsonAssetLoader.UTF_8);
+    try {
+      char[] chunk = CHUNK_BUFFER.get();
+      int count;
+      while ((count = reader.read(chunk, 0, chunk.length)) != -1) {
+        builder.append(chunk, 0, count);
+      }
+    } finally {
+      reader.close();
+    }
+    return builder.toString();
+  }
+}
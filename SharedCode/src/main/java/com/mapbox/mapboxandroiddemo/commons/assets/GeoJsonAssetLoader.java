@@ -0,0 +1,225 @@
+package com.mapbox.mapboxandroiddemo.commons.assets;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.mapbox.geojson.BoundingBox;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Geometry;
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.gson.BoundingBoxDeserializer;
+import com.mapbox.geojson.gson.GeoJsonAdapterFactory;
+import com.mapbox.geojson.gson.GeometryDeserializer;
+import com.mapbox.geojson.gson.PointDeserializer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads GeoJSON files from the assets folder into {@link FeatureCollection}s.
+ * <p>
+ * Files are stream-parsed on a shared background executor, so the whole file never has to be held in
+ * memory as a String, and the result is handed back on the main thread through a {@link Callback}.
+ * </p>
+ * <p>
+ * Parsed assets are also kept in a {@link GeoJsonBinaryCache}, so that later loads, including ones in
+ * later sessions, skip parsing the GeoJSON text. The cache entry is written after the first load has
+ * been handed back, so it never delays it.
+ * </p>
+ */
+public class GeoJsonAssetLoader {
+
+  public static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String TAG = "GeoJsonAssetLoader";
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private static volatile GeoJsonAssetLoader instance;
+
+  private final AssetManager assetManager;
+  private final ExecutorService executor;
+  private final Handler mainHandler;
+  private final Gson gson;
+  private final GeoJsonBinaryCache binaryCache;
+
+  /**
+   * Callback invoked on the main thread once an asset has been loaded.
+   */
+  public interface Callback {
+
+    void onLoaded(@NonNull FeatureCollection featureCollection);
+
+    void onError(@NonNull Exception exception);
+  }
+
+  /**
+   * Returns the process wide instance of the loader.
+   *
+   * @param context any context, only the application context is retained
+   * @return the shared loader
+   */
+  public static GeoJsonAssetLoader getInstance(@NonNull Context context) {
+    if (instance == null) {
+      synchronized (GeoJsonAssetLoader.class) {
+        if (instance == null) {
+          instance = new GeoJsonAssetLoader(context.getApplicationContext());
+        }
+      }
+    }
+    return instance;
+  }
+
+  private GeoJsonAssetLoader(Context appContext) {
+    this.assetManager = appContext.getAssets();
+    this.executor = Executors.newSingleThreadExecutor();
+    this.mainHandler = new Handler(Looper.getMainLooper());
+    this.gson = new GsonBuilder()
+      .registerTypeAdapterFactory(GeoJsonAdapterFactory.create())
+      .registerTypeAdapter(Point.class, new PointDeserializer())
+      .registerTypeAdapter(Geometry.class, new GeometryDeserializer())
+      .registerTypeAdapter(BoundingBox.class, new BoundingBoxDeserializer())
+      .create();
+    this.binaryCache = new GeoJsonBinaryCache(appContext);
+  }
+
+  /**
+   * Loads a GeoJSON file on the background executor and delivers it to the callback on the main thread.
+   *
+   * @param filename the name of the file in the assets folder
+   * @param callback the callback to notify when loading has finished
+   * @return the pending request, which can be cancelled to drop the result
+   */
+  public Request load(@NonNull final String filename, @NonNull Callback callback) {
+    final Request request = new Request(callback);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (request.isCancelled()) {
+          return;
+        }
+        try {
+          request.deliver(loadSync(filename));
+        } catch (IOException | RuntimeException exception) {
+          // Runtime exceptions, such as from a deserializer given a malformed geometry, would otherwise
+          // be swallowed by the executor and leave the caller waiting forever
+          request.deliver(exception);
+        }
+      }
+    });
+    return request;
+  }
+
+  /**
+   * Loads a GeoJSON file on the calling thread, for callers that are already off the main thread.
+   *
+   * @param filename the name of the file in the assets folder
+   * @return the parsed feature collection
+   * @throws IOException if the file can't be read or isn't valid GeoJSON
+   */
+  @WorkerThread
+  @NonNull
+  public FeatureCollection loadSync(@NonNull String filename) throws IOException {
+    FeatureCollection featureCollection = binaryCache.read(filename);
+    if (featureCollection == null) {
+      featureCollection = parse(filename);
+      scheduleCacheWrite(filename);
+    }
+    return featureCollection;
+  }
+
+  /**
+   * Caches an asset once the tasks queued before this one, including handing back the load that missed
+   * the cache, are done. The asset is parsed again for it, since callers are free to change the features
+   * they were given while the cache is being written.
+   */
+  private void scheduleCacheWrite(final String filename) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (binaryCache.getCacheFile(filename).exists()) {
+          return;
+        }
+        try {
+          binaryCache.write(filename, parse(filename));
+        } catch (IOException | RuntimeException exception) {
+          Log.w(TAG, "Unable to cache " + filename, exception);
+        }
+      }
+    });
+  }
+
+  private FeatureCollection parse(String filename) throws IOException {
+    JsonReader reader = new JsonReader(new InputStreamReader(openAsset(filename), UTF_8));
+    try {
+      FeatureCollection featureCollection = gson.fromJson(reader, FeatureCollection.class);
+      if (featureCollection == null) {
+        throw new IOException("Asset " + filename + " is empty");
+      }
+      return featureCollection;
+    } catch (JsonParseException exception) {
+      throw new IOException("Unable to parse " + filename, exception);
+    } finally {
+      reader.close();
+    }
+  }
+
+  InputStream openAsset(@NonNull String filename) throws IOException {
+    return new BufferedInputStream(assetManager.open(filename), BUFFER_SIZE);
+  }
+
+  /**
+   * A pending load. Cancelling a request stops its callback from being invoked.
+   */
+  public class Request {
+
+    private final Callback callback;
+    private volatile boolean cancelled;
+
+    Request(Callback callback) {
+      this.callback = callback;
+    }
+
+    public void cancel() {
+      cancelled = true;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    void deliver(final FeatureCollection featureCollection) {
+      mainHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          if (!cancelled) {
+            callback.onLoaded(featureCollection);
+          }
+        }
+      });
+    }
+
+    void deliver(final Exception exception) {
+      mainHandler.post(new Runnable() {
+        @Override
+        public void run() {
+          if (!cancelled) {
+            callback.onError(exception);
+          }
+        }
+      });
+    }
+  }
+}
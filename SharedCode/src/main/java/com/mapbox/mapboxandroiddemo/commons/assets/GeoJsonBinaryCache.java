@@ -0,0 +1,526 @@
+package com.mapbox.mapboxandroiddemo.commons.assets;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.mapbox.geojson.BoundingBox;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Geometry;
+import com.mapbox.geojson.GeometryCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.MultiLineString;
+import com.mapbox.geojson.MultiPoint;
+import com.mapbox.geojson.MultiPolygon;
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.Polygon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a compact binary copy of parsed GeoJSON assets in app-private storage.
+ * <p>
+ * The first time an asset is loaded its {@link FeatureCollection} is written out with packed coordinate
+ * arrays, a shared string table for ids and properties, the bounding boxes of the collection, features and
+ * geometries, and an offset per feature. Later opens memory-map that file and rebuild the features
+ * directly, skipping JSON tokenizing altogether. Cache files are keyed
+ * by asset name and the app's version code, so updating the app invalidates them.
+ * </p>
+ * <p>
+ * What this saves is tokenizing and number parsing, not allocation: the whole collection is still
+ * decoded up front, with a {@link Feature}, a properties object and a {@link Point} per coordinate, so
+ * a cached load allocates about as much as parsing the JSON does, and the mapped file is only read once.
+ * </p>
+ */
+public class GeoJsonBinaryCache {
+
+  private static final String TAG = "GeoJsonBinaryCache";
+  private static final String CACHE_DIRECTORY = "geojson-cache";
+  private static final String CACHE_FILE_EXTENSION = ".bin";
+
+  private static final int MAGIC = 0x4D424743; // "MBGC"
+  private static final int FORMAT_VERSION = 2;
+
+  private static final byte GEOMETRY_NONE = 0;
+  private static final byte GEOMETRY_POINT = 1;
+  private static final byte GEOMETRY_MULTI_POINT = 2;
+  private static final byte GEOMETRY_LINE_STRING = 3;
+  private static final byte GEOMETRY_MULTI_LINE_STRING = 4;
+  private static final byte GEOMETRY_POLYGON = 5;
+  private static final byte GEOMETRY_MULTI_POLYGON = 6;
+  private static final byte GEOMETRY_COLLECTION = 7;
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_DOUBLE = 3;
+  private static final byte VALUE_TRUE = 4;
+  private static final byte VALUE_FALSE = 5;
+  private static final byte VALUE_JSON = 6;
+
+  private static final byte BOUNDING_BOX_NONE = 0;
+  private static final byte BOUNDING_BOX_2D = 2;
+  private static final byte BOUNDING_BOX_3D = 3;
+
+  private static final int NO_STRING = -1;
+
+  private final File cacheDirectory;
+  private final int versionCode;
+
+  public GeoJsonBinaryCache(@NonNull Context context) {
+    this.cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY);
+    this.versionCode = getVersionCode(context);
+  }
+
+  /**
+   * Reads a previously cached asset.
+   *
+   * @param assetName the name of the file in the assets folder
+   * @return the cached feature collection, or null if there's no valid cache entry for this app version
+   */
+  @WorkerThread
+  @Nullable
+  public FeatureCollection read(@NonNull String assetName) {
+    File file = getCacheFile(assetName);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      return new Decoder(map(file)).decode();
+    } catch (IOException | RuntimeException exception) {
+      // A truncated or corrupt file can fail anywhere in decoding, such as with an out of range string
+      // index, fall back to parsing the asset in every case
+      Log.w(TAG, "Discarding unreadable cache file " + file, exception);
+      deleteQuietly(file);
+      return null;
+    }
+  }
+
+  /**
+   * Writes an asset's features to the cache, replacing entries cached by previous app versions.
+   *
+   * @param assetName         the name of the file in the assets folder
+   * @param featureCollection the parsed contents of the asset
+   */
+  @WorkerThread
+  public void write(@NonNull String assetName, @NonNull FeatureCollection featureCollection) {
+    if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+      Log.w(TAG, "Unable to create " + cacheDirectory);
+      return;
+    }
+    deleteStaleFiles(assetName);
+
+    File file = getCacheFile(assetName);
+    File tempFile = new File(cacheDirectory, file.getName() + ".tmp");
+    try {
+      DataOutputStream output = new DataOutputStream(new FileOutputStream(tempFile));
+      try {
+        new Encoder().encode(featureCollection, output);
+      } finally {
+        output.close();
+      }
+      if (!tempFile.renameTo(file)) {
+        throw new IOException("Unable to rename " + tempFile + " to " + file);
+      }
+    } catch (IOException exception) {
+      Log.w(TAG, "Unable to cache " + assetName, exception);
+      deleteQuietly(tempFile);
+    }
+  }
+
+  File getCacheFile(String assetName) {
+    return new File(cacheDirectory, getCacheFilePrefix(assetName) + versionCode + CACHE_FILE_EXTENSION);
+  }
+
+  private static String getCacheFilePrefix(String assetName) {
+    return assetName.replaceAll("[^A-Za-z0-9._-]", "_") + "_";
+  }
+
+  private void deleteStaleFiles(String assetName) {
+    File[] files = cacheDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    String prefix = getCacheFilePrefix(assetName);
+    for (File file : files) {
+      if (file.getName().startsWith(prefix)) {
+        deleteQuietly(file);
+      }
+    }
+  }
+
+  private static MappedByteBuffer map(File file) throws IOException {
+    FileInputStream input = new FileInputStream(file);
+    try {
+      FileChannel channel = input.getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      input.close();
+    }
+  }
+
+  private static void deleteQuietly(File file) {
+    if (file.exists() && !file.delete()) {
+      Log.w(TAG, "Unable to delete " + file);
+    }
+  }
+
+  private static int getVersionCode(Context context) {
+    try {
+      return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+    } catch (PackageManager.NameNotFoundException exception) {
+      return 0;
+    }
+  }
+
+  /**
+   * Writes the header, string table, feature offsets and feature records, in that order.
+   */
+  private static class Encoder {
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final ByteArrayOutputStream featureBytes = new ByteArrayOutputStream();
+    private final DataOutputStream features = new DataOutputStream(featureBytes);
+
+    void encode(FeatureCollection featureCollection, DataOutputStream output) throws IOException {
+      List<Feature> featureList = featureCollection.features();
+      if (featureList == null) {
+        featureList = Collections.emptyList();
+      }
+      int[] offsets = new int[featureList.size()];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = features.size();
+        writeFeature(featureList.get(i));
+      }
+      features.flush();
+
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeInt(strings.size());
+      output.writeInt(offsets.length);
+      writeBoundingBox(featureCollection.bbox(), output);
+      for (String string : strings.keySet()) {
+        byte[] bytes = string.getBytes(GeoJsonAssetLoader.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+      }
+      for (int offset : offsets) {
+        output.writeInt(offset);
+      }
+      featureBytes.writeTo(output);
+    }
+
+    private void writeFeature(Feature feature) throws IOException {
+      features.writeInt(feature.id() == null ? NO_STRING : indexOf(feature.id()));
+
+      JsonObject properties = feature.properties();
+      if (properties == null) {
+        features.writeInt(0);
+      } else {
+        features.writeInt(properties.size());
+        for (Map.Entry<String, JsonElement> property : properties.entrySet()) {
+          features.writeInt(indexOf(property.getKey()));
+          writeValue(property.getValue());
+        }
+      }
+      writeBoundingBox(feature.bbox(), features);
+      writeGeometry(feature.geometry());
+    }
+
+    private void writeValue(JsonElement value) throws IOException {
+      if (value == null || value.isJsonNull()) {
+        features.writeByte(VALUE_NULL);
+      } else if (!value.isJsonPrimitive()) {
+        features.writeByte(VALUE_JSON);
+        features.writeInt(indexOf(value.toString()));
+      } else {
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+          features.writeByte(primitive.getAsBoolean() ? VALUE_TRUE : VALUE_FALSE);
+        } else if (primitive.isNumber()) {
+          double number = primitive.getAsDouble();
+          if (number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE
+            && primitive.getAsString().indexOf('.') < 0) {
+            features.writeByte(VALUE_LONG);
+            features.writeLong(primitive.getAsLong());
+          } else {
+            features.writeByte(VALUE_DOUBLE);
+            features.writeDouble(number);
+          }
+        } else {
+          features.writeByte(VALUE_STRING);
+          features.writeInt(indexOf(primitive.getAsString()));
+        }
+      }
+    }
+
+    private void writeGeometry(Geometry geometry) throws IOException {
+      if (geometry instanceof Point) {
+        writeGeometryHeader(GEOMETRY_POINT, geometry);
+        writePoints(Collections.singletonList((Point) geometry));
+      } else if (geometry instanceof MultiPoint) {
+        writeGeometryHeader(GEOMETRY_MULTI_POINT, geometry);
+        writePoints(((MultiPoint) geometry).coordinates());
+      } else if (geometry instanceof LineString) {
+        writeGeometryHeader(GEOMETRY_LINE_STRING, geometry);
+        writePoints(((LineString) geometry).coordinates());
+      } else if (geometry instanceof MultiLineString) {
+        writeGeometryHeader(GEOMETRY_MULTI_LINE_STRING, geometry);
+        writeRings(((MultiLineString) geometry).coordinates());
+      } else if (geometry instanceof Polygon) {
+        writeGeometryHeader(GEOMETRY_POLYGON, geometry);
+        writeRings(((Polygon) geometry).coordinates());
+      } else if (geometry instanceof MultiPolygon) {
+        writeGeometryHeader(GEOMETRY_MULTI_POLYGON, geometry);
+        List<List<List<Point>>> polygons = ((MultiPolygon) geometry).coordinates();
+        features.writeInt(polygons.size());
+        for (List<List<Point>> polygon : polygons) {
+          writeRings(polygon);
+        }
+      } else if (geometry instanceof GeometryCollection) {
+        writeGeometryHeader(GEOMETRY_COLLECTION, geometry);
+        List<Geometry> geometries = ((GeometryCollection) geometry).geometries();
+        features.writeInt(geometries.size());
+        for (Geometry child : geometries) {
+          writeGeometry(child);
+        }
+      } else {
+        features.writeByte(GEOMETRY_NONE);
+      }
+    }
+
+    private void writeGeometryHeader(byte type, Geometry geometry) throws IOException {
+      features.writeByte(type);
+      writeBoundingBox(geometry.bbox(), features);
+    }
+
+    private static void writeBoundingBox(BoundingBox bbox, DataOutputStream output) throws IOException {
+      if (bbox == null) {
+        output.writeByte(BOUNDING_BOX_NONE);
+        return;
+      }
+      Point southwest = bbox.southwest();
+      Point northeast = bbox.northeast();
+      boolean hasAltitude = southwest.hasAltitude() && northeast.hasAltitude();
+      output.writeByte(hasAltitude ? BOUNDING_BOX_3D : BOUNDING_BOX_2D);
+      output.writeDouble(southwest.longitude());
+      output.writeDouble(southwest.latitude());
+      if (hasAltitude) {
+        output.writeDouble(southwest.altitude());
+      }
+      output.writeDouble(northeast.longitude());
+      output.writeDouble(northeast.latitude());
+      if (hasAltitude) {
+        output.writeDouble(northeast.altitude());
+      }
+    }
+
+    private void writeRings(List<List<Point>> rings) throws IOException {
+      features.writeInt(rings.size());
+      for (List<Point> ring : rings) {
+        writePoints(ring);
+      }
+    }
+
+    private void writePoints(List<Point> points) throws IOException {
+      boolean hasAltitude = false;
+      for (Point point : points) {
+        hasAltitude |= point.hasAltitude();
+      }
+      features.writeInt(points.size());
+      features.writeByte(hasAltitude ? 3 : 2);
+      for (Point point : points) {
+        features.writeDouble(point.longitude());
+        features.writeDouble(point.latitude());
+        if (hasAltitude) {
+          features.writeDouble(point.hasAltitude() ? point.altitude() : 0);
+        }
+      }
+    }
+
+    private int indexOf(String string) {
+      Integer index = strings.get(string);
+      if (index == null) {
+        index = strings.size();
+        strings.put(string, index);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Rebuilds every feature from a memory-mapped cache file at once, into regular geojson objects.
+   */
+  private static class Decoder {
+
+    private final ByteBuffer buffer;
+    private final JsonParser jsonParser = new JsonParser();
+    private String[] strings;
+
+    Decoder(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    FeatureCollection decode() throws IOException {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        throw new IOException("Unsupported cache format");
+      }
+      strings = new String[buffer.getInt()];
+      int featureCount = buffer.getInt();
+      BoundingBox bbox = readBoundingBox();
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, GeoJsonAssetLoader.UTF_8);
+      }
+
+      int[] offsets = new int[featureCount];
+      for (int i = 0; i < featureCount; i++) {
+        offsets[i] = buffer.getInt();
+      }
+      int featureSectionStart = buffer.position();
+
+      List<Feature> featureList = new ArrayList<>(featureCount);
+      for (int offset : offsets) {
+        buffer.position(featureSectionStart + offset);
+        featureList.add(readFeature());
+      }
+      return FeatureCollection.fromFeatures(featureList, bbox);
+    }
+
+    private Feature readFeature() throws IOException {
+      int idIndex = buffer.getInt();
+      int propertyCount = buffer.getInt();
+      JsonObject properties = new JsonObject();
+      for (int i = 0; i < propertyCount; i++) {
+        properties.add(strings[buffer.getInt()], readValue());
+      }
+      String id = idIndex == NO_STRING ? null : strings[idIndex];
+      BoundingBox bbox = readBoundingBox();
+      return Feature.fromGeometry(readGeometry(), properties, id, bbox);
+    }
+
+    private JsonElement readValue() throws IOException {
+      byte type = buffer.get();
+      switch (type) {
+        case VALUE_NULL:
+          return JsonNull.INSTANCE;
+        case VALUE_STRING:
+          return new JsonPrimitive(strings[buffer.getInt()]);
+        case VALUE_LONG:
+          return new JsonPrimitive(buffer.getLong());
+        case VALUE_DOUBLE:
+          return new JsonPrimitive(buffer.getDouble());
+        case VALUE_TRUE:
+          return new JsonPrimitive(true);
+        case VALUE_FALSE:
+          return new JsonPrimitive(false);
+        case VALUE_JSON:
+          return jsonParser.parse(strings[buffer.getInt()]);
+        default:
+          throw new IOException("Unknown property type " + type);
+      }
+    }
+
+    private Geometry readGeometry() throws IOException {
+      byte type = buffer.get();
+      if (type == GEOMETRY_NONE) {
+        return null;
+      }
+      BoundingBox bbox = readBoundingBox();
+      switch (type) {
+        case GEOMETRY_POINT:
+          Point point = readPoints().get(0);
+          return point.hasAltitude()
+            ? Point.fromLngLat(point.longitude(), point.latitude(), point.altitude(), bbox)
+            : Point.fromLngLat(point.longitude(), point.latitude(), bbox);
+        case GEOMETRY_MULTI_POINT:
+          return MultiPoint.fromLngLats(readPoints(), bbox);
+        case GEOMETRY_LINE_STRING:
+          return LineString.fromLngLats(readPoints(), bbox);
+        case GEOMETRY_MULTI_LINE_STRING:
+          return MultiLineString.fromLngLats(readRings(), bbox);
+        case GEOMETRY_POLYGON:
+          return Polygon.fromLngLats(readRings(), bbox);
+        case GEOMETRY_MULTI_POLYGON:
+          int polygonCount = buffer.getInt();
+          List<List<List<Point>>> polygons = new ArrayList<>(polygonCount);
+          for (int i = 0; i < polygonCount; i++) {
+            polygons.add(readRings());
+          }
+          return MultiPolygon.fromLngLats(polygons, bbox);
+        case GEOMETRY_COLLECTION:
+          int geometryCount = buffer.getInt();
+          List<Geometry> geometries = new ArrayList<>(geometryCount);
+          for (int i = 0; i < geometryCount; i++) {
+            geometries.add(readGeometry());
+          }
+          return GeometryCollection.fromGeometries(geometries, bbox);
+        default:
+          throw new IOException("Unknown geometry type " + type);
+      }
+    }
+
+    private BoundingBox readBoundingBox() throws IOException {
+      byte type = buffer.get();
+      switch (type) {
+        case BOUNDING_BOX_NONE:
+          return null;
+        case BOUNDING_BOX_2D:
+          return BoundingBox.fromPoints(Point.fromLngLat(buffer.getDouble(), buffer.getDouble()),
+            Point.fromLngLat(buffer.getDouble(), buffer.getDouble()));
+        case BOUNDING_BOX_3D:
+          return BoundingBox.fromPoints(
+            Point.fromLngLat(buffer.getDouble(), buffer.getDouble(), buffer.getDouble()),
+            Point.fromLngLat(buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+        default:
+          throw new IOException("Unknown bounding box type " + type);
+      }
+    }
+
+    private List<List<Point>> readRings() {
+      int ringCount = buffer.getInt();
+      List<List<Point>> rings = new ArrayList<>(ringCount);
+      for (int i = 0; i < ringCount; i++) {
+        rings.add(readPoints());
+      }
+      return rings;
+    }
+
+    private List<Point> readPoints() {
+      int count = buffer.getInt();
+      boolean hasAltitude = buffer.get() == 3;
+      List<Point> points = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        double longitude = buffer.getDouble();
+        double latitude = buffer.getDouble();
+        points.add(hasAltitude
+          ? Point.fromLngLat(longitude, latitude, buffer.getDouble())
+          : Point.fromLngLat(longitude, latitude));
+      }
+      return points;
+    }
+  }
+}
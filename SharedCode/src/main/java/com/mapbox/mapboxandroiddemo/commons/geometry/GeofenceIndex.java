@@ -0,0 +1,155 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * A static index of polygonal geofences, such as building footprints, answering which ones contain a
+ * location.
+ * <p>
+ * Footprints are copied once into flat arrays together with their bounding boxes. Their bounding box
+ * centers are indexed with a {@link KdPointIndex}, so a query only looks at footprints whose center is
+ * within the largest half width and half height of any footprint from the location, then rejects those
+ * whose bounding box doesn't contain it, and only runs the point in polygon test on the rest. Queries
+ * don't allocate, and like the underlying index, must only be made from one thread at a time.
+ * </p>
+ * <p>
+ * Footprints are single rings of longitude/latitude pairs, holes aren't supported.
+ * </p>
+ */
+public class GeofenceIndex {
+
+  private final int size;
+  private final double[][] rings;
+  private final double[] boxes;
+  private final KdPointIndex centers;
+  private final double maxHalfWidth;
+  private final double maxHalfHeight;
+
+  private final ContainsVisitor containsVisitor = new ContainsVisitor();
+
+  /**
+   * Receives the geofences found by a query.
+   */
+  public interface Visitor {
+
+    /**
+     * @param geofence the index of the geofence, in the list the index was built from
+     */
+    void visit(int geofence);
+  }
+
+  /**
+   * Builds an index over footprints, which are copied.
+   *
+   * @param footprints the outer ring of every geofence, the ring may or may not be closed
+   */
+  public GeofenceIndex(@NonNull List<PackedCoordinates> footprints) {
+    size = footprints.size();
+    rings = new double[size][];
+    boxes = new double[size * 4];
+    double[] centerCoordinates = new double[size * 2];
+    double halfWidth = 0;
+    double halfHeight = 0;
+    for (int i = 0; i < size; i++) {
+      PackedCoordinates footprint = footprints.get(i);
+      double[] ring = new double[footprint.size() * 2];
+      System.arraycopy(footprint.array(), 0, ring, 0, ring.length);
+      rings[i] = ring;
+
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < ring.length; j += 2) {
+        minX = Math.min(minX, ring[j]);
+        minY = Math.min(minY, ring[j + 1]);
+        maxX = Math.max(maxX, ring[j]);
+        maxY = Math.max(maxY, ring[j + 1]);
+      }
+      boxes[4 * i] = minX;
+      boxes[4 * i + 1] = minY;
+      boxes[4 * i + 2] = maxX;
+      boxes[4 * i + 3] = maxY;
+      centerCoordinates[2 * i] = (minX + maxX) / 2;
+      centerCoordinates[2 * i + 1] = (minY + maxY) / 2;
+      halfWidth = Math.max(halfWidth, (maxX - minX) / 2);
+      halfHeight = Math.max(halfHeight, (maxY - minY) / 2);
+    }
+    maxHalfWidth = halfWidth;
+    maxHalfHeight = halfHeight;
+    centers = new KdPointIndex(centerCoordinates, size, 16);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Reports every geofence containing a location.
+   */
+  public void query(double longitude, double latitude, @NonNull Visitor visitor) {
+    containsVisitor.longitude = longitude;
+    containsVisitor.latitude = latitude;
+    containsVisitor.visitor = visitor;
+    try {
+      centers.range(longitude - maxHalfWidth, latitude - maxHalfHeight,
+        longitude + maxHalfWidth, latitude + maxHalfHeight, containsVisitor);
+    } finally {
+      containsVisitor.visitor = null;
+    }
+  }
+
+  /**
+   * Returns whether a geofence contains a location.
+   */
+  public boolean contains(int geofence, double longitude, double latitude) {
+    if (longitude < boxes[4 * geofence] || latitude < boxes[4 * geofence + 1]
+      || longitude > boxes[4 * geofence + 2] || latitude > boxes[4 * geofence + 3]) {
+      return false;
+    }
+    return insideRing(rings[geofence], longitude, latitude);
+  }
+
+  /**
+   * Returns the bounding box of a geofence, as west, south, east and north.
+   */
+  @NonNull
+  public double[] getBounds(int geofence, @NonNull double[] result) {
+    System.arraycopy(boxes, 4 * geofence, result, 0, 4);
+    return result;
+  }
+
+  /**
+   * Even-odd ray casting, counting the edges crossed by a ray going east from the location.
+   */
+  private static boolean insideRing(double[] ring, double x, double y) {
+    boolean inside = false;
+    int count = ring.length / 2;
+    for (int i = 0, j = count - 1; i < count; j = i++) {
+      double xi = ring[2 * i];
+      double yi = ring[2 * i + 1];
+      double xj = ring[2 * j];
+      double yj = ring[2 * j + 1];
+      if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+
+  private class ContainsVisitor implements KdPointIndex.Visitor {
+
+    double longitude;
+    double latitude;
+    Visitor visitor;
+
+    @Override
+    public void visit(int index) {
+      if (contains(index, longitude, latitude)) {
+        visitor.visit(index);
+      }
+    }
+  }
+}
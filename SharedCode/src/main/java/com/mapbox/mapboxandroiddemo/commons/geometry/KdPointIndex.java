@@ -0,0 +1,298 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A static KD-tree over 2D points, stored in two flat arrays.
+ * <p>
+ * The points are sorted once, in place, into a KD-tree layout: every range of more than
+ * {@code nodeSize} points is split at its median on alternating axes. Queries walk that layout with
+ * an explicit stack, so neither building nor querying allocates per point. Points are reported by
+ * their index in the coordinates the index was built from. Queries share that stack, so an index
+ * must only be queried from one thread at a time.
+ * </p>
+ * <p>
+ * Distances are planar, so index projected coordinates, see {@link WebMercator}, when the distance
+ * should be the same in every direction.
+ * </p>
+ */
+public class KdPointIndex {
+
+  /**
+   * Receives the points found by a query.
+   */
+  public interface Visitor {
+    void visit(int index);
+  }
+
+  private static final int DEFAULT_NODE_SIZE = 64;
+
+  private final int nodeSize;
+  private final int size;
+  private final int[] ids;
+  private final double[] coords;
+  private int[] stack = new int[3 * 32];
+
+  /**
+   * Builds an index over the coordinates, which are copied.
+   *
+   * @param coordinates the points, as x/y pairs
+   */
+  public KdPointIndex(@NonNull PackedCoordinates coordinates) {
+    this(coordinates.array(), coordinates.size(), DEFAULT_NODE_SIZE);
+  }
+
+  /**
+   * Builds an index over the first {@code size} x/y pairs of an array, which is copied.
+   *
+   * @param xy       the points, as x/y pairs
+   * @param size     the number of points
+   * @param nodeSize the number of points below which ranges are scanned rather than split
+   */
+  public KdPointIndex(@NonNull double[] xy, int size, int nodeSize) {
+    this.nodeSize = Math.max(nodeSize, 1);
+    this.size = size;
+    this.coords = Arrays.copyOf(xy, size * 2);
+    this.ids = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = i;
+    }
+    sort(0, size - 1, 0);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Reports every point inside a bounding box, edges included.
+   */
+  public void range(double minX, double minY, double maxX, double maxY, @NonNull Visitor visitor) {
+    if (size == 0) {
+      return;
+    }
+    int top = push(0, 0, size - 1, 0);
+    while (top > 0) {
+      int axis = stack[--top];
+      int right = stack[--top];
+      int left = stack[--top];
+
+      if (right - left <= nodeSize) {
+        for (int i = left; i <= right; i++) {
+          double x = coords[2 * i];
+          double y = coords[2 * i + 1];
+          if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+            visitor.visit(ids[i]);
+          }
+        }
+        continue;
+      }
+
+      int middle = (left + right) >> 1;
+      double x = coords[2 * middle];
+      double y = coords[2 * middle + 1];
+      if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+        visitor.visit(ids[middle]);
+      }
+
+      int nextAxis = 1 - axis;
+      if (axis == 0 ? minX <= x : minY <= y) {
+        top = push(top, left, middle - 1, nextAxis);
+      }
+      if (axis == 0 ? maxX >= x : maxY >= y) {
+        top = push(top, middle + 1, right, nextAxis);
+      }
+    }
+  }
+
+  /**
+   * Reports every point within a radius of a location.
+   */
+  public void within(double qx, double qy, double radius, @NonNull Visitor visitor) {
+    if (size == 0) {
+      return;
+    }
+    double sqRadius = radius * radius;
+    int top = push(0, 0, size - 1, 0);
+    while (top > 0) {
+      int axis = stack[--top];
+      int right = stack[--top];
+      int left = stack[--top];
+
+      if (right - left <= nodeSize) {
+        for (int i = left; i <= right; i++) {
+          if (sqDistance(coords[2 * i], coords[2 * i + 1], qx, qy) <= sqRadius) {
+            visitor.visit(ids[i]);
+          }
+        }
+        continue;
+      }
+
+      int middle = (left + right) >> 1;
+      double x = coords[2 * middle];
+      double y = coords[2 * middle + 1];
+      if (sqDistance(x, y, qx, qy) <= sqRadius) {
+        visitor.visit(ids[middle]);
+      }
+
+      int nextAxis = 1 - axis;
+      if (axis == 0 ? qx - radius <= x : qy - radius <= y) {
+        top = push(top, left, middle - 1, nextAxis);
+      }
+      if (axis == 0 ? qx + radius >= x : qy + radius >= y) {
+        top = push(top, middle + 1, right, nextAxis);
+      }
+    }
+  }
+
+  /**
+   * Returns the point closest to a location.
+   *
+   * @param maxDistance only points at most this far away are considered
+   * @return the index of the closest point, or -1 if there is none within maxDistance
+   */
+  public int nearest(double qx, double qy, double maxDistance) {
+    if (size == 0) {
+      return -1;
+    }
+    int nearest = -1;
+    double radius = maxDistance;
+    double sqRadius = radius * radius;
+    int top = push(0, 0, size - 1, 0);
+    while (top > 0) {
+      int axis = stack[--top];
+      int right = stack[--top];
+      int left = stack[--top];
+
+      if (right - left <= nodeSize) {
+        for (int i = left; i <= right; i++) {
+          double sqDistance = sqDistance(coords[2 * i], coords[2 * i + 1], qx, qy);
+          if (sqDistance <= sqRadius) {
+            nearest = ids[i];
+            sqRadius = sqDistance;
+            radius = Math.sqrt(sqDistance);
+          }
+        }
+        continue;
+      }
+
+      int middle = (left + right) >> 1;
+      double x = coords[2 * middle];
+      double y = coords[2 * middle + 1];
+      double sqDistance = sqDistance(x, y, qx, qy);
+      if (sqDistance <= sqRadius) {
+        nearest = ids[middle];
+        sqRadius = sqDistance;
+        radius = Math.sqrt(sqDistance);
+      }
+
+      // The search radius only shrinks, and children are only pushed if they're within the current one.
+      // Ranges pushed before it shrank are still walked, their points and children are checked against
+      // the smaller radius then
+      int nextAxis = 1 - axis;
+      if (axis == 0 ? qx - radius <= x : qy - radius <= y) {
+        top = push(top, left, middle - 1, nextAxis);
+      }
+      if (axis == 0 ? qx + radius >= x : qy + radius >= y) {
+        top = push(top, middle + 1, right, nextAxis);
+      }
+    }
+    return nearest;
+  }
+
+  private int push(int top, int left, int right, int axis) {
+    if (top + 3 > stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    }
+    stack[top] = left;
+    stack[top + 1] = right;
+    stack[top + 2] = axis;
+    return top + 3;
+  }
+
+  private void sort(int left, int right, int axis) {
+    if (right - left <= nodeSize) {
+      return;
+    }
+    int middle = (left + right) >> 1;
+    select(middle, left, right, axis);
+    sort(left, middle - 1, 1 - axis);
+    sort(middle + 1, right, 1 - axis);
+  }
+
+  /**
+   * Floyd-Rivest selection: rearranges the range so that the point at k is the one that would be
+   * there if the range was sorted on the axis, with smaller values before it and larger ones after.
+   */
+  private void select(int k, int left, int right, int axis) {
+    while (right > left) {
+      if (right - left > 600) {
+        int n = right - left + 1;
+        int m = k - left + 1;
+        double z = Math.log(n);
+        double s = 0.5 * Math.exp(2 * z / 3);
+        double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * (m - n / 2 < 0 ? -1 : 1);
+        int newLeft = Math.max(left, (int) Math.floor(k - m * s / n + sd));
+        int newRight = Math.min(right, (int) Math.floor(k + (n - m) * s / n + sd));
+        select(k, newLeft, newRight, axis);
+      }
+
+      double t = coords[2 * k + axis];
+      int i = left;
+      int j = right;
+
+      swap(left, k);
+      if (coords[2 * right + axis] > t) {
+        swap(left, right);
+      }
+
+      while (i < j) {
+        swap(i, j);
+        i++;
+        j--;
+        while (coords[2 * i + axis] < t) {
+          i++;
+        }
+        while (coords[2 * j + axis] > t) {
+          j--;
+        }
+      }
+
+      if (coords[2 * left + axis] == t) {
+        swap(left, j);
+      } else {
+        j++;
+        swap(j, right);
+      }
+
+      if (j <= k) {
+        left = j + 1;
+      }
+      if (k <= j) {
+        right = j - 1;
+      }
+    }
+  }
+
+  private void swap(int i, int j) {
+    int id = ids[i];
+    ids[i] = ids[j];
+    ids[j] = id;
+
+    double value = coords[2 * i];
+    coords[2 * i] = coords[2 * j];
+    coords[2 * j] = value;
+
+    value = coords[2 * i + 1];
+    coords[2 * i + 1] = coords[2 * j + 1];
+    coords[2 * j + 1] = value;
+  }
+
+  private static double sqDistance(double ax, double ay, double bx, double by) {
+    double dx = ax - bx;
+    double dy = ay - by;
+    return dx * dx + dy * dy;
+  }
+}
@@ -0,0 +1,110 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.geojson.LineString;
+
+/**
+ * Simplified versions of a line for a set of zoom levels.
+ * <p>
+ * Every level is built once, up front, from a single {@link RankedPolyline}. Each level is simplified to a
+ * tolerance of a few pixels at its zoom, so it looks the same as the full line at that zoom or below while
+ * pushing far fewer vertices to the map. Past the last level the full line is used.
+ * </p>
+ */
+public class LevelOfDetailLine {
+
+  /**
+   * Zoom levels simplified versions are built for when none are given.
+   */
+  public static final double[] DEFAULT_ZOOM_LEVELS = {4, 7, 10, 12, 14, 16};
+
+  /**
+   * How far, in pixels, a removed vertex may be off the displayed line when none is given.
+   */
+  public static final double DEFAULT_PIXEL_TOLERANCE = 0.5;
+
+  private final double[] zoomLevels;
+  private final LineString[] lines;
+  private final LineString fullLine;
+
+  private LevelOfDetailLine(double[] zoomLevels, LineString[] lines, LineString fullLine) {
+    this.zoomLevels = zoomLevels;
+    this.lines = lines;
+    this.fullLine = fullLine;
+  }
+
+  /**
+   * Builds the levels for {@link #DEFAULT_ZOOM_LEVELS} at {@link #DEFAULT_PIXEL_TOLERANCE}.
+   *
+   * @param coordinates the full line
+   * @return the line with its levels
+   */
+  @NonNull
+  public static LevelOfDetailLine create(@NonNull PackedCoordinates coordinates) {
+    return create(coordinates, DEFAULT_ZOOM_LEVELS, DEFAULT_PIXEL_TOLERANCE);
+  }
+
+  /**
+   * Builds the levels of a line. This ranks every vertex, so for long lines call it off the main thread.
+   *
+   * @param coordinates    the full line
+   * @param zoomLevels     the zoom levels to build a level for, in ascending order
+   * @param pixelTolerance how far, in pixels, a removed vertex may be off the displayed line
+   * @return the line with its levels
+   */
+  @NonNull
+  public static LevelOfDetailLine create(@NonNull PackedCoordinates coordinates, @NonNull double[] zoomLevels,
+                                         double pixelTolerance) {
+    RankedPolyline rankedPolyline = PolylineSimplifier.rank(coordinates);
+    LineString fullLine = coordinates.toLineString();
+
+    LineString[] lines = new LineString[zoomLevels.length];
+    int previousCount = -1;
+    for (int i = 0; i < zoomLevels.length; i++) {
+      double tolerance = RankedPolyline.toleranceForZoom(zoomLevels[i], pixelTolerance);
+      int count = rankedPolyline.countVertices(tolerance);
+      if (count == coordinates.size()) {
+        lines[i] = fullLine;
+      } else if (count == previousCount) {
+        // Nothing more was kept at this zoom, share the previous level
+        lines[i] = lines[i - 1];
+      } else {
+        lines[i] = rankedPolyline.simplify(tolerance).toLineString();
+      }
+      previousCount = count;
+    }
+    return new LevelOfDetailLine(zoomLevels.clone(), lines, fullLine);
+  }
+
+  /**
+   * Returns the index of the level used at a zoom, or the number of levels if the full line is used.
+   *
+   * @param zoom the camera zoom
+   * @return the level index
+   */
+  public int getLevel(double zoom) {
+    int level = 0;
+    while (level < zoomLevels.length && zoomLevels[level] < zoom) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Returns the line to display at a zoom.
+   *
+   * @param zoom the camera zoom
+   * @return the simplified or full line
+   */
+  @NonNull
+  public LineString getLine(double zoom) {
+    int level = getLevel(zoom);
+    return level < lines.length ? lines[level] : fullLine;
+  }
+
+  @NonNull
+  public LineString getFullLine() {
+    return fullLine;
+  }
+}
@@ -0,0 +1,150 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mapbox.mapboxandroiddemo.commons.assets.GeoJsonAssetLoader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Pulls the coordinates of the first LineString out of a GeoJSON document.
+ * <p>
+ * The document is read token by token and the coordinates are written straight into a
+ * {@link PackedCoordinates} buffer, so no JSON tree, Feature or Point objects are built along the way.
+ * Reading stops as soon as the LineString has been found.
+ * </p>
+ */
+public final class LineStringExtractor {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+  private static final String LINE_STRING = "LineString";
+
+  private LineStringExtractor() {
+    // No instances
+  }
+
+  /**
+   * Extracts the first LineString from a FeatureCollection, Feature or geometry and closes the stream.
+   *
+   * @param inputStream a UTF-8 encoded GeoJSON stream
+   * @return the coordinates of the first LineString
+   * @throws IOException if the stream can't be read or doesn't contain a LineString
+   */
+  @WorkerThread
+  @NonNull
+  public static PackedCoordinates extract(@NonNull InputStream inputStream) throws IOException {
+    JsonReader reader = new JsonReader(
+      new InputStreamReader(new BufferedInputStream(inputStream, BUFFER_SIZE), GeoJsonAssetLoader.UTF_8));
+    try {
+      PackedCoordinates coordinates = null;
+      if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+        coordinates = readObject(reader);
+      }
+      if (coordinates == null) {
+        throw new IOException("No LineString found");
+      }
+      return coordinates;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static PackedCoordinates readObject(JsonReader reader) throws IOException {
+    String type = null;
+    PackedCoordinates coordinates = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (reader.peek() == JsonToken.NULL) {
+        reader.skipValue();
+        continue;
+      }
+
+      PackedCoordinates found = null;
+      if ("type".equals(name)) {
+        type = reader.nextString();
+      } else if ("features".equals(name) || "geometries".equals(name)) {
+        found = readObjects(reader);
+      } else if ("geometry".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+        found = readObject(reader);
+      } else if ("coordinates".equals(name)) {
+        coordinates = readPositions(reader);
+      } else {
+        reader.skipValue();
+      }
+
+      if (found != null) {
+        return found;
+      }
+      // The "coordinates" member can come before or after "type", return as soon as both are known
+      if (coordinates != null && LINE_STRING.equals(type)) {
+        return coordinates;
+      }
+    }
+    reader.endObject();
+    return null;
+  }
+
+  private static PackedCoordinates readObjects(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+        PackedCoordinates found = readObject(reader);
+        if (found != null) {
+          return found;
+        }
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endArray();
+    return null;
+  }
+
+  /**
+   * Reads an array of positions, or skips the value and returns null if it has any other shape.
+   */
+  private static PackedCoordinates readPositions(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+    PackedCoordinates coordinates = new PackedCoordinates();
+    boolean positions = true;
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (!positions || reader.peek() != JsonToken.BEGIN_ARRAY) {
+        positions = false;
+        reader.skipValue();
+        continue;
+      }
+      reader.beginArray();
+      if (reader.peek() == JsonToken.NUMBER) {
+        double longitude = reader.nextDouble();
+        double latitude = reader.nextDouble();
+        coordinates.add(longitude, latitude);
+      } else {
+        positions = false;
+      }
+      // Skip altitude, or the rest of a nested ring
+      while (reader.hasNext()) {
+        reader.skipValue();
+      }
+      reader.endArray();
+    }
+    reader.endArray();
+    return positions ? coordinates : null;
+  }
+}
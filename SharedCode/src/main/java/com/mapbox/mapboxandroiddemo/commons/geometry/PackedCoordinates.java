@@ -0,0 +1,134 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of longitude/latitude pairs stored in a single primitive array.
+ * <p>
+ * Coordinates are laid out as {@code [lon0, lat0, lon1, lat1, ...]}, so a line with n vertices costs one
+ * {@code double[]} instead of n {@link Point} objects. Use {@link #asPoints()} where an API still expects
+ * a {@code List<Point>}.
+ * </p>
+ */
+public class PackedCoordinates {
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private double[] coordinates;
+  private int size;
+
+  public PackedCoordinates() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public PackedCoordinates(int capacity) {
+    coordinates = new double[Math.max(capacity, 1) * 2];
+  }
+
+  /**
+   * Wraps an existing packed array without copying it.
+   *
+   * @param coordinates longitude/latitude pairs
+   * @param size        the number of pairs in use
+   * @return the wrapping coordinates
+   */
+  public static PackedCoordinates wrap(@NonNull double[] coordinates, int size) {
+    if (size * 2 > coordinates.length) {
+      throw new IllegalArgumentException("size " + size + " exceeds the length of the array");
+    }
+    PackedCoordinates packedCoordinates = new PackedCoordinates(0);
+    packedCoordinates.coordinates = coordinates;
+    packedCoordinates.size = size;
+    return packedCoordinates;
+  }
+
+  public void add(double longitude, double latitude) {
+    if ((size + 1) * 2 > coordinates.length) {
+      coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+    }
+    coordinates[size * 2] = longitude;
+    coordinates[size * 2 + 1] = latitude;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public double longitude(int index) {
+    checkIndex(index);
+    return coordinates[index * 2];
+  }
+
+  public double latitude(int index) {
+    checkIndex(index);
+    return coordinates[index * 2 + 1];
+  }
+
+  /**
+   * Returns the backing array. Only the first {@code size() * 2} values are in use.
+   *
+   * @return the packed longitude/latitude pairs
+   */
+  @NonNull
+  public double[] array() {
+    return coordinates;
+  }
+
+  /**
+   * Returns a read only {@code List<Point>} view of these coordinates. Points are created as they're
+   * accessed and aren't retained.
+   *
+   * @return a list view of the coordinates
+   */
+  @NonNull
+  public List<Point> asPoints() {
+    return new PointListView();
+  }
+
+  /**
+   * Copies these coordinates into a new {@link LineString}.
+   *
+   * @return the line string
+   */
+  @NonNull
+  public LineString toLineString() {
+    List<Point> points = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      points.add(Point.fromLngLat(coordinates[i * 2], coordinates[i * 2 + 1]));
+    }
+    return LineString.fromLngLats(points);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+
+  private class PointListView extends AbstractList<Point> implements RandomAccess {
+
+    @Override
+    public Point get(int index) {
+      return Point.fromLngLat(longitude(index), latitude(index));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
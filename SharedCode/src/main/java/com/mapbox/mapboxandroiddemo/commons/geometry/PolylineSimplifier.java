@@ -0,0 +1,218 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Polyline simplification over {@link PackedCoordinates}.
+ * <p>
+ * This follows the same algorithm as {@code PolylineUtils.simplify}: an optional radial distance pass that
+ * drops vertices closer than the tolerance to the previously kept vertex, followed by Ramer-Douglas-Peucker.
+ * Distances are planar, measured in the units of the coordinates. Douglas-Peucker runs with an explicit
+ * stack instead of recursion, and no per-vertex objects are allocated.
+ * </p>
+ */
+public final class PolylineSimplifier {
+
+  private PolylineSimplifier() {
+    // No instances
+  }
+
+  /**
+   * Simplifies a line.
+   *
+   * @param coordinates    the line to simplify
+   * @param tolerance      the maximum distance a removed vertex may be from the simplified line
+   * @param highestQuality true to skip the radial distance pass, which is slower but keeps more detail
+   * @return the simplified line
+   */
+  @NonNull
+  public static PackedCoordinates simplify(@NonNull PackedCoordinates coordinates, double tolerance,
+                                           boolean highestQuality) {
+    if (coordinates.size() <= 2) {
+      return copy(coordinates);
+    }
+    double sqTolerance = tolerance * tolerance;
+    PackedCoordinates source = highestQuality ? coordinates : simplifyRadialDistance(coordinates, sqTolerance);
+    return simplifyDouglasPeucker(source, sqTolerance);
+  }
+
+  /**
+   * Ranks every vertex of a line once, so that it can later be simplified at any tolerance with a
+   * single linear pass. See {@link RankedPolyline}.
+   *
+   * @param coordinates the line to rank
+   * @return the ranked line
+   */
+  @NonNull
+  public static RankedPolyline rank(@NonNull PackedCoordinates coordinates) {
+    int size = coordinates.size();
+    double[] importance = new double[size];
+    if (size > 0) {
+      importance[0] = Double.POSITIVE_INFINITY;
+      importance[size - 1] = Double.POSITIVE_INFINITY;
+    }
+    if (size > 2) {
+      double[] array = coordinates.array();
+      // Ranges are pushed together with the importance of the vertex that split them off. A vertex
+      // can't be more important than that parent, so that the kept set at any tolerance is exactly
+      // what Douglas-Peucker would keep at that tolerance.
+      int[] rangeStack = new int[size * 2];
+      double[] parentStack = new double[size];
+      int top = 0;
+      rangeStack[0] = 0;
+      rangeStack[1] = size - 1;
+      parentStack[0] = Double.POSITIVE_INFINITY;
+      top++;
+
+      while (top > 0) {
+        top--;
+        int first = rangeStack[top * 2];
+        int last = rangeStack[top * 2 + 1];
+        double parent = parentStack[top];
+
+        int index = first;
+        double maxSqDistance = -1;
+        for (int i = first + 1; i < last; i++) {
+          double sqDistance = sqSegmentDistance(array, i, first, last);
+          if (sqDistance > maxSqDistance) {
+            index = i;
+            maxSqDistance = sqDistance;
+          }
+        }
+        double rank = Math.min(maxSqDistance, parent);
+        importance[index] = rank;
+
+        if (index - first > 1) {
+          rangeStack[top * 2] = first;
+          rangeStack[top * 2 + 1] = index;
+          parentStack[top] = rank;
+          top++;
+        }
+        if (last - index > 1) {
+          rangeStack[top * 2] = index;
+          rangeStack[top * 2 + 1] = last;
+          parentStack[top] = rank;
+          top++;
+        }
+      }
+    }
+    return new RankedPolyline(coordinates, importance);
+  }
+
+  static PackedCoordinates simplifyRadialDistance(PackedCoordinates coordinates, double sqTolerance) {
+    double[] array = coordinates.array();
+    int size = coordinates.size();
+    PackedCoordinates result = new PackedCoordinates(size);
+
+    int previous = 0;
+    result.add(array[0], array[1]);
+    for (int i = 1; i < size; i++) {
+      if (sqDistance(array, i, previous) > sqTolerance) {
+        result.add(array[i * 2], array[i * 2 + 1]);
+        previous = i;
+      }
+    }
+    if (previous != size - 1) {
+      result.add(array[(size - 1) * 2], array[(size - 1) * 2 + 1]);
+    }
+    return result;
+  }
+
+  static PackedCoordinates simplifyDouglasPeucker(PackedCoordinates coordinates, double sqTolerance) {
+    int size = coordinates.size();
+    if (size <= 2) {
+      return copy(coordinates);
+    }
+    double[] array = coordinates.array();
+    boolean[] keep = new boolean[size];
+    keep[0] = true;
+    keep[size - 1] = true;
+    int keptCount = 2;
+
+    int[] rangeStack = new int[size * 2];
+    int top = 0;
+    rangeStack[0] = 0;
+    rangeStack[1] = size - 1;
+    top++;
+
+    while (top > 0) {
+      top--;
+      int first = rangeStack[top * 2];
+      int last = rangeStack[top * 2 + 1];
+
+      int index = first;
+      double maxSqDistance = sqTolerance;
+      for (int i = first + 1; i < last; i++) {
+        double sqDistance = sqSegmentDistance(array, i, first, last);
+        if (sqDistance > maxSqDistance) {
+          index = i;
+          maxSqDistance = sqDistance;
+        }
+      }
+
+      if (index != first) {
+        keep[index] = true;
+        keptCount++;
+        if (index - first > 1) {
+          rangeStack[top * 2] = first;
+          rangeStack[top * 2 + 1] = index;
+          top++;
+        }
+        if (last - index > 1) {
+          rangeStack[top * 2] = index;
+          rangeStack[top * 2 + 1] = last;
+          top++;
+        }
+      }
+    }
+
+    PackedCoordinates result = new PackedCoordinates(keptCount);
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        result.add(array[i * 2], array[i * 2 + 1]);
+      }
+    }
+    return result;
+  }
+
+  static PackedCoordinates copy(PackedCoordinates coordinates) {
+    PackedCoordinates result = new PackedCoordinates(coordinates.size());
+    for (int i = 0; i < coordinates.size(); i++) {
+      result.add(coordinates.longitude(i), coordinates.latitude(i));
+    }
+    return result;
+  }
+
+  private static double sqDistance(double[] array, int index, int other) {
+    double dx = array[index * 2] - array[other * 2];
+    double dy = array[index * 2 + 1] - array[other * 2 + 1];
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Square distance from the vertex at index to the segment between the vertices at first and last.
+   */
+  private static double sqSegmentDistance(double[] array, int index, int first, int last) {
+    double x = array[first * 2];
+    double y = array[first * 2 + 1];
+    double dx = array[last * 2] - x;
+    double dy = array[last * 2 + 1] - y;
+    double px = array[index * 2];
+    double py = array[index * 2 + 1];
+
+    if (dx != 0 || dy != 0) {
+      double t = ((px - x) * dx + (py - y) * dy) / (dx * dx + dy * dy);
+      if (t > 1) {
+        x = array[last * 2];
+        y = array[last * 2 + 1];
+      } else if (t > 0) {
+        x += dx * t;
+        y += dy * t;
+      }
+    }
+
+    dx = px - x;
+    dy = py - y;
+    return dx * dx + dy * dy;
+  }
+}
@@ -0,0 +1,76 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A line whose vertices have been ranked by {@link PolylineSimplifier#rank(PackedCoordinates)}.
+ * <p>
+ * Each vertex stores the largest tolerance at which Douglas-Peucker still keeps it. Simplifying at a new
+ * tolerance is then a threshold filter over that array, so changing tolerance, for example as the camera
+ * zooms, doesn't redo any distance calculations.
+ * </p>
+ */
+public class RankedPolyline {
+
+  private static final double TILE_SIZE = 512;
+
+  private final PackedCoordinates coordinates;
+  private final double[] importance;
+
+  RankedPolyline(PackedCoordinates coordinates, double[] importance) {
+    this.coordinates = coordinates;
+    this.importance = importance;
+  }
+
+  /**
+   * Returns the tolerance, in degrees, that corresponds to a number of screen pixels at a zoom level.
+   *
+   * @param zoom   the map zoom level
+   * @param pixels the number of pixels a removed vertex may be off the simplified line
+   * @return the tolerance to pass to {@link #simplify(double)}
+   */
+  public static double toleranceForZoom(double zoom, double pixels) {
+    return pixels * 360 / (TILE_SIZE * Math.pow(2, zoom));
+  }
+
+  @NonNull
+  public PackedCoordinates getCoordinates() {
+    return coordinates;
+  }
+
+  /**
+   * Returns the number of vertices that would be kept at a tolerance, without building the line.
+   *
+   * @param tolerance the simplification tolerance
+   * @return the number of kept vertices
+   */
+  public int countVertices(double tolerance) {
+    double sqTolerance = tolerance * tolerance;
+    int count = 0;
+    for (double value : importance) {
+      if (value > sqTolerance) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Simplifies the line at a tolerance, with the same result as Douglas-Peucker at that tolerance.
+   *
+   * @param tolerance the maximum distance a removed vertex may be from the simplified line
+   * @return the simplified line
+   */
+  @NonNull
+  public PackedCoordinates simplify(double tolerance) {
+    double sqTolerance = tolerance * tolerance;
+    double[] array = coordinates.array();
+    PackedCoordinates result = new PackedCoordinates(countVertices(tolerance));
+    for (int i = 0; i < importance.length; i++) {
+      if (importance[i] > sqTolerance) {
+        result.add(array[i * 2], array[i * 2 + 1]);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,160 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A route that can be sampled at any distance along it.
+ * <p>
+ * The distance from the start to every vertex, and the bearing of every segment, are computed once
+ * when the path is built. Finding the position at a distance is then a binary search over those
+ * distances followed by a linear interpolation within the segment, without allocating, so it can be
+ * called every frame.
+ * </p>
+ */
+public class RoutePath {
+
+  private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+  private final double[] coordinates;
+  private final double[] distances;
+  private final double[] bearings;
+  private final int size;
+
+  /**
+   * Builds a path through the coordinates, which are copied.
+   *
+   * @param coordinates at least one coordinate
+   */
+  public RoutePath(@NonNull PackedCoordinates coordinates) {
+    if (coordinates.isEmpty()) {
+      throw new IllegalArgumentException("A route needs at least one coordinate");
+    }
+    this.size = coordinates.size();
+    this.coordinates = new double[size * 2];
+    System.arraycopy(coordinates.array(), 0, this.coordinates, 0, size * 2);
+    this.distances = new double[size];
+    this.bearings = new double[Math.max(size - 1, 1)];
+    for (int i = 1; i < size; i++) {
+      double lon1 = this.coordinates[2 * (i - 1)];
+      double lat1 = this.coordinates[2 * (i - 1) + 1];
+      double lon2 = this.coordinates[2 * i];
+      double lat2 = this.coordinates[2 * i + 1];
+      distances[i] = distances[i - 1] + distance(lon1, lat1, lon2, lat2);
+      bearings[i - 1] = bearing(lon1, lat1, lon2, lat2);
+    }
+    fillZeroLengthBearings();
+  }
+
+  /**
+   * Zero-length segments, such as repeated vertices, have no direction of their own. They take the
+   * bearing of the segment before them, or of the first segment with a length at the start of the route.
+   */
+  private void fillZeroLengthBearings() {
+    int firstWithLength = -1;
+    for (int i = 0; i < size - 1; i++) {
+      if (distances[i + 1] > distances[i]) {
+        if (firstWithLength < 0) {
+          firstWithLength = i;
+        }
+      } else if (firstWithLength >= 0) {
+        bearings[i] = bearings[i - 1];
+      }
+    }
+    for (int i = 0; i < firstWithLength; i++) {
+      bearings[i] = bearings[firstWithLength];
+    }
+  }
+
+  /**
+   * The number of vertices of the route.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The length of the route, in meters.
+   */
+  public double getLength() {
+    return distances[size - 1];
+  }
+
+  /**
+   * Returns the segment a distance falls on.
+   *
+   * @param distance the distance from the start, in meters, clamped to the route
+   * @return the index of the first vertex of the segment
+   */
+  public int segmentAt(double distance) {
+    if (size < 2 || distance <= 0) {
+      return 0;
+    }
+    int low = 0;
+    int high = size - 2;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (distances[middle] <= distance) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Computes the position at a distance along the route.
+   *
+   * @param distance the distance from the start, in meters, clamped to the route
+   * @param result   receives the longitude and latitude, in that order
+   */
+  public void positionAt(double distance, @NonNull double[] result) {
+    int segment = segmentAt(distance);
+    if (size < 2) {
+      result[0] = coordinates[0];
+      result[1] = coordinates[1];
+      return;
+    }
+    double start = distances[segment];
+    double length = distances[segment + 1] - start;
+    double fraction = length > 0 ? (distance - start) / length : 0;
+    fraction = Math.max(0, Math.min(1, fraction));
+    int index = segment * 2;
+    result[0] = coordinates[index] + (coordinates[index + 2] - coordinates[index]) * fraction;
+    result[1] = coordinates[index + 1] + (coordinates[index + 3] - coordinates[index + 1]) * fraction;
+  }
+
+  /**
+   * Returns the bearing of the segment at a distance along the route.
+   *
+   * @param distance the distance from the start, in meters, clamped to the route
+   * @return the bearing in degrees, clockwise from north, from -180 to 180
+   */
+  public double bearingAt(double distance) {
+    return bearings[segmentAt(distance)];
+  }
+
+  /**
+   * The great-circle distance between two coordinates, in meters.
+   */
+  static double distance(double lon1, double lat1, double lon2, double lat2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double sinLat = Math.sin((phi2 - phi1) / 2);
+    double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+    double a = sinLat * sinLat + Math.cos(phi1) * Math.cos(phi2) * sinLon * sinLon;
+    return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+  }
+
+  /**
+   * The initial bearing from one coordinate to another, in degrees from -180 to 180.
+   */
+  static double bearing(double lon1, double lat1, double lon2, double lat2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double deltaLambda = Math.toRadians(lon2 - lon1);
+    double y = Math.sin(deltaLambda) * Math.cos(phi2);
+    double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(deltaLambda);
+    return Math.toDegrees(Math.atan2(y, x));
+  }
+}
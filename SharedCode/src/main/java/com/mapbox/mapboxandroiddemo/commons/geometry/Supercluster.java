@@ -0,0 +1,422 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical clustering of points for every zoom level of a map, following the approach of the
+ * supercluster library the map renderer uses for clustered GeoJSON sources.
+ * <p>
+ * Points are projected to {@link WebMercator} world coordinates once, and every zoom level is built
+ * up front, from the maximum zoom down: the clusters of a level are made by merging, in a
+ * {@link KdPointIndex} of the level above, every point or cluster within the cluster radius of one that
+ * isn't merged yet. Each level keeps its clusters in flat arrays with an index of its own, so that once
+ * built, getting the clusters in a bounding box is a single range query and getting the leaves of a
+ * cluster only walks down its children, neither reading nor allocating per point of the data set.
+ * </p>
+ * <p>
+ * Points are identified by their index in the coordinates the clusters were built from, clusters by
+ * ids from {@link #size()} up, which encode where their children are, see {@link #isCluster(int)}.
+ * Building takes a while for large data sets, so build off the main thread. Queries share the stacks of
+ * the underlying indexes, so they must only be made from one thread at a time.
+ * </p>
+ */
+public class Supercluster {
+
+  /**
+   * Receives the points and clusters found by a query.
+   */
+  public interface Visitor {
+
+    /**
+     * @param id         the index of the point, or the id of the cluster
+     * @param longitude  the longitude of the point, or of the weighted center of the cluster
+     * @param latitude   the latitude of the point, or of the weighted center of the cluster
+     * @param pointCount 1 for a point, the number of points in it for a cluster
+     */
+    void visit(int id, double longitude, double latitude, int pointCount);
+  }
+
+  /**
+   * Receives the points of a cluster.
+   */
+  public interface LeafVisitor {
+
+    /**
+     * @param point the index of the point, in the coordinates the clusters were built from
+     */
+    void visit(int point);
+  }
+
+  // Cluster ids keep the zoom they were made at in their lowest bits, which limits the maximum zoom
+  private static final int ZOOM_BITS = 5;
+  private static final int MAX_ZOOM = (1 << ZOOM_BITS) - 2;
+  private static final int NODE_SIZE = 64;
+
+  private final int size;
+  private final double radius;
+  private final int minZoom;
+  private final int maxZoom;
+  private final Level[] levels;
+  private final long buildNanos;
+
+  // Children of nested clusters are collected after the ones of their parent, in one growing buffer
+  private final ChildrenVisitor childrenVisitor = new ChildrenVisitor();
+  private int[] children = new int[64];
+  private int leavesSkipped;
+  private int leavesReported;
+
+  /**
+   * Clusters points, building every zoom level right away.
+   *
+   * @param points  the points, as longitude/latitude pairs
+   * @param radius  the cluster radius, in pixels of a {@link WebMercator#TILE_SIZE} tile
+   * @param minZoom the lowest zoom level clusters are built for
+   * @param maxZoom the highest zoom level clusters are built for, points aren't clustered above it
+   */
+  @WorkerThread
+  public Supercluster(@NonNull PackedCoordinates points, double radius, int minZoom, int maxZoom) {
+    if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom) {
+      throw new IllegalArgumentException("Zoom levels must be within 0 and " + MAX_ZOOM);
+    }
+    final long start = System.nanoTime();
+    this.size = points.size();
+    this.radius = radius;
+    this.minZoom = minZoom;
+    this.maxZoom = maxZoom;
+    this.levels = new Level[maxZoom + 2];
+
+    Level level = new Level(size);
+    for (int i = 0; i < size; i++) {
+      double x = WebMercator.longitudeToX(normalizeLongitude(points.longitude(i)));
+      level.add(x, WebMercator.latitudeToY(points.latitude(i)), i, 1);
+    }
+    level.index();
+    levels[maxZoom + 1] = level;
+    for (int zoom = maxZoom; zoom >= minZoom; zoom--) {
+      level = cluster(levels[zoom + 1], zoom);
+      level.index();
+      levels[zoom] = level;
+    }
+    buildNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * The number of points the clusters were built from.
+   */
+  public int size() {
+    return size;
+  }
+
+  public int getMinZoom() {
+    return minZoom;
+  }
+
+  public int getMaxZoom() {
+    return maxZoom;
+  }
+
+  /**
+   * The time it took to build every zoom level.
+   */
+  public long getBuildNanos() {
+    return buildNanos;
+  }
+
+  /**
+   * Returns whether an id reported by a query is a cluster, rather than the index of a point.
+   */
+  public boolean isCluster(int id) {
+    return id >= size;
+  }
+
+  /**
+   * Reports the points and clusters of a zoom level inside a bounding box. The box may cross the
+   * antimeridian, in which case west is greater than east.
+   *
+   * @param zoom the zoom level, levels above the maximum zoom report the points themselves
+   */
+  public void getClusters(double west, double south, double east, double north, int zoom,
+                          @NonNull Visitor visitor) {
+    Level level = levels[Math.max(minZoom, Math.min(maxZoom + 1, zoom))];
+    double minY = WebMercator.latitudeToY(north);
+    double maxY = WebMercator.latitudeToY(south);
+    if (east - west >= 360) {
+      report(level, 0, minY, 1, maxY, visitor);
+      return;
+    }
+    double minX = WebMercator.longitudeToX(normalizeLongitude(west));
+    double maxX = WebMercator.longitudeToX(normalizeLongitude(east));
+    if (minX > maxX) {
+      report(level, minX, minY, 1, maxY, visitor);
+      report(level, 0, minY, maxX, maxY, visitor);
+    } else {
+      report(level, minX, minY, maxX, maxY, visitor);
+    }
+  }
+
+  /**
+   * Reports the points and clusters a cluster is made of, on the zoom level above the one it was made at.
+   */
+  public void getChildren(int clusterId, @NonNull Visitor visitor) {
+    int count = findChildren(clusterId, 0);
+    Level level = levels[originZoom(clusterId)];
+    for (int i = 0; i < count; i++) {
+      level.report(children[i], visitor);
+    }
+  }
+
+  /**
+   * Reports the points of a cluster, in pages.
+   *
+   * @param limit  the maximum number of points to report
+   * @param offset the number of points to skip before reporting
+   * @return the number of points reported
+   */
+  public int getLeaves(int clusterId, int limit, int offset, @NonNull LeafVisitor visitor) {
+    leavesSkipped = 0;
+    leavesReported = 0;
+    collectLeaves(clusterId, 0, limit, offset, visitor);
+    return leavesReported;
+  }
+
+  /**
+   * Returns the zoom level at which a cluster breaks up into more than one point or cluster.
+   */
+  public int getClusterExpansionZoom(int clusterId) {
+    int id = clusterId;
+    int zoom = originZoom(id) - 1;
+    while (zoom <= maxZoom) {
+      int count = findChildren(id, 0);
+      zoom++;
+      if (count != 1) {
+        break;
+      }
+      id = levels[originZoom(id)].ids[children[0]];
+      if (!isCluster(id)) {
+        break;
+      }
+    }
+    return zoom;
+  }
+
+  /**
+   * Makes the clusters of a zoom level from the points and clusters of the level above.
+   */
+  private Level cluster(Level above, int zoom) {
+    Level level = new Level(above.size);
+    double distance = WebMercator.pixelsToWorld(radius, zoom);
+    MergeVisitor merger = new MergeVisitor(above, zoom);
+    for (int i = 0; i < above.size; i++) {
+      if (above.zooms[i] <= zoom) {
+        continue;
+      }
+      above.zooms[i] = zoom;
+      int count = above.counts[i];
+      double x = above.xy[2 * i];
+      double y = above.xy[2 * i + 1];
+      merger.id = encodeId(i, zoom);
+      merger.count = count;
+      merger.weightedX = x * count;
+      merger.weightedY = y * count;
+      above.index.within(x, y, distance, merger);
+
+      if (merger.count == count) {
+        // Nothing within reach, carried down as is
+        level.add(x, y, above.ids[i], count);
+      } else {
+        above.parents[i] = merger.id;
+        level.add(merger.weightedX / merger.count, merger.weightedY / merger.count, merger.id, merger.count);
+      }
+    }
+    // Only needed while building the level below
+    above.zooms = null;
+    return level;
+  }
+
+  private void collectLeaves(int clusterId, int start, int limit, int offset, LeafVisitor visitor) {
+    int count = findChildren(clusterId, start);
+    Level level = levels[originZoom(clusterId)];
+    for (int i = start; i < start + count && leavesReported < limit; i++) {
+      int child = children[i];
+      int pointCount = level.counts[child];
+      if (leavesSkipped + pointCount <= offset) {
+        // The whole child is before the page, it isn't walked down
+        leavesSkipped += pointCount;
+      } else if (pointCount > 1) {
+        // Children are collected after the ones of the parent, which are still being walked
+        collectLeaves(level.ids[child], start + count, limit, offset, visitor);
+      } else {
+        visitor.visit(level.ids[child]);
+        leavesReported++;
+      }
+    }
+  }
+
+  /**
+   * Collects the positions of a cluster's children, in the level above the one it was made at.
+   *
+   * @param start the position in {@link #children} to store them from
+   * @return the number of children
+   */
+  private int findChildren(int clusterId, int start) {
+    int zoom = originZoom(clusterId);
+    int origin = originIndex(clusterId);
+    if (!isCluster(clusterId) || zoom >= levels.length || levels[zoom] == null || origin >= levels[zoom].size) {
+      throw new IllegalArgumentException("No cluster with the id " + clusterId);
+    }
+    Level level = levels[zoom];
+    childrenVisitor.level = level;
+    childrenVisitor.id = clusterId;
+    childrenVisitor.found = start;
+    try {
+      level.index.within(level.xy[2 * origin], level.xy[2 * origin + 1],
+        WebMercator.pixelsToWorld(radius, zoom - 1), childrenVisitor);
+    } finally {
+      childrenVisitor.level = null;
+    }
+    int count = childrenVisitor.found - start;
+    if (count == 0) {
+      throw new IllegalArgumentException("No cluster with the id " + clusterId);
+    }
+    return count;
+  }
+
+  private void report(Level level, double minX, double minY, double maxX, double maxY, Visitor visitor) {
+    ReportVisitor reporter = level.reporter;
+    reporter.visitor = visitor;
+    try {
+      level.index.range(minX, minY, maxX, maxY, reporter);
+    } finally {
+      reporter.visitor = null;
+    }
+  }
+
+  private int encodeId(int index, int zoom) {
+    return (index << ZOOM_BITS) + zoom + 1 + size;
+  }
+
+  private int originIndex(int clusterId) {
+    return (clusterId - size) >> ZOOM_BITS;
+  }
+
+  private int originZoom(int clusterId) {
+    return (clusterId - size) & ((1 << ZOOM_BITS) - 1);
+  }
+
+  private static double normalizeLongitude(double longitude) {
+    return ((longitude + 180) % 360 + 360) % 360 - 180;
+  }
+
+  /**
+   * The points and clusters of a zoom level, in flat arrays.
+   */
+  private static class Level {
+
+    int size;
+    double[] xy;
+    int[] ids;
+    int[] counts;
+    // The cluster each entry was merged into, and the zoom it was last looked at, both set while building
+    int[] parents;
+    int[] zooms;
+    KdPointIndex index;
+    final ReportVisitor reporter = new ReportVisitor(this);
+
+    Level(int capacity) {
+      xy = new double[capacity * 2];
+      ids = new int[capacity];
+      counts = new int[capacity];
+    }
+
+    void add(double x, double y, int id, int count) {
+      xy[2 * size] = x;
+      xy[2 * size + 1] = y;
+      ids[size] = id;
+      counts[size] = count;
+      size++;
+    }
+
+    void index() {
+      // Lower levels hold fewer entries than the level above, trim them once they're complete
+      xy = Arrays.copyOf(xy, size * 2);
+      ids = Arrays.copyOf(ids, size);
+      counts = Arrays.copyOf(counts, size);
+      parents = new int[size];
+      Arrays.fill(parents, -1);
+      zooms = new int[size];
+      Arrays.fill(zooms, Integer.MAX_VALUE);
+      index = new KdPointIndex(xy, size, NODE_SIZE);
+    }
+
+    void report(int entry, Visitor visitor) {
+      visitor.visit(ids[entry], WebMercator.xToLongitude(xy[2 * entry]),
+        WebMercator.yToLatitude(xy[2 * entry + 1]), counts[entry]);
+    }
+  }
+
+  private static class ReportVisitor implements KdPointIndex.Visitor {
+
+    final Level level;
+    Visitor visitor;
+
+    ReportVisitor(Level level) {
+      this.level = level;
+    }
+
+    @Override
+    public void visit(int index) {
+      level.report(index, visitor);
+    }
+  }
+
+  /**
+   * Merges the neighbours of an entry that aren't merged yet into a cluster, while building a level.
+   */
+  private static class MergeVisitor implements KdPointIndex.Visitor {
+
+    final Level level;
+    final int zoom;
+    int id;
+    int count;
+    double weightedX;
+    double weightedY;
+
+    MergeVisitor(Level level, int zoom) {
+      this.level = level;
+      this.zoom = zoom;
+    }
+
+    @Override
+    public void visit(int index) {
+      if (level.zooms[index] <= zoom) {
+        return;
+      }
+      level.zooms[index] = zoom;
+      int neighbourCount = level.counts[index];
+      weightedX += level.xy[2 * index] * neighbourCount;
+      weightedY += level.xy[2 * index + 1] * neighbourCount;
+      count += neighbourCount;
+      level.parents[index] = id;
+    }
+  }
+
+  private class ChildrenVisitor implements KdPointIndex.Visitor {
+
+    Level level;
+    int id;
+    int found;
+
+    @Override
+    public void visit(int index) {
+      if (level.parents[index] == id) {
+        if (found == children.length) {
+          children = Arrays.copyOf(children, found * 2);
+        }
+        children[found++] = index;
+      }
+    }
+  }
+}
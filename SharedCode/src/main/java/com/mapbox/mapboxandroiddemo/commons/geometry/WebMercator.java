@@ -0,0 +1,64 @@
+package com.mapbox.mapboxandroiddemo.commons.geometry;
+
+/**
+ * Conversions between longitude/latitude and Web Mercator world coordinates.
+ * <p>
+ * World coordinates run from 0 to 1 on both axes, from the top left corner of the map at zoom 0. At zoom
+ * z the world is {@code TILE_SIZE * 2^z} pixels wide, so distances in world coordinates convert to screen
+ * pixels the same way in every direction.
+ * </p>
+ */
+public final class WebMercator {
+
+  /**
+   * The size in pixels of the world at zoom 0, matching the map's tile size.
+   */
+  public static final double TILE_SIZE = 512;
+
+  private static final double MAX_LATITUDE = 85.0511287798066;
+
+  private WebMercator() {
+    // No instances
+  }
+
+  public static double longitudeToX(double longitude) {
+    return longitude / 360 + 0.5;
+  }
+
+  public static double latitudeToY(double latitude) {
+    double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+    double sin = Math.sin(clamped * Math.PI / 180);
+    return 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+  }
+
+  public static double xToLongitude(double x) {
+    return (x - 0.5) * 360;
+  }
+
+  public static double yToLatitude(double y) {
+    double y2 = (180 - y * 360) * Math.PI / 180;
+    return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+  }
+
+  /**
+   * Returns the world coordinate distance covered by a number of screen pixels at a zoom level.
+   */
+  public static double pixelsToWorld(double pixels, double zoom) {
+    return pixels / (TILE_SIZE * Math.pow(2, zoom));
+  }
+
+  /**
+   * Projects longitude/latitude pairs into world coordinates.
+   *
+   * @param coordinates longitude/latitude pairs
+   * @return x/y pairs in world coordinates
+   */
+  public static PackedCoordinates project(PackedCoordinates coordinates) {
+    double[] array = coordinates.array();
+    PackedCoordinates projected = new PackedCoordinates(coordinates.size());
+    for (int i = 0; i < coordinates.size(); i++) {
+      projected.add(longitudeToX(array[i * 2]), latitudeToY(array[i * 2 + 1]));
+    }
+    return projected;
+  }
+}
@@ -0,0 +1,137 @@
+package com.mapbox.mapboxandroiddemo.commons.network;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Process wide HTTP client shared by every example that talks to a web service.
+ * <p>
+ * Building an {@link OkHttpClient} or {@link Retrofit} per request throws away the connection pool,
+ * HTTP/2 multiplexing and the DNS and TLS session state along with it. Every example goes through the
+ * single client held here instead, backed by a sized disk cache and a tuned connection pool, and
+ * reporting to a shared {@link NetworkMetrics}.
+ * </p>
+ * <p>
+ * Clients returned by {@link #getClient(long, TimeUnit)} only differ in their timeouts, they share the
+ * pool, cache, dispatcher and metrics of the default one.
+ * </p>
+ */
+public class HttpClientProvider {
+
+  private static final String CACHE_DIRECTORY = "http-cache";
+  private static final long MAX_CACHE_BYTES = 10 * 1024 * 1024;
+  private static final int MAX_IDLE_CONNECTIONS = 8;
+  private static final long KEEP_ALIVE_MINUTES = 5;
+  private static final long CONNECT_TIMEOUT_SECONDS = 10;
+  private static final long READ_TIMEOUT_SECONDS = 20;
+  private static final long WRITE_TIMEOUT_SECONDS = 20;
+
+  private static volatile HttpClientProvider instance;
+
+  private final OkHttpClient client;
+  private final NetworkMetrics metrics;
+  private final Map<String, Retrofit> retrofits = new HashMap<>();
+
+  /**
+   * Returns the process wide instance of the provider.
+   *
+   * @param context any context, only the application context is retained
+   * @return the shared provider
+   */
+  public static HttpClientProvider getInstance(@NonNull Context context) {
+    if (instance == null) {
+      synchronized (HttpClientProvider.class) {
+        if (instance == null) {
+          File cacheDirectory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY);
+          instance = new HttpClientProvider(cacheDirectory, MAX_CACHE_BYTES, new NetworkMetrics());
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a provider of its own, for instance to point a test at a local server with an empty cache.
+   *
+   * @param cacheDirectory the directory of the HTTP disk cache
+   * @param maxCacheBytes  the maximum size of the disk cache
+   * @param metrics        receives the events of every call
+   */
+  public HttpClientProvider(@NonNull File cacheDirectory, long maxCacheBytes, @NonNull NetworkMetrics metrics) {
+    this.metrics = metrics;
+    this.client = new OkHttpClient.Builder()
+      .cache(new Cache(cacheDirectory, maxCacheBytes))
+      .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+      .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      .eventListenerFactory(metrics)
+      .build();
+  }
+
+  /**
+   * The shared client, with the default timeouts.
+   */
+  @NonNull
+  public OkHttpClient getClient() {
+    return client;
+  }
+
+  /**
+   * Returns a client sharing everything with the default one, except that connecting, reading and
+   * writing each time out after the given duration.
+   */
+  @NonNull
+  public OkHttpClient getClient(long timeout, @NonNull TimeUnit unit) {
+    return client.newBuilder()
+      .connectTimeout(timeout, unit)
+      .readTimeout(timeout, unit)
+      .writeTimeout(timeout, unit)
+      .build();
+  }
+
+  /**
+   * Returns a Retrofit instance using the shared client and Gson, created once per base url.
+   *
+   * @param baseUrl the base url of the service, ending with a slash
+   */
+  @NonNull
+  public Retrofit getRetrofit(@NonNull String baseUrl) {
+    synchronized (retrofits) {
+      Retrofit retrofit = retrofits.get(baseUrl);
+      if (retrofit == null) {
+        retrofit = new Retrofit.Builder()
+          .baseUrl(baseUrl)
+          .client(client)
+          .addConverterFactory(GsonConverterFactory.create())
+          .build();
+        retrofits.put(baseUrl, retrofit);
+      }
+      return retrofit;
+    }
+  }
+
+  /**
+   * The disk cache, which keeps count of the requests it served.
+   */
+  @NonNull
+  public Cache getCache() {
+    return client.cache();
+  }
+
+  @NonNull
+  public NetworkMetrics getMetrics() {
+    return metrics;
+  }
+}
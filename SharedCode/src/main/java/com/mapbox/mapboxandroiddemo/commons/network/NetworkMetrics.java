@@ -0,0 +1,153 @@
+package com.mapbox.mapboxandroiddemo.commons.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+
+/**
+ * Counts what the shared HTTP client does, across every call made through it.
+ * <p>
+ * A call either reuses a pooled connection or opens a new one, and a new HTTPS connection costs a TLS
+ * handshake. Comparing {@link #getPooledConnections()} with {@link #getNewConnections()} shows how well
+ * the connection pool is working. Calls answered by the disk cache never acquire a connection, see
+ * {@link HttpClientProvider#getCache()} for those.
+ * </p>
+ * <p>
+ * The counters are updated from OkHttp's threads and can be read from any thread.
+ * </p>
+ */
+public class NetworkMetrics implements EventListener.Factory {
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong failedCalls = new AtomicLong();
+  private final AtomicLong pooledConnections = new AtomicLong();
+  private final AtomicLong newConnections = new AtomicLong();
+  private final AtomicLong tlsHandshakes = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+  private final AtomicLong bytesReceived = new AtomicLong();
+
+  @Override
+  public EventListener create(@NonNull Call call) {
+    return new CallListener();
+  }
+
+  public long getCalls() {
+    return calls.get();
+  }
+
+  public long getFailedCalls() {
+    return failedCalls.get();
+  }
+
+  /**
+   * The number of times a call was served over a connection taken from the pool.
+   */
+  public long getPooledConnections() {
+    return pooledConnections.get();
+  }
+
+  /**
+   * The number of times a call had to open a connection.
+   */
+  public long getNewConnections() {
+    return newConnections.get();
+  }
+
+  public long getTlsHandshakes() {
+    return tlsHandshakes.get();
+  }
+
+  /**
+   * The number of request body bytes sent, headers excluded.
+   */
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * The number of response body bytes received from the network, headers excluded.
+   */
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  /**
+   * Sets every counter back to zero.
+   */
+  public void reset() {
+    calls.set(0);
+    failedCalls.set(0);
+    pooledConnections.set(0);
+    newConnections.set(0);
+    tlsHandshakes.set(0);
+    bytesSent.set(0);
+    bytesReceived.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.US,
+      "calls=%d failed=%d pooled=%d new=%d tls=%d sent=%dB received=%dB",
+      getCalls(), getFailedCalls(), getPooledConnections(), getNewConnections(), getTlsHandshakes(),
+      getBytesSent(), getBytesReceived());
+  }
+
+  /**
+   * Listens to a single call, one is created per call so it can remember whether it connected.
+   */
+  private class CallListener extends EventListener {
+
+    private boolean connected;
+
+    @Override
+    public void callStart(Call call) {
+      calls.incrementAndGet();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+      connected = true;
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, @Nullable Handshake handshake) {
+      tlsHandshakes.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+      if (connected) {
+        newConnections.incrementAndGet();
+      } else {
+        pooledConnections.incrementAndGet();
+      }
+      // A redirect or retry can acquire another connection for the same call
+      connected = false;
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+      bytesSent.addAndGet(byteCount);
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+      bytesReceived.addAndGet(byteCount);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException exception) {
+      failedCalls.incrementAndGet();
+    }
+  }
+}